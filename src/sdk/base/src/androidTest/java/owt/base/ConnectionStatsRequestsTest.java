@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.webrtc.RTCStatsCollectorCallback;
+import org.webrtc.RTCStatsReport;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(AndroidJUnit4.class)
+public class ConnectionStatsRequestsTest {
+
+    private final ExecutorService callbackExecutor = Executors.newSingleThreadExecutor();
+    // getStats calls not answered yet, accessed on the test thread only.
+    private final List<RTCStatsCollectorCallback> collecting = new ArrayList<>();
+    private final ConnectionStatsRequests requests =
+            new ConnectionStatsRequests(callbackExecutor, collecting::add);
+
+    private class Callback implements ActionCallback<RTCStatsReport> {
+        final CountDownLatch called = new CountDownLatch(1);
+        final AtomicInteger calls = new AtomicInteger();
+        volatile RTCStatsReport report;
+        volatile OwtError error;
+        volatile Thread thread;
+
+        @Override
+        public void onSuccess(RTCStatsReport result) {
+            report = result;
+            thread = Thread.currentThread();
+            calls.incrementAndGet();
+            called.countDown();
+        }
+
+        @Override
+        public void onFailure(OwtError error) {
+            this.error = error;
+            thread = Thread.currentThread();
+            calls.incrementAndGet();
+            called.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue(called.await(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        callbackExecutor.shutdownNow();
+    }
+
+    private Callback request() {
+        Callback callback = new Callback();
+        requests.request(callback);
+        return callback;
+    }
+
+    private static RTCStatsReport report() {
+        return new StatsReportBuilder(1000).build();
+    }
+
+    @Test
+    public void testRequestsShareTheReportInFlight() throws Exception {
+        Callback first = request();
+        Callback second = request();
+        assertEquals(1, collecting.size());
+
+        RTCStatsReport report = report();
+        collecting.get(0).onStatsDelivered(report);
+        first.await();
+        second.await();
+        assertSame(report, first.report);
+        assertSame(report, second.report);
+        assertSame(first.thread, second.thread);
+        assertTrue(first.thread != Thread.currentThread());
+
+        // No TTL, the next request collects a new report.
+        request();
+        assertEquals(2, collecting.size());
+    }
+
+    @Test
+    public void testReportIsCachedForTheTtl() throws Exception {
+        requests.setTtl(200);
+        request();
+        RTCStatsReport report = report();
+        collecting.get(0).onStatsDelivered(report);
+
+        Callback cached = request();
+        cached.await();
+        assertSame(report, cached.report);
+        assertEquals(1, collecting.size());
+
+        Thread.sleep(300);
+        request();
+        assertEquals(2, collecting.size());
+    }
+
+    @Test
+    public void testCloseFailsPendingAndLaterRequests() throws Exception {
+        requests.setTtl(60000);
+        Callback pending = request();
+        requests.close();
+        pending.await();
+        assertNull(pending.report);
+        assertTrue(pending.error != null);
+
+        // Collected after the close, nobody is called twice.
+        collecting.get(0).onStatsDelivered(report());
+        Callback later = request();
+        later.await();
+        assertTrue(later.error != null);
+        assertSame(pending.thread, later.thread);
+        assertEquals(1, pending.calls.get());
+        assertEquals(1, collecting.size());
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import static junit.framework.Assert.assertEquals;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+public class QoeDetectorTest {
+    private static final long INTERVAL_MS = 250;
+
+    private final List<String> events = new ArrayList<>();
+    private final QoeDetector detector = QoeDetector.builder().setHysteresis(2, 2).build();
+    private final StatsSnapshot snapshot = new StatsSnapshot();
+    private final StatsSeries series = new StatsSeries(1);
+    private int samples = 0;
+
+    public QoeDetectorTest() {
+        detector.addListener(event -> events.add(samples + " " + event));
+    }
+
+    // Feeds the sample |samples|, INTERVAL_MS after the previous one.
+    private void sample(long framesDecoded, long packetsReceived, double loss, double rttMs,
+            String limitation) {
+        StatsReportBuilder report = new StatsReportBuilder((samples + 1) * INTERVAL_MS * 1000)
+                .inboundRtp("in", "video")
+                .uint32("framesDecoded", framesDecoded)
+                .uint32("packetsReceived", packetsReceived)
+                .uint64("bytesReceived", packetsReceived * 1000);
+        if (limitation != null) {
+            report.outboundRtp("out", "video").member("qualityLimitationReason", limitation);
+        }
+        feed(report, loss, 0, rttMs);
+    }
+
+    private void audioSample(long totalSamplesReceived, long concealedSamples, double jitterMs) {
+        StatsReportBuilder report = new StatsReportBuilder((samples + 1) * INTERVAL_MS * 1000)
+                .inboundRtp("in", "audio")
+                .uint64("totalSamplesReceived", totalSamplesReceived)
+                .uint64("concealedSamples", concealedSamples);
+        feed(report, 0, jitterMs, -1);
+    }
+
+    private void feed(StatsReportBuilder report, double loss, double jitterMs, double rttMs) {
+        samples++;
+        snapshot.update(report.build());
+        series.add(samples * INTERVAL_MS, 0, 0, loss, jitterMs, rttMs);
+        detector.onSnapshot("sub", series, snapshot);
+    }
+
+    @Test
+    public void testFreeze() {
+        sample(0, 0, 0, -1, null);
+        sample(8, 20, 0, -1, null);
+        // Packets keep coming in, no frame is decoded from sample 3 on.
+        sample(8, 40, 0, -1, null);
+        sample(8, 60, 0, -1, null);
+        sample(8, 80, 0, -1, null);
+        sample(16, 100, 0, -1, null);
+        sample(24, 120, 0, -1, null);
+        assertEquals("[4 FREEZE_STARTED sub 0.0, 7 FREEZE_ENDED sub 1000.0]", events.toString());
+    }
+
+    @Test
+    public void testPausedStreamIsNotFrozen() {
+        sample(0, 0, 0, -1, null);
+        sample(8, 20, 0, -1, null);
+        for (int i = 0; i < 5; i++) {
+            sample(8, 20, 0, -1, null);
+        }
+        assertEquals("[]", events.toString());
+    }
+
+    @Test
+    public void testLossHysteresis() {
+        double[] losses = {0.1, 0.01, 0.1, 0.1, 0.03, 0.01, 0.01};
+        for (int i = 0; i < losses.length; i++) {
+            sample(i * 8, i * 20, losses[i], -1, null);
+        }
+        assertEquals("[4 LOSS_STARTED sub 0.1, 7 LOSS_ENDED sub 0.01]", events.toString());
+    }
+
+    @Test
+    public void testRttSpike() {
+        double[] rtts = {50, 50, 55, 50, 300, 300, 300, 60, 60};
+        for (int i = 0; i < rtts.length; i++) {
+            sample(i * 8, i * 20, 0, rtts[i], null);
+        }
+        assertEquals("[6 RTT_SPIKE_STARTED sub 300.0, 9 RTT_SPIKE_ENDED sub 60.0]",
+                events.toString());
+    }
+
+    @Test
+    public void testRttLevelIsSeededFromMeasuredRtt() {
+        // Not measured yet at first, a level seeded from those would make 150 ms a spike.
+        double[] rtts = {-1, -1, 150, 150, 150, 150};
+        for (int i = 0; i < rtts.length; i++) {
+            sample(i * 8, i * 20, 0, rtts[i], null);
+        }
+        assertEquals("[]", events.toString());
+    }
+
+    @Test
+    public void testJitterSpike() {
+        double[] jitters = {5, 40, 5, 40, 40, 25, 10, 10};
+        for (int i = 0; i < jitters.length; i++) {
+            audioSample(i * 12000, 0, jitters[i]);
+        }
+        assertEquals("[5 JITTER_SPIKE_STARTED sub 40.0, 8 JITTER_SPIKE_ENDED sub 10.0]",
+                events.toString());
+    }
+
+    @Test
+    public void testConcealmentBurst() {
+        // 12000 samples per interval, of which concealed:
+        long[] concealed = {0, 0, 1200, 1200, 100, 0, 0};
+        long total = 0, totalConcealed = 0;
+        for (long samplesConcealed : concealed) {
+            audioSample(total, totalConcealed, -1);
+            total += 12000;
+            totalConcealed += samplesConcealed;
+        }
+        // No audio played out, e.g. muted remotely, is not concealment either.
+        audioSample(total, totalConcealed, -1);
+        audioSample(total, totalConcealed, -1);
+        assertEquals("[5 CONCEALMENT_STARTED sub 0.1, 7 CONCEALMENT_ENDED sub 0.0]",
+                events.toString());
+    }
+
+    @Test
+    public void testQualityLimitationChange() {
+        String[] reasons = {"none", "none", "bandwidth", "none", "bandwidth", "bandwidth"};
+        for (int i = 0; i < reasons.length; i++) {
+            sample(i * 8, i * 20, 0, -1, reasons[i]);
+        }
+        assertEquals("[6 QUALITY_LIMITATION_CHANGED sub bandwidth]", events.toString());
+    }
+}
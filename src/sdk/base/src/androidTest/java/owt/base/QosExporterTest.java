@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RunWith(AndroidJUnit4.class)
+public class QosExporterTest {
+    private File directory;
+
+    private static class Source implements QosExporter.Source {
+        @Override
+        public void getAllStats(long deadlineMs, ActionCallback<ClientStats> callback) {
+            callback.onSuccess(stats());
+        }
+
+        @Override
+        public Map<String, Long> counters() {
+            Map<String, Long> counters = new LinkedHashMap<>();
+            counters.put("owt_channels", 2L);
+            counters.put("owt_reconnections_total", 1L);
+            return counters;
+        }
+    }
+
+    private static ClientStats stats() {
+        List<ClientStats.ChannelStats> channels = new ArrayList<>();
+        channels.add(new ClientStats.ChannelStats("pub", null, 500000, 0, 42.5, 0));
+        channels.add(new ClientStats.ChannelStats("sub", null, 0, -1, 40, 3));
+        return new ClientStats(1000, channels, Collections.singletonList("stuck"));
+    }
+
+    private static List<String> lines(File file) throws Exception {
+        List<String> lines = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new FileReader(file));
+        try {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                lines.add(line);
+            }
+        } finally {
+            reader.close();
+        }
+        return lines;
+    }
+
+    private static void awaitFile(File file) throws Exception {
+        for (int i = 0; i < 500 && !file.exists(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(file.exists());
+    }
+
+    @Before
+    public void setUp() {
+        directory = new File(System.getProperty("java.io.tmpdir"), "qos-" + System.nanoTime());
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        for (File file : files == null ? new File[0] : files) {
+            file.delete();
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testPrometheusText() {
+        List<String> lines = Arrays.asList(
+                QosExporter.prometheus("me", new Source().counters(), stats()).split("\n"));
+        assertTrue(lines.contains("# TYPE owt_channels gauge"));
+        assertTrue(lines.contains("owt_channels{client=\"me\"} 2"));
+        assertTrue(lines.contains("# TYPE owt_reconnections_total counter"));
+        assertTrue(lines.contains("owt_uplink_bitrate_bps{client=\"me\"} 500000"));
+        assertTrue(lines.contains("owt_worst_rtt_ms{client=\"me\"} 42.500"));
+        assertTrue(lines.contains("owt_freeze_count{client=\"me\"} 3"));
+        assertTrue(lines.contains("owt_stats_missing_channels{client=\"me\"} 1"));
+        assertTrue(lines.contains(
+                "owt_channel_downlink_bitrate_bps{client=\"me\",channel=\"pub\"} 0"));
+        // Not available.
+        assertFalse(lines.contains(
+                "owt_channel_downlink_bitrate_bps{client=\"me\",channel=\"sub\"} -1"));
+    }
+
+    @Test
+    public void testPrometheusFile() throws Exception {
+        QosExporter exporter = new QosExporter(directory, "client", QosExporter.Format.PROMETHEUS,
+                10, QosExporter.DEFAULT_MAX_FILE_BYTES, QosExporter.DEFAULT_MAX_FILES,
+                new Source());
+        exporter.start();
+        File file = new File(directory, "client.prom");
+        awaitFile(file);
+        exporter.stop();
+        assertTrue(lines(file).contains("owt_channels{client=\"client\"} 2"));
+    }
+
+    @Test
+    public void testJsonLinesRotation() throws Exception {
+        int lineBytes = QosExporter.jsonLine("client", new Source().counters(), stats()).length()
+                + 1;
+        // Two lines per file.
+        QosExporter exporter = new QosExporter(directory, "client", QosExporter.Format.JSON_LINES,
+                10, lineBytes * 2, 2, new Source());
+        exporter.start();
+        awaitFile(new File(directory, "client.2.jsonl"));
+        exporter.stop();
+        // stop() is asynchronous, let a rotation in progress complete.
+        Thread.sleep(100);
+
+        assertFalse(new File(directory, "client.3.jsonl").exists());
+        for (String name : new String[]{"client.1.jsonl", "client.2.jsonl"}) {
+            List<String> lines = lines(new File(directory, name));
+            assertEquals(2, lines.size());
+            for (String line : lines) {
+                JSONObject export = new JSONObject(line);
+                assertEquals(500000, export.getLong("uplinkBitrateBps"));
+                assertEquals(2, export.getJSONArray("channels").length());
+                assertEquals(1, export.getJSONObject("counters").getLong(
+                        "owt_reconnections_total"));
+            }
+        }
+    }
+}
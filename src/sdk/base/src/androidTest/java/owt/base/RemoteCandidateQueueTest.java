@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.webrtc.IceCandidate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(AndroidJUnit4.class)
+public class RemoteCandidateQueueTest {
+    private static final String TAG = "RemoteCandidateQueue";
+    private static final int THREADS = 8;
+    private static final int CANDIDATES_PER_THREAD = 1000;
+
+    private final ExecutorService pcExecutor = Executors.newSingleThreadExecutor();
+    // Both accessed on |pcExecutor| only.
+    private final List<IceCandidate> added = new ArrayList<>();
+    private boolean stable = false;
+    private final RemoteCandidateQueue queue =
+            new RemoteCandidateQueue(pcExecutor, new RemoteCandidateQueue.Target() {
+                @Override
+                public boolean readyForCandidates() {
+                    return stable;
+                }
+
+                @Override
+                public void addIceCandidate(IceCandidate candidate) {
+                    added.add(candidate);
+                }
+            });
+
+    @After
+    public void tearDown() {
+        pcExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testQueuedCandidatesPrecedeLaterOnes() throws Exception {
+        queue.addOrQueue(candidate(0, 0));
+        queue.addOrQueue(candidate(0, 1));
+        pcExecutor.execute(() -> stable = true);
+        // Arrives before the drain task runs, must still be added after the queued ones.
+        queue.addOrQueue(candidate(0, 2));
+        queue.drain();
+        awaitExecutor();
+        assertEquals(3, added.size());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(candidate(0, i).sdp, added.get(i).sdp);
+        }
+    }
+
+    @Test
+    public void testDrainIgnoresReadiness() throws Exception {
+        queue.addOrQueue(candidate(0, 0));
+        queue.drain();
+        awaitExecutor();
+        assertEquals(1, added.size());
+    }
+
+    @Test
+    public void testConcurrentBurst() throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < CANDIDATES_PER_THREAD; i++) {
+                    queue.addOrQueue(candidate(thread, i));
+                    if (thread == 0 && i == CANDIDATES_PER_THREAD / 2) {
+                        // Remote description gets set in the middle of the burst.
+                        pcExecutor.execute(() -> stable = true);
+                        queue.drain();
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        long startNs = System.nanoTime();
+        start.countDown();
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        awaitExecutor();
+        long elapsedUs = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNs);
+        Log.i(TAG, THREADS * CANDIDATES_PER_THREAD + " candidates added in " + elapsedUs + " us");
+
+        assertEquals(THREADS * CANDIDATES_PER_THREAD, added.size());
+        HashSet<String> unique = new HashSet<>();
+        int[] next = new int[THREADS];
+        for (IceCandidate candidate : added) {
+            assertTrue(unique.add(candidate.sdp));
+            // Candidates of one thread keep their order.
+            int thread = Integer.parseInt(candidate.sdpMid);
+            assertEquals(candidate(thread, next[thread]).sdp, candidate.sdp);
+            next[thread]++;
+        }
+    }
+
+    private static IceCandidate candidate(int thread, int index) {
+        return new IceCandidate(String.valueOf(thread), 0,
+                "candidate:" + thread + "-" + index + " 1 udp 2122260223 10.0.0.1 5000 typ host");
+    }
+
+    private void awaitExecutor() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        pcExecutor.execute(latch::countDown);
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+    }
+}
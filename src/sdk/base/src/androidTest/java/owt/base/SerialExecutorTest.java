@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@RunWith(AndroidJUnit4.class)
+public class SerialExecutorTest {
+    private static final int QUEUES = 32;
+    private static final int TASKS_PER_QUEUE = 500;
+
+    @Test
+    public void testTasksOfAQueueRunInOrderAndAlone() throws Exception {
+        final List<SerialExecutor> executors = new ArrayList<>();
+        final List<List<Integer>> results = new ArrayList<>();
+        final AtomicInteger[] running = new AtomicInteger[QUEUES];
+        final AtomicInteger overlaps = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(QUEUES * TASKS_PER_QUEUE);
+        for (int q = 0; q < QUEUES; q++) {
+            executors.add(WorkerPool.newSerialExecutor());
+            results.add(Collections.synchronizedList(new ArrayList<>()));
+            running[q] = new AtomicInteger();
+        }
+        for (int i = 0; i < TASKS_PER_QUEUE; i++) {
+            for (int q = 0; q < QUEUES; q++) {
+                final int queue = q;
+                final int task = i;
+                executors.get(q).execute(() -> {
+                    if (running[queue].incrementAndGet() != 1) {
+                        overlaps.incrementAndGet();
+                    }
+                    results.get(queue).add(task);
+                    running[queue].decrementAndGet();
+                    done.countDown();
+                });
+            }
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        assertEquals(0, overlaps.get());
+        for (List<Integer> result : results) {
+            assertEquals(TASKS_PER_QUEUE, result.size());
+            for (int i = 0; i < TASKS_PER_QUEUE; i++) {
+                assertEquals(i, result.get(i).intValue());
+            }
+        }
+    }
+
+    @Test
+    public void testQueuesRunInParallel() throws Exception {
+        if (WorkerPool.threadCount() < 2) {
+            return;
+        }
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+        final CountDownLatch done = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            WorkerPool.newSerialExecutor().execute(() -> {
+                bothStarted.countDown();
+                try {
+                    // Only returns early if the other queue runs at the same time.
+                    if (bothStarted.await(5, TimeUnit.SECONDS)) {
+                        done.countDown();
+                    }
+                } catch (InterruptedException ignored) {
+                }
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testShutdownRunsQueuedTasksAndDropsLaterOnes() throws Exception {
+        final SerialExecutor executor = WorkerPool.newSerialExecutor();
+        final CountDownLatch block = new CountDownLatch(1);
+        final AtomicInteger ran = new AtomicInteger();
+        executor.execute(() -> {
+            try {
+                block.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+            }
+            ran.incrementAndGet();
+        });
+        executor.execute(ran::incrementAndGet);
+        executor.shutdown();
+        executor.execute(ran::incrementAndGet);
+        assertTrue(executor.isShutdown());
+        block.countDown();
+
+        // Nothing can be queued behind the tasks anymore, poll for them to complete.
+        for (int i = 0; i < 250 && ran.get() < 2; i++) {
+            Thread.sleep(20);
+        }
+        Thread.sleep(50);
+        assertEquals(2, ran.get());
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.webrtc.RTCStatsReport;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(AndroidJUnit4.class)
+public class StatsAggregatorTest {
+
+    // Sends or receives |bytesPerReport| per report, one second apart.
+    private static class Source implements StatsSampler.Source {
+        final String type;
+        final long bytesPerReport;
+        final double rtt;
+        final long freezes;
+        int reports = 0;
+
+        Source(String type, long bytesPerReport, double rtt, long freezes) {
+            this.type = type;
+            this.bytesPerReport = bytesPerReport;
+            this.rtt = rtt;
+            this.freezes = freezes;
+        }
+
+        @Override
+        public void getStats(ActionCallback<RTCStatsReport> callback) {
+            long timestampUs = reports * 1000000L;
+            reports++;
+            callback.onSuccess(new StatsReportBuilder(timestampUs)
+                    .stats(type, "rtp")
+                    .member("kind", "video")
+                    .uint64(type.equals("inbound-rtp") ? "bytesReceived" : "bytesSent",
+                            bytesPerReport * reports)
+                    .uint32("freezeCount", freezes)
+                    .candidatePair("pair", true)
+                    .real("currentRoundTripTime", rtt)
+                    .build());
+        }
+    }
+
+    private static ClientStats collect(StatsAggregator aggregator,
+            Map<String, StatsSampler.Source> sources, long deadlineMs) throws Exception {
+        final CountDownLatch collected = new CountDownLatch(1);
+        final ClientStats[] result = new ClientStats[1];
+        aggregator.collect(sources, deadlineMs, new ActionCallback<ClientStats>() {
+            @Override
+            public void onSuccess(ClientStats stats) {
+                result[0] = stats;
+                collected.countDown();
+            }
+
+            @Override
+            public void onFailure(OwtError error) {
+            }
+        });
+        assertTrue(collected.await(5, TimeUnit.SECONDS));
+        return result[0];
+    }
+
+    @Test
+    public void testTotals() throws Exception {
+        StatsAggregator aggregator = new StatsAggregator();
+        Map<String, StatsSampler.Source> sources = new LinkedHashMap<>();
+        sources.put("pub", new Source("outbound-rtp", 1000, 0.03, 0));
+        sources.put("sub1", new Source("inbound-rtp", 2000, 0.08, 1));
+        sources.put("sub2", new Source("inbound-rtp", 3000, 0.05, 2));
+
+        ClientStats first = collect(aggregator, sources, 1000);
+        assertEquals(3, first.channels.size());
+        assertEquals(-1, first.uplinkBitrateBps);
+        assertEquals(-1, first.channel("sub1").downlinkBitrateBps);
+
+        ClientStats second = collect(aggregator, sources, 1000);
+        assertEquals(8000, second.uplinkBitrateBps);
+        assertEquals(40000, second.downlinkBitrateBps);
+        assertEquals(16000, second.channel("sub1").downlinkBitrateBps);
+        assertEquals(80.0, second.worstRttMs, 1e-9);
+        assertEquals(3, second.freezeCount);
+        assertEquals(0, second.missing.size());
+    }
+
+    @Test
+    public void testDeadline() throws Exception {
+        Map<String, StatsSampler.Source> sources = new LinkedHashMap<>();
+        sources.put("sub", new Source("inbound-rtp", 1000, 0.05, 0));
+        // Never reports.
+        sources.put("stuck", callback -> {
+        });
+
+        long start = System.currentTimeMillis();
+        ClientStats stats = collect(new StatsAggregator(), sources, 200);
+        assertTrue(System.currentTimeMillis() - start >= 200);
+        assertEquals(1, stats.channels.size());
+        assertEquals("sub", stats.channels.get(0).id);
+        assertEquals("[stuck]", stats.missing.toString());
+    }
+
+    @Test
+    public void testFailureSettlesBeforeTheDeadline() throws Exception {
+        Map<String, StatsSampler.Source> sources = new LinkedHashMap<>();
+        sources.put("sub", new Source("inbound-rtp", 1000, 0.05, 0));
+        sources.put("failing", callback -> callback.onFailure(new OwtError("Invalid stats.")));
+
+        long start = System.currentTimeMillis();
+        ClientStats stats = collect(new StatsAggregator(), sources, 5000);
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        assertEquals(1, stats.channels.size());
+        assertEquals("[failing]", stats.missing.toString());
+    }
+
+    @Test
+    public void testRttWithoutCandidatePairRtt() throws Exception {
+        Map<String, StatsSampler.Source> sources = new LinkedHashMap<>();
+        sources.put("pub", callback -> callback.onSuccess(new StatsReportBuilder(1000000)
+                .outboundRtp("out", "video")
+                .uint64("bytesSent", 1000)
+                .remoteInboundRtp("remote", "video")
+                .real("roundTripTime", 0.12)
+                .candidatePair("pair", true)
+                .build()));
+        sources.put("sub", callback -> callback.onSuccess(new StatsReportBuilder(1000000)
+                .inboundRtp("in", "video")
+                .uint64("bytesReceived", 1000)
+                .candidatePair("pair", true)
+                .build()));
+
+        ClientStats stats = collect(new StatsAggregator(), sources, 1000);
+        assertEquals(120.0, stats.channel("pub").rttMs, 1e-9);
+        assertEquals(-1.0, stats.channel("sub").rttMs, 1e-9);
+        assertEquals(120.0, stats.worstRttMs, 1e-9);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import org.webrtc.RTCStats;
+import org.webrtc.RTCStatsReport;
+
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Builds the RTCStatsReports fed to the stats tests. Members are typed the way libwebrtc reports
+ * them: uint64 members are BigIntegers, uint32 ones Longs, int32 ones Integers and floating point
+ * ones Doubles. Members not added are absent from the report, as they are when libwebrtc has
+ * not measured them yet.
+ */
+final class StatsReportBuilder {
+    private final long timestampUs;
+    // key: id of the stats.
+    private final Map<String, String> types = new LinkedHashMap<>();
+    private final Map<String, Map<String, Object>> members = new LinkedHashMap<>();
+    private Map<String, Object> current;
+
+    StatsReportBuilder(long timestampUs) {
+        this.timestampUs = timestampUs;
+    }
+
+    /**
+     * Start the stats |id| of |type|, the members added next go to it.
+     */
+    StatsReportBuilder stats(String type, String id) {
+        current = new HashMap<>();
+        types.put(id, type);
+        members.put(id, current);
+        return this;
+    }
+
+    StatsReportBuilder inboundRtp(String id, String kind) {
+        return stats("inbound-rtp", id).member("kind", kind);
+    }
+
+    StatsReportBuilder outboundRtp(String id, String kind) {
+        return stats("outbound-rtp", id).member("kind", kind);
+    }
+
+    StatsReportBuilder remoteInboundRtp(String id, String kind) {
+        return stats("remote-inbound-rtp", id).member("kind", kind);
+    }
+
+    StatsReportBuilder track(String id, String kind) {
+        return stats("track", id).member("kind", kind);
+    }
+
+    /**
+     * Start a candidate pair, the one in use if |selected|.
+     */
+    StatsReportBuilder candidatePair(String id, boolean selected) {
+        return stats("candidate-pair", id)
+                .member("nominated", selected)
+                .member("state", selected ? "succeeded" : "waiting");
+    }
+
+    StatsReportBuilder member(String name, Object value) {
+        current.put(name, value);
+        return this;
+    }
+
+    StatsReportBuilder uint64(String name, long value) {
+        return member(name, BigInteger.valueOf(value));
+    }
+
+    StatsReportBuilder uint32(String name, long value) {
+        return member(name, value);
+    }
+
+    StatsReportBuilder int32(String name, int value) {
+        return member(name, value);
+    }
+
+    StatsReportBuilder real(String name, double value) {
+        return member(name, value);
+    }
+
+    RTCStatsReport build() {
+        Map<String, RTCStats> stats = new HashMap<>();
+        for (Map.Entry<String, String> entry : types.entrySet()) {
+            String id = entry.getKey();
+            stats.put(id, new RTCStats(timestampUs, entry.getValue(), id, members.get(id)));
+        }
+        return new RTCStatsReport(timestampUs, stats);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.webrtc.RTCStatsReport;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(AndroidJUnit4.class)
+public class StatsSamplerTest {
+
+    // Receives 1000 bytes, 30 frames and 100 packets with 10 lost per report, one second apart.
+    private static class InboundSource implements StatsSampler.Source {
+        int reports = 0;
+
+        @Override
+        public void getStats(ActionCallback<RTCStatsReport> callback) {
+            long timestampUs = reports * 1000000L;
+            reports++;
+            callback.onSuccess(new StatsReportBuilder(timestampUs)
+                    .inboundRtp("in", "video")
+                    .uint64("bytesReceived", 1000L * reports)
+                    .uint32("framesDecoded", 30L * reports)
+                    .uint32("packetsReceived", 90L * reports)
+                    .int32("packetsLost", 10 * reports)
+                    .real("jitter", 0.02)
+                    .candidatePair("pair", true)
+                    .real("currentRoundTripTime", 0.05)
+                    .build());
+        }
+    }
+
+    @Test
+    public void testRemovedSourceIsDropped() throws Exception {
+        StatsSampler sampler = new StatsSampler(10, 3);
+        final CountDownLatch samples = new CountDownLatch(4);
+        sampler.addListener((id, series) -> samples.countDown());
+        sampler.add("sub", new InboundSource());
+        assertTrue(samples.await(5, TimeUnit.SECONDS));
+        sampler.remove("sub");
+
+        // Removal is asynchronous.
+        for (int i = 0; i < 100 && sampler.series("sub") != null; i++) {
+            Thread.sleep(10);
+        }
+        assertNull(sampler.series("sub"));
+    }
+
+    @Test
+    public void testSeriesKeepsTheLatestSamples() {
+        StatsSeries series = new StatsSeries(3);
+        for (int i = 0; i < 5; i++) {
+            series.add(i, 8000, 30, 0.1, 20, 50);
+        }
+        assertEquals(3, series.size());
+        assertEquals(2, series.timestampMs(0));
+        assertEquals(4, series.timestampMs(2));
+    }
+
+    @Test
+    public void testSampleValues() throws Exception {
+        StatsSampler sampler = new StatsSampler(10, 8);
+        final CountDownLatch sampled = new CountDownLatch(1);
+        final StatsSeries[] result = new StatsSeries[1];
+        sampler.addListener((id, series) -> {
+            result[0] = series;
+            sampled.countDown();
+        });
+        sampler.add("sub", new InboundSource());
+        assertTrue(sampled.await(5, TimeUnit.SECONDS));
+        sampler.clear();
+
+        StatsSeries series = result[0];
+        assertEquals(1000, series.timestampMs(0));
+        assertEquals(8000, series.bitrateBps(0));
+        assertEquals(30.0, series.framesPerSecond(0), 1e-9);
+        assertEquals(0.1, series.packetLoss(0), 1e-9);
+        assertEquals(20.0, series.jitterMs(0), 1e-9);
+        assertEquals(50.0, series.rttMs(0), 1e-9);
+    }
+
+    private static StatsSeries firstSample(StatsSampler.Source source) throws Exception {
+        StatsSampler sampler = new StatsSampler(10, 8);
+        final CountDownLatch sampled = new CountDownLatch(1);
+        final StatsSeries[] result = new StatsSeries[1];
+        sampler.addListener((id, series) -> {
+            result[0] = series;
+            sampled.countDown();
+        });
+        sampler.add("channel", source);
+        assertTrue(sampled.await(5, TimeUnit.SECONDS));
+        sampler.clear();
+        return result[0];
+    }
+
+    @Test
+    public void testRttFallsBackToRemoteInbound() throws Exception {
+        final int[] reports = {0};
+        StatsSeries series = firstSample(callback -> {
+            long timestampUs = reports[0] * 1000000L;
+            reports[0]++;
+            // The pair in use has no RTT yet, the remote end has reported one.
+            callback.onSuccess(new StatsReportBuilder(timestampUs)
+                    .outboundRtp("out", "video")
+                    .uint64("bytesSent", 1000L * reports[0])
+                    .uint32("packetsSent", 100L * reports[0])
+                    .remoteInboundRtp("remote", "video")
+                    .real("roundTripTime", 0.08)
+                    .candidatePair("pair", true)
+                    .build());
+        });
+        assertEquals(80.0, series.rttMs(0), 1e-9);
+        assertEquals(-1.0, series.jitterMs(0), 1e-9);
+    }
+
+    @Test
+    public void testUnmeasuredValuesAreMinusOne() throws Exception {
+        final int[] reports = {0};
+        StatsSeries series = firstSample(callback -> {
+            long timestampUs = reports[0] * 1000000L;
+            reports[0]++;
+            callback.onSuccess(new StatsReportBuilder(timestampUs)
+                    .inboundRtp("in", "video")
+                    .uint64("bytesReceived", 1000L * reports[0])
+                    .uint32("packetsReceived", 100L * reports[0])
+                    .candidatePair("pair", true)
+                    .build());
+        });
+        assertEquals(8000, series.bitrateBps(0));
+        assertEquals(-1.0, series.rttMs(0), 1e-9);
+        assertEquals(-1.0, series.jitterMs(0), 1e-9);
+    }
+}
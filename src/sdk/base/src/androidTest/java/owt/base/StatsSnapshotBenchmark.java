@@ -0,0 +1,293 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+
+import android.os.Debug;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.webrtc.RTCStats;
+import org.webrtc.RTCStatsReport;
+
+import java.math.BigInteger;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compares reading the stats of 9 subscriptions from the raw RTCStatsReports, the way the
+ * sample app does, with reading them through StatsSnapshots. Both read the same reports, the
+ * cost of building a report in the native layer is not part of the comparison.
+ */
+@RunWith(AndroidJUnit4.class)
+public class StatsSnapshotBenchmark {
+    private static final String TAG = "OWT-StatsSnapshot";
+    private static final int SUBSCRIPTIONS = 9;
+    // Consumers of the stats of every subscription, e.g. a stats overlay, a sampler and a
+    // network quality indicator.
+    private static final int CONSUMERS = 3;
+    private static final int POLLS = 2000;
+
+    // Report of a subscription with an audio and a video track, shaped after the ones of
+    // libwebrtc.
+    private static RTCStatsReport report(int poll) {
+        long timestampUs = poll * 1000000L;
+        StatsReportBuilder report = new StatsReportBuilder(timestampUs);
+        for (String kind : new String[]{"audio", "video"}) {
+            report.inboundRtp("in-" + kind, kind)
+                    .uint32("ssrc", kind.hashCode())
+                    .member("isRemote", false)
+                    .member("mediaType", kind)
+                    .member("trackId", "track-" + kind)
+                    .member("transportId", "transport")
+                    .member("codecId", "codec-" + kind)
+                    .uint32("packetsReceived", 100L * poll)
+                    .uint64("bytesReceived", 125000L * poll)
+                    .uint64("headerBytesReceived", 2400L * poll)
+                    .int32("packetsLost", poll)
+                    .real("lastPacketReceivedTimestamp", timestampUs / 1000.0)
+                    .real("jitter", 0.012)
+                    .uint64("fecPacketsReceived", 0)
+                    .uint64("fecPacketsDiscarded", 0)
+                    .uint32("nackCount", 2L * poll)
+                    .uint32("firCount", 0)
+                    .uint32("pliCount", poll);
+            if (kind.equals("video")) {
+                report.uint32("framesDecoded", 30L * poll)
+                        .uint32("keyFramesDecoded", poll)
+                        .uint32("frameWidth", 1280)
+                        .uint32("frameHeight", 720)
+                        .real("framesPerSecond", 30.0)
+                        .real("totalDecodeTime", 0.004 * poll)
+                        .uint32("freezeCount", 0)
+                        .real("totalFreezesDuration", 0.0);
+            } else {
+                report.uint64("totalSamplesReceived", 48000L * poll)
+                        .uint64("concealedSamples", 10L * poll)
+                        .real("audioLevel", 0.1);
+            }
+
+            report.track("track-" + kind, kind)
+                    .member("trackIdentifier", "track-" + kind)
+                    .member("remoteSource", true)
+                    .member("ended", false)
+                    .member("detached", false)
+                    .real("jitterBufferDelay", 0.05 * poll)
+                    .uint64("jitterBufferEmittedCount", 30L * poll);
+            if (kind.equals("video")) {
+                report.uint32("frameWidth", 1280)
+                        .uint32("frameHeight", 720)
+                        .uint32("framesReceived", 30L * poll)
+                        .uint32("framesDecoded", 30L * poll)
+                        .uint32("framesDropped", 0)
+                        .uint32("freezeCount", 0)
+                        .real("totalFreezesDuration", 0.0);
+            } else {
+                report.uint64("concealedSamples", 10L * poll)
+                        .uint64("concealmentEvents", poll)
+                        .real("audioLevel", 0.1);
+            }
+
+            report.stats("codec", "codec-" + kind)
+                    .uint32("payloadType", 96)
+                    .member("mimeType", kind + "/" + (kind.equals("video") ? "VP8" : "opus"))
+                    .uint32("clockRate", kind.equals("video") ? 90000 : 48000);
+        }
+        for (int i = 0; i < 3; i++) {
+            report.candidatePair("pair-" + i, i == 0)
+                    .member("transportId", "transport")
+                    .member("localCandidateId", "local-" + i)
+                    .member("remoteCandidateId", "remote-" + i)
+                    .uint64("priority", 9115005270407200767L)
+                    .member("writable", i == 0)
+                    .uint64("bytesSent", i == 0 ? 4000L * poll : 0)
+                    .uint64("bytesReceived", i == 0 ? 250000L * poll : 0)
+                    .real("totalRoundTripTime", 0.04 * poll)
+                    .real("currentRoundTripTime", 0.04)
+                    .real("availableIncomingBitrate", 2500000.0)
+                    .uint64("requestsSent", poll)
+                    .uint64("responsesReceived", poll);
+        }
+        return report.stats("transport", "transport")
+                .uint64("bytesSent", 4000L * poll)
+                .uint64("bytesReceived", 250000L * poll)
+                .member("dtlsState", "connected")
+                .member("selectedCandidatePairId", "pair-0")
+                .build();
+    }
+
+    // What a consumer reads from the raw report, as in the sample app.
+    private static long readRaw(RTCStatsReport report) {
+        long sum = 0;
+        for (RTCStats stats : report.getStatsMap().values()) {
+            Map<String, Object> members = stats.getMembers();
+            if (stats.getType().equals("inbound-rtp")) {
+                sum += ((BigInteger) members.get("bytesReceived")).longValue();
+                sum += (Long) members.get("packetsReceived");
+                sum += (Integer) members.get("packetsLost");
+                sum += (long) ((Double) members.get("jitter") * 1000);
+                if ("video".equals(members.get("mediaType"))) {
+                    sum += (Long) members.get("framesDecoded");
+                    sum += (long) (double) (Double) members.get("framesPerSecond");
+                }
+            } else if (stats.getType().equals("track")) {
+                if ("video".equals(members.get("kind"))) {
+                    sum += (Long) members.get("frameWidth");
+                    sum += (Long) members.get("frameHeight");
+                    sum += (Long) members.get("freezeCount");
+                }
+            } else if (stats.getType().equals("candidate-pair")) {
+                if (Boolean.TRUE.equals(members.get("nominated"))
+                        && "succeeded".equals(members.get("state"))) {
+                    sum += (long) ((Double) members.get("currentRoundTripTime") * 1000);
+                }
+            }
+        }
+        return sum;
+    }
+
+    // The same values read from a StatsSnapshot.
+    private static long readSnapshot(StatsSnapshot snapshot) {
+        long sum = 0;
+        for (int i = 0; i < snapshot.inboundRtpCount(); i++) {
+            StatsSnapshot.InboundRtp inbound = snapshot.inboundRtp(i);
+            sum += inbound.bytesReceived;
+            sum += inbound.packetsReceived;
+            sum += inbound.packetsLost;
+            sum += (long) (inbound.jitter * 1000);
+            if ("video".equals(inbound.kind)) {
+                sum += inbound.framesDecoded;
+                sum += (long) inbound.framesPerSecond;
+            }
+        }
+        for (int i = 0; i < snapshot.trackCount(); i++) {
+            StatsSnapshot.Track track = snapshot.track(i);
+            if ("video".equals(track.kind)) {
+                sum += track.frameWidth;
+                sum += track.frameHeight;
+                sum += track.freezeCount;
+            }
+        }
+        if (snapshot.candidatePair() != null) {
+            sum += (long) (snapshot.candidatePair().currentRoundTripTime * 1000);
+        }
+        return sum;
+    }
+
+    @Test
+    public void testProjection() {
+        StatsSnapshot snapshot = new StatsSnapshot();
+        snapshot.update(report(2));
+        assertEquals(2000000, snapshot.timestampUs());
+        assertEquals(2, snapshot.inboundRtpCount());
+        assertEquals(2, snapshot.trackCount());
+        assertEquals(0, snapshot.outboundRtpCount());
+        for (int i = 0; i < snapshot.inboundRtpCount(); i++) {
+            StatsSnapshot.InboundRtp inbound = snapshot.inboundRtp(i);
+            assertEquals(250000, inbound.bytesReceived);
+            assertEquals(2, inbound.packetsLost);
+            assertEquals(0.012, inbound.jitter, 1e-9);
+            if (inbound.kind.equals("video")) {
+                assertEquals(1280, inbound.frameWidth);
+                assertEquals(30.0, inbound.framesPerSecond, 1e-9);
+            } else {
+                assertEquals(20, inbound.concealedSamples);
+                assertEquals(0, inbound.frameWidth);
+            }
+        }
+        StatsSnapshot.CandidatePair pair = snapshot.candidatePair();
+        assertEquals(500000, pair.bytesReceived);
+        assertEquals(0.04, pair.currentRoundTripTime, 1e-9);
+        assertEquals(readRaw(report(2)), readSnapshot(snapshot));
+    }
+
+    @Test
+    public void testAbsentMembers() {
+        StatsSnapshot snapshot = new StatsSnapshot();
+        snapshot.update(new StatsReportBuilder(1000000)
+                .inboundRtp("in", "video")
+                .real("jitter", 0)
+                .candidatePair("pair", true)
+                .build());
+        StatsSnapshot.InboundRtp inbound = snapshot.inboundRtp(0);
+        assertEquals(0.0, inbound.jitter, 1e-9);
+        assertEquals(0, inbound.packetsReceived);
+        assertEquals(-1.0, inbound.framesPerSecond, 1e-9);
+        assertEquals(-1.0, snapshot.candidatePair().currentRoundTripTime, 1e-9);
+        assertEquals(-1.0, snapshot.candidatePair().availableOutgoingBitrate, 1e-9);
+    }
+
+    @Test
+    public void testEntriesAreReused() {
+        StatsSnapshot snapshot = new StatsSnapshot(EnumSet.of(StatsSnapshot.Type.INBOUND_RTP));
+        snapshot.update(report(1));
+        StatsSnapshot.InboundRtp first = snapshot.inboundRtp(0);
+        snapshot.update(report(2));
+        assertSame(first, snapshot.inboundRtp(0));
+        assertEquals(0, snapshot.trackCount());
+        assertNull(snapshot.candidatePair());
+
+        snapshot.update(new RTCStatsReport(3, new HashMap<String, RTCStats>()));
+        assertEquals(0, snapshot.inboundRtpCount());
+    }
+
+    @Test
+    public void benchmarkPolling() {
+        RTCStatsReport[][] reports = new RTCStatsReport[2][SUBSCRIPTIONS];
+        for (int i = 0; i < SUBSCRIPTIONS; i++) {
+            reports[0][i] = report(1);
+            reports[1][i] = report(2);
+        }
+        StatsSnapshot[] snapshots = new StatsSnapshot[SUBSCRIPTIONS];
+        for (int i = 0; i < SUBSCRIPTIONS; i++) {
+            snapshots[i] = new StatsSnapshot();
+        }
+
+        long rawNs = Long.MAX_VALUE, snapshotNs = Long.MAX_VALUE;
+        long rawBytes = 0, snapshotBytes = 0;
+        long rawSum = 0, snapshotSum = 0;
+        Debug.startAllocCounting();
+        // The best round is kept, the first ones only warm the code up.
+        for (int round = 0; round < 20; round++) {
+            Debug.resetThreadAllocSize();
+            long start = System.nanoTime();
+            for (int poll = 0; poll < POLLS; poll++) {
+                for (RTCStatsReport report : reports[poll % 2]) {
+                    for (int consumer = 0; consumer < CONSUMERS; consumer++) {
+                        rawSum += readRaw(report);
+                    }
+                }
+            }
+            rawNs = Math.min(rawNs, System.nanoTime() - start);
+            rawBytes = Debug.getThreadAllocSize();
+
+            Debug.resetThreadAllocSize();
+            start = System.nanoTime();
+            for (int poll = 0; poll < POLLS; poll++) {
+                for (int i = 0; i < SUBSCRIPTIONS; i++) {
+                    snapshots[i].update(reports[poll % 2][i]);
+                    for (int consumer = 0; consumer < CONSUMERS; consumer++) {
+                        snapshotSum += readSnapshot(snapshots[i]);
+                    }
+                }
+            }
+            snapshotNs = Math.min(snapshotNs, System.nanoTime() - start);
+            snapshotBytes = Debug.getThreadAllocSize();
+        }
+        Debug.stopAllocCounting();
+
+        assertEquals(rawSum, snapshotSum);
+        Log.i(TAG, "Poll of " + SUBSCRIPTIONS + " subscriptions read by " + CONSUMERS
+                + " consumers: raw " + rawNs / POLLS / 1000.0 + " us " + rawBytes / POLLS
+                + " B, snapshot " + snapshotNs / POLLS / 1000.0 + " us "
+                + snapshotBytes / POLLS + " B");
+    }
+}
@@ -0,0 +1,577 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base.sdp;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import owt.base.MediaCodecs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+public class SdpBenchmark {
+    private static final String TAG = "SdpBenchmark";
+    private static final int WARM_UP = 200;
+    private static final int ITERATIONS = 2000;
+
+    // Offer created by Chrome 90 on desktop, 24 video and 13 audio payload types.
+    static final String CHROME_OFFER = "v=0\r\n"
+            + "o=- 4611731400430051336 2 IN IP4 127.0.0.1\r\n"
+            + "s=-\r\n"
+            + "t=0 0\r\n"
+            + "a=group:BUNDLE 0 1\r\n"
+            + "a=extmap-allow-mixed\r\n"
+            + "a=msid-semantic: WMS 2bT9WnEqYwSkVh0YuKe8vLz9o0a9n6eqzHc5\r\n"
+            + "m=audio 9 UDP/TLS/RTP/SAVPF 111 63 103 104 9 0 8 106 105 13 110 112 113 126\r\n"
+            + "c=IN IP4 0.0.0.0\r\n"
+            + "a=rtcp:9 IN IP4 0.0.0.0\r\n"
+            + "a=ice-ufrag:p2fV\r\n"
+            + "a=ice-pwd:Qw6DYd1bYwGdnTh8pYQPsoIB\r\n"
+            + "a=ice-options:trickle\r\n"
+            + "a=fingerprint:sha-256 6B:8B:5D:EA:59:04:20:23:29:C8:87:1C:CC:87:32:BE:DD:8C:66:A5:"
+            + "8E:50:55:EA:20:D3:C3:9C:5F:1F:6A:5D\r\n"
+            + "a=setup:actpass\r\n"
+            + "a=mid:0\r\n"
+            + "a=extmap:1 urn:ietf:params:rtp-hdrext:ssrc-audio-level\r\n"
+            + "a=extmap:2 http://www.webrtc.org/experiments/rtp-hdrext/abs-send-time\r\n"
+            + "a=extmap:3 http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01"
+            + "\r\n"
+            + "a=extmap:4 urn:ietf:params:rtp-hdrext:sdes:mid\r\n"
+            + "a=extmap:5 urn:ietf:params:rtp-hdrext:sdes:rtp-stream-id\r\n"
+            + "a=extmap:6 urn:ietf:params:rtp-hdrext:sdes:repaired-rtp-stream-id\r\n"
+            + "a=sendrecv\r\n"
+            + "a=msid:2bT9WnEqYwSkVh0YuKe8vLz9o0a9n6eqzHc5 8f0b2a4c-5e0e-4b5d-8b4e-bf6a3fbe8a37\r\n"
+            + "a=rtcp-mux\r\n"
+            + "a=rtpmap:111 opus/48000/2\r\n"
+            + "a=rtcp-fb:111 transport-cc\r\n"
+            + "a=fmtp:111 minptime=10;useinbandfec=1\r\n"
+            + "a=rtpmap:63 red/48000/2\r\n"
+            + "a=fmtp:63 111/111\r\n"
+            + "a=rtpmap:103 ISAC/16000\r\n"
+            + "a=rtpmap:104 ISAC/32000\r\n"
+            + "a=rtpmap:9 G722/8000\r\n"
+            + "a=rtpmap:0 PCMU/8000\r\n"
+            + "a=rtpmap:8 PCMA/8000\r\n"
+            + "a=rtpmap:106 CN/32000\r\n"
+            + "a=rtpmap:105 CN/16000\r\n"
+            + "a=rtpmap:13 CN/8000\r\n"
+            + "a=rtpmap:110 telephone-event/48000\r\n"
+            + "a=rtpmap:112 telephone-event/32000\r\n"
+            + "a=rtpmap:113 telephone-event/16000\r\n"
+            + "a=rtpmap:126 telephone-event/8000\r\n"
+            + "a=ssrc:1879423418 cname:Jm1P5S8C0+3fS0Ad\r\n"
+            + "a=ssrc:1879423418 msid:2bT9WnEqYwSkVh0YuKe8vLz9o0a9n6eqzHc5 "
+            + "8f0b2a4c-5e0e-4b5d-8b4e-bf6a3fbe8a37\r\n"
+            + "m=video 9 UDP/TLS/RTP/SAVPF 96 97 98 99 100 101 102 121 127 120 125 107 108 109 "
+            + "35 36 124 119 123 118 114 115 116\r\n"
+            + "c=IN IP4 0.0.0.0\r\n"
+            + "a=rtcp:9 IN IP4 0.0.0.0\r\n"
+            + "a=ice-ufrag:p2fV\r\n"
+            + "a=ice-pwd:Qw6DYd1bYwGdnTh8pYQPsoIB\r\n"
+            + "a=ice-options:trickle\r\n"
+            + "a=fingerprint:sha-256 6B:8B:5D:EA:59:04:20:23:29:C8:87:1C:CC:87:32:BE:DD:8C:66:A5:"
+            + "8E:50:55:EA:20:D3:C3:9C:5F:1F:6A:5D\r\n"
+            + "a=setup:actpass\r\n"
+            + "a=mid:1\r\n"
+            + "a=extmap:14 urn:ietf:params:rtp-hdrext:toffset\r\n"
+            + "a=extmap:2 http://www.webrtc.org/experiments/rtp-hdrext/abs-send-time\r\n"
+            + "a=extmap:13 urn:3gpp:video-orientation\r\n"
+            + "a=extmap:3 http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01"
+            + "\r\n"
+            + "a=extmap:12 http://www.webrtc.org/experiments/rtp-hdrext/playout-delay\r\n"
+            + "a=extmap:11 http://www.webrtc.org/experiments/rtp-hdrext/video-content-type\r\n"
+            + "a=extmap:7 http://www.webrtc.org/experiments/rtp-hdrext/video-timing\r\n"
+            + "a=extmap:8 http://www.webrtc.org/experiments/rtp-hdrext/color-space\r\n"
+            + "a=extmap:4 urn:ietf:params:rtp-hdrext:sdes:mid\r\n"
+            + "a=extmap:5 urn:ietf:params:rtp-hdrext:sdes:rtp-stream-id\r\n"
+            + "a=extmap:6 urn:ietf:params:rtp-hdrext:sdes:repaired-rtp-stream-id\r\n"
+            + "a=sendrecv\r\n"
+            + "a=msid:2bT9WnEqYwSkVh0YuKe8vLz9o0a9n6eqzHc5 c1d6b0f0-7a5d-4e3e-9a37-3f4b7b0c9d21\r\n"
+            + "a=rtcp-mux\r\n"
+            + "a=rtcp-rsize\r\n"
+            + "a=rtpmap:96 VP8/90000\r\n"
+            + "a=rtcp-fb:96 goog-remb\r\n"
+            + "a=rtcp-fb:96 transport-cc\r\n"
+            + "a=rtcp-fb:96 ccm fir\r\n"
+            + "a=rtcp-fb:96 nack\r\n"
+            + "a=rtcp-fb:96 nack pli\r\n"
+            + "a=rtpmap:97 rtx/90000\r\n"
+            + "a=fmtp:97 apt=96\r\n"
+            + "a=rtpmap:98 VP9/90000\r\n"
+            + "a=rtcp-fb:98 goog-remb\r\n"
+            + "a=rtcp-fb:98 transport-cc\r\n"
+            + "a=rtcp-fb:98 ccm fir\r\n"
+            + "a=rtcp-fb:98 nack\r\n"
+            + "a=rtcp-fb:98 nack pli\r\n"
+            + "a=fmtp:98 profile-id=0\r\n"
+            + "a=rtpmap:99 rtx/90000\r\n"
+            + "a=fmtp:99 apt=98\r\n"
+            + "a=rtpmap:100 VP9/90000\r\n"
+            + "a=rtcp-fb:100 goog-remb\r\n"
+            + "a=rtcp-fb:100 transport-cc\r\n"
+            + "a=rtcp-fb:100 ccm fir\r\n"
+            + "a=rtcp-fb:100 nack\r\n"
+            + "a=rtcp-fb:100 nack pli\r\n"
+            + "a=fmtp:100 profile-id=2\r\n"
+            + "a=rtpmap:101 rtx/90000\r\n"
+            + "a=fmtp:101 apt=100\r\n"
+            + "a=rtpmap:102 H264/90000\r\n"
+            + "a=rtcp-fb:102 goog-remb\r\n"
+            + "a=rtcp-fb:102 transport-cc\r\n"
+            + "a=rtcp-fb:102 ccm fir\r\n"
+            + "a=rtcp-fb:102 nack\r\n"
+            + "a=rtcp-fb:102 nack pli\r\n"
+            + "a=fmtp:102 level-asymmetry-allowed=1;packetization-mode=1;"
+            + "profile-level-id=42001f\r\n"
+            + "a=rtpmap:121 rtx/90000\r\n"
+            + "a=fmtp:121 apt=102\r\n"
+            + "a=rtpmap:127 H264/90000\r\n"
+            + "a=rtcp-fb:127 goog-remb\r\n"
+            + "a=rtcp-fb:127 transport-cc\r\n"
+            + "a=rtcp-fb:127 ccm fir\r\n"
+            + "a=rtcp-fb:127 nack\r\n"
+            + "a=rtcp-fb:127 nack pli\r\n"
+            + "a=fmtp:127 level-asymmetry-allowed=1;packetization-mode=0;"
+            + "profile-level-id=42001f\r\n"
+            + "a=rtpmap:120 rtx/90000\r\n"
+            + "a=fmtp:120 apt=127\r\n"
+            + "a=rtpmap:125 H264/90000\r\n"
+            + "a=rtcp-fb:125 goog-remb\r\n"
+            + "a=rtcp-fb:125 transport-cc\r\n"
+            + "a=rtcp-fb:125 ccm fir\r\n"
+            + "a=rtcp-fb:125 nack\r\n"
+            + "a=rtcp-fb:125 nack pli\r\n"
+            + "a=fmtp:125 level-asymmetry-allowed=1;packetization-mode=1;"
+            + "profile-level-id=42e01f\r\n"
+            + "a=rtpmap:107 rtx/90000\r\n"
+            + "a=fmtp:107 apt=125\r\n"
+            + "a=rtpmap:108 H264/90000\r\n"
+            + "a=rtcp-fb:108 goog-remb\r\n"
+            + "a=rtcp-fb:108 transport-cc\r\n"
+            + "a=rtcp-fb:108 ccm fir\r\n"
+            + "a=rtcp-fb:108 nack\r\n"
+            + "a=rtcp-fb:108 nack pli\r\n"
+            + "a=fmtp:108 level-asymmetry-allowed=1;packetization-mode=0;"
+            + "profile-level-id=42e01f\r\n"
+            + "a=rtpmap:109 rtx/90000\r\n"
+            + "a=fmtp:109 apt=108\r\n"
+            + "a=rtpmap:35 AV1X/90000\r\n"
+            + "a=rtcp-fb:35 goog-remb\r\n"
+            + "a=rtcp-fb:35 transport-cc\r\n"
+            + "a=rtcp-fb:35 ccm fir\r\n"
+            + "a=rtcp-fb:35 nack\r\n"
+            + "a=rtcp-fb:35 nack pli\r\n"
+            + "a=rtpmap:36 rtx/90000\r\n"
+            + "a=fmtp:36 apt=35\r\n"
+            + "a=rtpmap:124 H264/90000\r\n"
+            + "a=rtcp-fb:124 goog-remb\r\n"
+            + "a=rtcp-fb:124 transport-cc\r\n"
+            + "a=rtcp-fb:124 ccm fir\r\n"
+            + "a=rtcp-fb:124 nack\r\n"
+            + "a=rtcp-fb:124 nack pli\r\n"
+            + "a=fmtp:124 level-asymmetry-allowed=1;packetization-mode=1;"
+            + "profile-level-id=4d001f\r\n"
+            + "a=rtpmap:119 rtx/90000\r\n"
+            + "a=fmtp:119 apt=124\r\n"
+            + "a=rtpmap:123 H264/90000\r\n"
+            + "a=rtcp-fb:123 goog-remb\r\n"
+            + "a=rtcp-fb:123 transport-cc\r\n"
+            + "a=rtcp-fb:123 ccm fir\r\n"
+            + "a=rtcp-fb:123 nack\r\n"
+            + "a=rtcp-fb:123 nack pli\r\n"
+            + "a=fmtp:123 level-asymmetry-allowed=1;packetization-mode=1;"
+            + "profile-level-id=64001f\r\n"
+            + "a=rtpmap:118 rtx/90000\r\n"
+            + "a=fmtp:118 apt=123\r\n"
+            + "a=rtpmap:114 red/90000\r\n"
+            + "a=rtpmap:115 rtx/90000\r\n"
+            + "a=fmtp:115 apt=114\r\n"
+            + "a=rtpmap:116 ulpfec/90000\r\n"
+            + "a=ssrc-group:FID 3062387429 2291436785\r\n"
+            + "a=ssrc:3062387429 cname:Jm1P5S8C0+3fS0Ad\r\n"
+            + "a=ssrc:2291436785 cname:Jm1P5S8C0+3fS0Ad\r\n";
+
+    // Offer created by libwebrtc on Android with the hardware encoder factory, 21 video payload
+    // types, rtx lines are not adjacent to their rtpmap lines.
+    static final String LIBWEBRTC_OFFER = "v=0\r\n"
+            + "o=- 8022937458139385618 2 IN IP4 127.0.0.1\r\n"
+            + "s=-\r\n"
+            + "t=0 0\r\n"
+            + "a=group:BUNDLE 0 1\r\n"
+            + "a=msid-semantic: WMS 6c3c9b2e-0d2b-4a48-9f5d-0c0f8a1f4c1e\r\n"
+            + "m=audio 9 UDP/TLS/RTP/SAVPF 111 103 104 9 102 0 8 106 105 13 110 112 113 126\r\n"
+            + "c=IN IP4 0.0.0.0\r\n"
+            + "a=rtcp:9 IN IP4 0.0.0.0\r\n"
+            + "a=ice-ufrag:4Ckc\r\n"
+            + "a=ice-pwd:bJdh0aQk4pC8s6U0J2kq4QmT\r\n"
+            + "a=ice-options:trickle renomination\r\n"
+            + "a=fingerprint:sha-256 0C:73:1B:1E:41:0E:66:39:A7:C5:6D:4E:21:7B:D1:C0:7F:65:AF:12:"
+            + "3A:6E:9A:BB:7C:39:1E:5A:0E:3A:92:70\r\n"
+            + "a=setup:actpass\r\n"
+            + "a=mid:0\r\n"
+            + "a=extmap:1 urn:ietf:params:rtp-hdrext:ssrc-audio-level\r\n"
+            + "a=extmap:2 http://www.webrtc.org/experiments/rtp-hdrext/abs-send-time\r\n"
+            + "a=extmap:3 http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01"
+            + "\r\n"
+            + "a=extmap:4 urn:ietf:params:rtp-hdrext:sdes:mid\r\n"
+            + "a=sendonly\r\n"
+            + "a=msid:6c3c9b2e-0d2b-4a48-9f5d-0c0f8a1f4c1e 6c3c9b2e-0d2b-4a48-9f5d-0c0f8a1f4c1ea0\r\n"
+            + "a=rtcp-mux\r\n"
+            + "a=rtpmap:111 opus/48000/2\r\n"
+            + "a=rtcp-fb:111 transport-cc\r\n"
+            + "a=fmtp:111 minptime=10;useinbandfec=1\r\n"
+            + "a=rtpmap:103 ISAC/16000\r\n"
+            + "a=rtpmap:104 ISAC/32000\r\n"
+            + "a=rtpmap:9 G722/8000\r\n"
+            + "a=rtpmap:102 ILBC/8000\r\n"
+            + "a=rtpmap:0 PCMU/8000\r\n"
+            + "a=rtpmap:8 PCMA/8000\r\n"
+            + "a=rtpmap:106 CN/32000\r\n"
+            + "a=rtpmap:105 CN/16000\r\n"
+            + "a=rtpmap:13 CN/8000\r\n"
+            + "a=rtpmap:110 telephone-event/48000\r\n"
+            + "a=rtpmap:112 telephone-event/32000\r\n"
+            + "a=rtpmap:113 telephone-event/16000\r\n"
+            + "a=rtpmap:126 telephone-event/8000\r\n"
+            + "a=ssrc:907245817 cname:Qm3wZs0d1S4oLrDg\r\n"
+            + "m=video 9 UDP/TLS/RTP/SAVPF 96 97 98 99 100 101 127 120 124 121 125 107 108 109 "
+            + "35 36 37 38 123 122 114\r\n"
+            + "c=IN IP4 0.0.0.0\r\n"
+            + "a=rtcp:9 IN IP4 0.0.0.0\r\n"
+            + "a=ice-ufrag:4Ckc\r\n"
+            + "a=ice-pwd:bJdh0aQk4pC8s6U0J2kq4QmT\r\n"
+            + "a=ice-options:trickle renomination\r\n"
+            + "a=fingerprint:sha-256 0C:73:1B:1E:41:0E:66:39:A7:C5:6D:4E:21:7B:D1:C0:7F:65:AF:12:"
+            + "3A:6E:9A:BB:7C:39:1E:5A:0E:3A:92:70\r\n"
+            + "a=setup:actpass\r\n"
+            + "a=mid:1\r\n"
+            + "a=extmap:14 urn:ietf:params:rtp-hdrext:toffset\r\n"
+            + "a=extmap:2 http://www.webrtc.org/experiments/rtp-hdrext/abs-send-time\r\n"
+            + "a=extmap:13 urn:3gpp:video-orientation\r\n"
+            + "a=extmap:3 http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01"
+            + "\r\n"
+            + "a=extmap:5 http://www.webrtc.org/experiments/rtp-hdrext/playout-delay\r\n"
+            + "a=extmap:6 http://www.webrtc.org/experiments/rtp-hdrext/video-content-type\r\n"
+            + "a=extmap:7 http://www.webrtc.org/experiments/rtp-hdrext/video-timing\r\n"
+            + "a=extmap:8 http://www.webrtc.org/experiments/rtp-hdrext/color-space\r\n"
+            + "a=extmap:4 urn:ietf:params:rtp-hdrext:sdes:mid\r\n"
+            + "a=sendonly\r\n"
+            + "a=msid:6c3c9b2e-0d2b-4a48-9f5d-0c0f8a1f4c1e 6c3c9b2e-0d2b-4a48-9f5d-0c0f8a1f4c1ev0\r\n"
+            + "a=rtcp-mux\r\n"
+            + "a=rtcp-rsize\r\n"
+            + "a=rtcp-fb:* nack\r\n"
+            + "a=rtpmap:96 VP8/90000\r\n"
+            + "a=rtpmap:98 VP9/90000\r\n"
+            + "a=rtpmap:100 VP9/90000\r\n"
+            + "a=rtpmap:127 H264/90000\r\n"
+            + "a=rtpmap:124 H264/90000\r\n"
+            + "a=rtpmap:125 H264/90000\r\n"
+            + "a=rtpmap:108 H264/90000\r\n"
+            + "a=rtpmap:35 AV1/90000\r\n"
+            + "a=rtpmap:37 H265/90000\r\n"
+            + "a=rtpmap:123 red/90000\r\n"
+            + "a=rtpmap:114 ulpfec/90000\r\n"
+            + "a=rtpmap:97 rtx/90000\r\n"
+            + "a=rtpmap:99 rtx/90000\r\n"
+            + "a=rtpmap:101 rtx/90000\r\n"
+            + "a=rtpmap:120 rtx/90000\r\n"
+            + "a=rtpmap:121 rtx/90000\r\n"
+            + "a=rtpmap:107 rtx/90000\r\n"
+            + "a=rtpmap:109 rtx/90000\r\n"
+            + "a=rtpmap:36 rtx/90000\r\n"
+            + "a=rtpmap:38 rtx/90000\r\n"
+            + "a=rtpmap:122 rtx/90000\r\n"
+            + "a=rtcp-fb:96 goog-remb\r\n"
+            + "a=rtcp-fb:96 transport-cc\r\n"
+            + "a=rtcp-fb:96 ccm fir\r\n"
+            + "a=rtcp-fb:96 nack pli\r\n"
+            + "a=rtcp-fb:98 goog-remb\r\n"
+            + "a=rtcp-fb:98 transport-cc\r\n"
+            + "a=rtcp-fb:98 ccm fir\r\n"
+            + "a=rtcp-fb:98 nack pli\r\n"
+            + "a=rtcp-fb:100 goog-remb\r\n"
+            + "a=rtcp-fb:100 transport-cc\r\n"
+            + "a=rtcp-fb:100 ccm fir\r\n"
+            + "a=rtcp-fb:100 nack pli\r\n"
+            + "a=rtcp-fb:127 goog-remb\r\n"
+            + "a=rtcp-fb:127 transport-cc\r\n"
+            + "a=rtcp-fb:127 ccm fir\r\n"
+            + "a=rtcp-fb:127 nack pli\r\n"
+            + "a=rtcp-fb:124 goog-remb\r\n"
+            + "a=rtcp-fb:124 transport-cc\r\n"
+            + "a=rtcp-fb:124 ccm fir\r\n"
+            + "a=rtcp-fb:124 nack pli\r\n"
+            + "a=rtcp-fb:125 goog-remb\r\n"
+            + "a=rtcp-fb:125 transport-cc\r\n"
+            + "a=rtcp-fb:125 ccm fir\r\n"
+            + "a=rtcp-fb:125 nack pli\r\n"
+            + "a=rtcp-fb:108 goog-remb\r\n"
+            + "a=rtcp-fb:108 transport-cc\r\n"
+            + "a=rtcp-fb:108 ccm fir\r\n"
+            + "a=rtcp-fb:108 nack pli\r\n"
+            + "a=rtcp-fb:35 goog-remb\r\n"
+            + "a=rtcp-fb:35 transport-cc\r\n"
+            + "a=rtcp-fb:35 ccm fir\r\n"
+            + "a=rtcp-fb:35 nack pli\r\n"
+            + "a=rtcp-fb:37 goog-remb\r\n"
+            + "a=rtcp-fb:37 transport-cc\r\n"
+            + "a=rtcp-fb:37 ccm fir\r\n"
+            + "a=rtcp-fb:37 nack pli\r\n"
+            + "a=fmtp:98 profile-id=0\r\n"
+            + "a=fmtp:100 profile-id=2\r\n"
+            + "a=fmtp:127 level-asymmetry-allowed=1;packetization-mode=1;"
+            + "profile-level-id=640c1f\r\n"
+            + "a=fmtp:124 level-asymmetry-allowed=1;packetization-mode=0;"
+            + "profile-level-id=640c1f\r\n"
+            + "a=fmtp:125 level-asymmetry-allowed=1;packetization-mode=1;"
+            + "profile-level-id=42e01f\r\n"
+            + "a=fmtp:108 level-asymmetry-allowed=1;packetization-mode=0;"
+            + "profile-level-id=42e01f\r\n"
+            + "a=fmtp:97 apt=96\r\n"
+            + "a=fmtp:99 apt=98\r\n"
+            + "a=fmtp:101 apt=100\r\n"
+            + "a=fmtp:120 apt=127\r\n"
+            + "a=fmtp:121 apt=124\r\n"
+            + "a=fmtp:107 apt=125\r\n"
+            + "a=fmtp:109 apt=108\r\n"
+            + "a=fmtp:36 apt=35\r\n"
+            + "a=fmtp:38 apt=37\r\n"
+            + "a=fmtp:122 apt=123\r\n"
+            + "a=ssrc-group:FID 1429841752 3530398711\r\n"
+            + "a=ssrc:1429841752 cname:Qm3wZs0d1S4oLrDg\r\n"
+            + "a=ssrc:3530398711 cname:Qm3wZs0d1S4oLrDg\r\n";
+
+    private static final List<String> AUDIO_PREFERENCE =
+            Arrays.asList("opus", "PCMU", "CN", "telephone-event");
+    private static final List<String> VIDEO_PREFERENCE =
+            Arrays.asList("H264", "VP8", "red", "ulpfec");
+
+    @Test
+    public void testChromeOfferIsFiltered() {
+        String sdp = preferCodecs(CHROME_OFFER, AUDIO_PREFERENCE,
+                VIDEO_PREFERENCE);
+        assertTrue(sdp.contains(
+                "m=audio 9 UDP/TLS/RTP/SAVPF 111 0 106 105 13 110 112 113 126\r\n"));
+        assertTrue(sdp.contains("m=video 9 UDP/TLS/RTP/SAVPF 102 127 125 108 124 123 96 114 116 "
+                + "97 121 120 107 109 119 118 115\r\n"));
+        assertFalse(sdp.contains("a=rtpmap:98 "));
+        assertFalse(sdp.contains("a=fmtp:99 "));
+        assertFalse(sdp.contains("a=rtcp-fb:35 "));
+        assertFalse(sdp.contains("a=rtpmap:63 "));
+        assertTrue(sdp.contains("a=fmtp:102 level-asymmetry-allowed=1;packetization-mode=1;"
+                + "profile-level-id=42001f\r\n"));
+        assertTrue(sdp.contains("a=extmap:13 urn:3gpp:video-orientation\r\n"));
+        assertTrue(sdp.endsWith("a=ssrc:2291436785 cname:Jm1P5S8C0+3fS0Ad\r\n"));
+    }
+
+    @Test
+    public void testLibwebrtcOfferIsFiltered() {
+        String sdp = preferCodecs(LIBWEBRTC_OFFER, null,
+                Arrays.asList("VP9", "red", "ulpfec"));
+        assertTrue(sdp.contains(
+                "m=audio 9 UDP/TLS/RTP/SAVPF 111 103 104 9 102 0 8 106 105 13 110 112 113 126\r\n"));
+        assertTrue(sdp.contains("m=video 9 UDP/TLS/RTP/SAVPF 98 100 123 114 99 101 122\r\n"));
+        // rtx is matched through apt even though its fmtp line comes much later.
+        assertTrue(sdp.contains("a=rtpmap:122 rtx/90000\r\na=rtcp-fb:98 goog-remb\r\n"));
+        assertTrue(sdp.contains("a=rtcp-fb:* nack\r\n"));
+        assertFalse(sdp.contains("a=fmtp:38 "));
+        assertFalse(sdp.contains("H264"));
+        // Audio section is copied as is.
+        assertTrue(sdp.contains("a=rtpmap:102 ILBC/8000\r\n"));
+    }
+
+    @Test
+    public void testUnsupportedPreferenceKeepsSection() {
+        String sdp = preferCodecs(CHROME_OFFER, null,
+                Arrays.asList("H265"));
+        assertEquals(CHROME_OFFER, sdp);
+    }
+
+    @Test
+    public void testRoundTrip() {
+        assertEquals(CHROME_OFFER, Sdp.parse(CHROME_OFFER).toString());
+        assertEquals(LIBWEBRTC_OFFER, Sdp.parse(LIBWEBRTC_OFFER).toString());
+        assertEquals(CHROME_OFFER, Sdp.parse(CHROME_OFFER.replace("\r\n", "\n")).toString());
+    }
+
+    @Test
+    public void testParse() {
+        Sdp sdp = Sdp.parse(CHROME_OFFER);
+        assertEquals(2, sdp.mediaSections().size());
+        MediaSection video = sdp.mediaSections().get(1);
+        assertEquals(MediaSection.VIDEO, video.media);
+        assertEquals("1", video.mid());
+        SdpLine.RtpMap rtpMap = video.lines(SdpLine.RtpMap.class).get(0);
+        assertEquals(96, rtpMap.payloadType);
+        assertEquals("VP8", rtpMap.encodingName);
+        assertEquals(90000, rtpMap.clockRate);
+        for (SdpLine.Fmtp fmtp : video.lines(SdpLine.Fmtp.class)) {
+            if (fmtp.payloadType == 97) {
+                assertEquals(96, fmtp.apt());
+            }
+        }
+        assertEquals("a=rtpmap:111 opus/48000/2",
+                new SdpLine.RtpMap(111, "opus", 48000, "2").text);
+    }
+
+    @Test
+    public void testRemoveAttribute() {
+        String offer = CHROME_OFFER.replace("a=msid-semantic:",
+                "a=ice-options:google-ice\r\na=msid-semantic:");
+        String sdp = Sdp.parse(offer).removeAttribute("ice-options:google-ice").toString();
+        assertEquals(CHROME_OFFER, sdp);
+    }
+
+    @Test
+    public void benchmarkPreferCodecs() {
+        runBenchmark("Chrome", CHROME_OFFER);
+        runBenchmark("libwebrtc", LIBWEBRTC_OFFER);
+    }
+
+    private static String preferCodecs(String offer, List<String> audioCodecs,
+            List<String> videoCodecs) {
+        Sdp sdp = Sdp.parse(offer);
+        if (audioCodecs != null) {
+            sdp.preferCodecs(MediaSection.AUDIO, audioCodecs);
+        }
+        if (videoCodecs != null) {
+            sdp.preferCodecs(MediaSection.VIDEO, videoCodecs);
+        }
+        return sdp.toString();
+    }
+
+    private void runBenchmark(String name, String offer) {
+        LinkedHashSet<String> audio = new LinkedHashSet<>(AUDIO_PREFERENCE);
+        LinkedHashSet<String> video = new LinkedHashSet<>(VIDEO_PREFERENCE);
+        int sink = 0;
+        for (int i = 0; i < WARM_UP; i++) {
+            sink += LegacyPreferCodec.preferCodec(
+                    LegacyPreferCodec.preferCodec(offer, audio, false), video, true).length();
+            sink += preferCodecs(offer, AUDIO_PREFERENCE,
+                    VIDEO_PREFERENCE).length();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += LegacyPreferCodec.preferCodec(
+                    LegacyPreferCodec.preferCodec(offer, audio, false), video, true).length();
+        }
+        long legacyNs = (System.nanoTime() - start) / ITERATIONS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += preferCodecs(offer, AUDIO_PREFERENCE,
+                    VIDEO_PREFERENCE).length();
+        }
+        long rewriterNs = (System.nanoTime() - start) / ITERATIONS;
+
+        Log.i(TAG, name + " offer (" + offer.length() + " chars): legacy " + legacyNs
+                + " ns/offer, sdp model " + rewriterNs + " ns/offer, speed up "
+                + String.format(java.util.Locale.US, "%.1fx", (double) legacyNs / rewriterNs)
+                + " [" + sink + "]");
+    }
+
+    // Codec preference as implemented before the Sdp model, kept as the benchmark baseline.
+    private static final class LegacyPreferCodec {
+        static String preferCodec(String originalSdp, LinkedHashSet<String> preferredCodecs,
+                boolean video) {
+            String[] lines = originalSdp.split("(\r\n|\n)");
+            ArrayList<String> newLines = new ArrayList<>();
+            int audioMLineIndex = -1;
+            int videoMLineIndex = -1;
+            HashMap<String, ArrayList<String>> preferredPayloadTypes = new HashMap<>();
+            HashSet<String> misMatchedPayloadTypes = new HashSet<>();
+            for (int i = 0; i < lines.length; i++) {
+                String line = lines[i];
+                if (line.startsWith("a=rtpmap:")) {
+                    String payloadType = line.split(" ")[0].split(":")[1];
+                    String codecName = line.split(" ")[1].split("/")[0];
+                    boolean typeMismatched =
+                            video ? MediaCodecs.VideoCodec.get(codecName)
+                                    == MediaCodecs.VideoCodec.INVALID
+                                    : MediaCodecs.AudioCodec.get(codecName)
+                                            == MediaCodecs.AudioCodec.INVALID;
+                    boolean codecPreferred = preferredCodecs.contains(codecName);
+                    boolean rtxPreferred = codecName.equals("rtx")
+                            && lines[i + 1].contains("apt=")
+                            && containsValue(preferredPayloadTypes,
+                            lines[i + 1].split("apt=")[1]);
+                    if (codecPreferred || rtxPreferred) {
+                        putEntry(preferredPayloadTypes, codecName, payloadType);
+                    } else if (typeMismatched && !codecName.equals("rtx")) {
+                        misMatchedPayloadTypes.add(payloadType);
+                    } else {
+                        continue;
+                    }
+                } else if (line.startsWith("a=rtcp-fb:") || line.startsWith("a=fmtp:")) {
+                    String payloadType = line.split(" ")[0].split(":")[1];
+                    if (!misMatchedPayloadTypes.contains(payloadType)
+                            && !containsValue(preferredPayloadTypes, payloadType)) {
+                        continue;
+                    }
+                } else if (line.startsWith("m=audio")) {
+                    audioMLineIndex = newLines.size();
+                } else if (line.startsWith("m=video")) {
+                    videoMLineIndex = newLines.size();
+                }
+                newLines.add(line);
+            }
+            int mLineIndex = video ? videoMLineIndex : audioMLineIndex;
+            if (mLineIndex != -1) {
+                List<String> oldParts = Arrays.asList(newLines.get(mLineIndex).split(" "));
+                ArrayList<String> newParts = new ArrayList<>(oldParts.subList(0, 3));
+                for (String codec : preferredCodecs) {
+                    if (preferredPayloadTypes.containsKey(codec)) {
+                        newParts.addAll(preferredPayloadTypes.get(codec));
+                    }
+                }
+                if (preferredPayloadTypes.containsKey("rtx")) {
+                    newParts.addAll(preferredPayloadTypes.get("rtx"));
+                }
+                StringBuilder mLine = new StringBuilder();
+                for (String part : newParts) {
+                    mLine.append(mLine.length() == 0 ? "" : " ").append(part);
+                }
+                newLines.set(mLineIndex, mLine.toString());
+            }
+            StringBuilder buffer = new StringBuilder();
+            for (String line : newLines) {
+                buffer.append(line).append("\r\n");
+            }
+            return buffer.toString();
+        }
+
+        private static boolean containsValue(HashMap<String, ArrayList<String>> payloadTypes,
+                String value) {
+            for (ArrayList<String> v : payloadTypes.values()) {
+                if (v.contains(value)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static void putEntry(HashMap<String, ArrayList<String>> payloadTypes, String key,
+                String value) {
+            if (!payloadTypes.containsKey(key)) {
+                payloadTypes.put(key, new ArrayList<>());
+            }
+            payloadTypes.get(key).add(value);
+        }
+    }
+}
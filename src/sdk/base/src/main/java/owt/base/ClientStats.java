@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import org.webrtc.RTCStatsReport;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Stats of all the PeerConnections of a client collected at once, with the totals over them.
+ * Bitrates are measured against the previous collection of the same client, they are -1 for
+ * the channels collected for the first time. RTTs are -1 when not measured yet.
+ */
+public final class ClientStats {
+
+    /**
+     * Stats of one PeerConnection.
+     */
+    public static final class ChannelStats {
+        /**
+         * Id of the channel, e.g. the publication / subscription id, or the remote peer id.
+         */
+        public final String id;
+        /**
+         * Report the values are read from.
+         */
+        public final RTCStatsReport report;
+        public final long uplinkBitrateBps;
+        public final long downlinkBitrateBps;
+        public final double rttMs;
+        /**
+         * Number of video freezes of the streams received since they started.
+         */
+        public final long freezeCount;
+
+        ChannelStats(String id, RTCStatsReport report, long uplinkBitrateBps,
+                long downlinkBitrateBps, double rttMs, long freezeCount) {
+            this.id = id;
+            this.report = report;
+            this.uplinkBitrateBps = uplinkBitrateBps;
+            this.downlinkBitrateBps = downlinkBitrateBps;
+            this.rttMs = rttMs;
+            this.freezeCount = freezeCount;
+        }
+    }
+
+    /**
+     * Time the collection completed, in milliseconds since the epoch.
+     */
+    public final long timestampMs;
+    /**
+     * Sum of the bitrates of the channels that have one.
+     */
+    public final long uplinkBitrateBps;
+    public final long downlinkBitrateBps;
+    /**
+     * Highest RTT of the channels.
+     */
+    public final double worstRttMs;
+    public final long freezeCount;
+    /**
+     * Stats of the channels that reported in time.
+     */
+    public final List<ChannelStats> channels;
+    /**
+     * Ids of the channels that failed to report, or did not before the deadline.
+     */
+    public final List<String> missing;
+
+    ClientStats(long timestampMs, List<ChannelStats> channels, List<String> missing) {
+        long uplink = -1, downlink = -1, freezes = 0;
+        double rtt = -1;
+        for (ChannelStats channel : channels) {
+            if (channel.uplinkBitrateBps >= 0) {
+                uplink = Math.max(uplink, 0) + channel.uplinkBitrateBps;
+            }
+            if (channel.downlinkBitrateBps >= 0) {
+                downlink = Math.max(downlink, 0) + channel.downlinkBitrateBps;
+            }
+            rtt = Math.max(rtt, channel.rttMs);
+            freezes += channel.freezeCount;
+        }
+        this.timestampMs = timestampMs;
+        this.uplinkBitrateBps = uplink;
+        this.downlinkBitrateBps = downlink;
+        this.worstRttMs = rtt;
+        this.freezeCount = freezes;
+        this.channels = Collections.unmodifiableList(channels);
+        this.missing = Collections.unmodifiableList(missing);
+    }
+
+    /**
+     * @return the stats of the channel |id|, null if it is not part of the collection.
+     */
+    public ChannelStats channel(String id) {
+        for (ChannelStats channel : channels) {
+            if (channel.id.equals(id)) {
+                return channel;
+            }
+        }
+        return null;
+    }
+}
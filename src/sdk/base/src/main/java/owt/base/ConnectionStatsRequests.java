@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import android.os.SystemClock;
+
+import org.webrtc.RTCStatsCollectorCallback;
+import org.webrtc.RTCStatsReport;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * getStats requests of a PeerConnection. Requests made while a report is being collected share
+ * it, and a report serves the requests made within the TTL after it was collected. Callbacks are
+ * always called on |callbackExecutor|, whether the report is fresh or cached or the
+ * PeerConnection is closed, never on the thread of the request.
+ */
+final class ConnectionStatsRequests {
+
+    interface Target {
+        /**
+         * Collect a report into |callback|. It may never be called if the PeerConnection is
+         * closed meanwhile, close() then fails the requests waiting for it.
+         */
+        void getStats(RTCStatsCollectorCallback callback);
+    }
+
+    private final Executor callbackExecutor;
+    private final Target target;
+    // Guards all the fields below.
+    private final Object lock = new Object();
+    // Callbacks waiting for the report being collected, null when none is.
+    private List<ActionCallback<RTCStatsReport>> waiting;
+    private RTCStatsReport cached;
+    // SystemClock.elapsedRealtime() when |cached| was collected.
+    private long cachedTimeMs;
+    private int ttlMs = 0;
+    private boolean closed = false;
+
+    ConnectionStatsRequests(Executor callbackExecutor, Target target) {
+        this.callbackExecutor = callbackExecutor;
+        this.target = target;
+    }
+
+    void setTtl(int milliseconds) {
+        synchronized (lock) {
+            ttlMs = milliseconds;
+        }
+    }
+
+    void request(final ActionCallback<RTCStatsReport> callback) {
+        RTCStatsReport report = null;
+        boolean collect = false;
+        synchronized (lock) {
+            if (!closed) {
+                if (cached != null && SystemClock.elapsedRealtime() - cachedTimeMs < ttlMs) {
+                    report = cached;
+                } else if (waiting != null) {
+                    // Served by the report being collected.
+                    waiting.add(callback);
+                    return;
+                } else {
+                    waiting = new ArrayList<>();
+                    waiting.add(callback);
+                    collect = true;
+                }
+            }
+        }
+        if (collect) {
+            target.getStats(this::onReport);
+        } else {
+            // Cached, or failed if closed.
+            deliver(callback, report);
+        }
+    }
+
+    /**
+     * Fail the requests waiting and the ones made from now on.
+     */
+    void close() {
+        List<ActionCallback<RTCStatsReport>> callbacks;
+        synchronized (lock) {
+            closed = true;
+            cached = null;
+            callbacks = waiting;
+            waiting = null;
+        }
+        deliver(callbacks, null);
+    }
+
+    private void onReport(RTCStatsReport report) {
+        List<ActionCallback<RTCStatsReport>> callbacks;
+        synchronized (lock) {
+            // Failed by close() meanwhile.
+            if (waiting == null) {
+                return;
+            }
+            callbacks = waiting;
+            waiting = null;
+            cached = report;
+            cachedTimeMs = SystemClock.elapsedRealtime();
+        }
+        deliver(callbacks, report);
+    }
+
+    private void deliver(ActionCallback<RTCStatsReport> callback, RTCStatsReport report) {
+        ArrayList<ActionCallback<RTCStatsReport>> callbacks = new ArrayList<>(1);
+        callbacks.add(callback);
+        deliver(callbacks, report);
+    }
+
+    private void deliver(final List<ActionCallback<RTCStatsReport>> callbacks,
+            final RTCStatsReport report) {
+        if (callbacks == null) {
+            return;
+        }
+        callbackExecutor.execute(() -> {
+            for (ActionCallback<RTCStatsReport> callback : callbacks) {
+                if (report == null) {
+                    callback.onFailure(new OwtError("Invalid stats."));
+                } else {
+                    callback.onSuccess(report);
+                }
+            }
+        });
+    }
+}
@@ -137,6 +137,21 @@ public class ContextInitialization {
         return this;
     }
 
+    /**
+     * Set the number of threads the SDK runs its work on. The threads are shared by all
+     * P2PClients and ConferenceClients in the process.
+     *
+     * @param threads maximum number of threads, it defaults to the number of cores bounded to
+     * [2, 4].
+     * @return ContextInitialization
+     */
+    public ContextInitialization setWorkerThreads(int threads) {
+        RCHECK(!initialized);
+        RCHECK(threads > 0);
+        WorkerPool.setThreadCount(threads);
+        return this;
+    }
+
     /**
      * Initialize context settings.
      */
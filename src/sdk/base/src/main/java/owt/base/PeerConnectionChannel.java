@@ -29,19 +29,14 @@ import org.webrtc.CandidatePairChangeEvent;
 import org.webrtc.SessionDescription;
 import org.webrtc.VideoTrack;
 
+import owt.base.sdp.MediaSection;
+import owt.base.sdp.Sdp;
+
 import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import owt.base.MediaCodecs.AudioCodec;
 import owt.base.MediaCodecs.VideoCodec;
@@ -53,10 +48,9 @@ public abstract class PeerConnectionChannel
     //For P2P, key is peer id, for conference, key is Publication/Subscription id.
     public final String key;
     protected final PeerConnectionChannelObserver observer;
-    protected final ExecutorService callbackExecutor = Executors.newSingleThreadExecutor();
-    private final ExecutorService pcExecutor = Executors.newSingleThreadExecutor();
-    private final List<IceCandidate> queuedRemoteCandidates;
-    private final Object remoteIceLock = new Object();
+    protected final SerialExecutor callbackExecutor = WorkerPool.newSerialExecutor();
+    private final SerialExecutor pcExecutor = WorkerPool.newSerialExecutor();
+    private final RemoteCandidateQueue remoteCandidates;
     private final Object disposeLock = new Object();
     protected PeerConnection peerConnection;
     protected PeerConnection.SignalingState signalingState;
@@ -72,6 +66,10 @@ public abstract class PeerConnectionChannel
     protected boolean onError = false;
     // <MediaStream id, RtpSender>
     private ConcurrentHashMap<String, RtpSender> videoRtpSenders, audioRtpSenders;
+    // Stats callbacks outlive |callbackExecutor|, the failures of the requests left when the
+    // channel is disposed are delivered after it is shut down.
+    private final SerialExecutor statsExecutor = WorkerPool.newSerialExecutor();
+    private final ConnectionStatsRequests statsRequests;
 
     protected PeerConnectionChannel(String key, PeerConnection.RTCConfiguration configuration,
             boolean receiveVideo, boolean receiveAudio, PeerConnectionChannelObserver observer) {
@@ -80,7 +78,28 @@ public abstract class PeerConnectionChannel
 
         videoRtpSenders = new ConcurrentHashMap<>();
         audioRtpSenders = new ConcurrentHashMap<>();
-        queuedRemoteCandidates = new LinkedList<>();
+        remoteCandidates = new RemoteCandidateQueue(pcExecutor, new RemoteCandidateQueue.Target() {
+            @Override
+            public boolean readyForCandidates() {
+                return !disposed()
+                        && peerConnection.signalingState() == PeerConnection.SignalingState.STABLE;
+            }
+
+            @Override
+            public void addIceCandidate(IceCandidate candidate) {
+                if (disposed()) {
+                    return;
+                }
+                peerConnection.addIceCandidate(candidate);
+            }
+        });
+        statsRequests = new ConnectionStatsRequests(statsExecutor,
+                callback -> pcExecutor.execute(() -> {
+                    // Otherwise dispose() has failed the requests already.
+                    if (!disposed()) {
+                        peerConnection.getStats(callback);
+                    }
+                }));
         queuedMessage = new ArrayList<>();
         sdpConstraints = new MediaConstraints();
         sdpConstraints.mandatory.add(
@@ -152,39 +171,12 @@ public abstract class PeerConnectionChannel
         if (disposed()) {
             return;
         }
-        DCHECK(pcExecutor);
         DCHECK(iceCandidate);
-        pcExecutor.execute(() -> {
-            if (disposed()) {
-                return;
-            }
-            if (peerConnection.signalingState() == PeerConnection.SignalingState.STABLE) {
-                Log.d(LOG_TAG, "add ice candidate");
-                peerConnection.addIceCandidate(iceCandidate);
-            } else {
-                synchronized (remoteIceLock) {
-                    Log.d(LOG_TAG, "queue ice candidate");
-                    queuedRemoteCandidates.add(iceCandidate);
-                }
-            }
-        });
+        remoteCandidates.addOrQueue(iceCandidate);
     }
 
     protected void drainRemoteCandidates() {
-        DCHECK(pcExecutor);
-        DCHECK(queuedRemoteCandidates);
-        synchronized (remoteIceLock) {
-            for (final IceCandidate candidate : queuedRemoteCandidates) {
-                pcExecutor.execute(() -> {
-                    if (disposed()) {
-                        return;
-                    }
-                    Log.d(LOG_TAG, "add ice candidate");
-                    peerConnection.addIceCandidate(candidate);
-                    queuedRemoteCandidates.remove(candidate);
-                });
-            }
-        }
+        remoteCandidates.drain();
     }
 
     private void setRemoteDescription(final SessionDescription remoteDescription) {
@@ -245,146 +237,58 @@ public abstract class PeerConnectionChannel
         });
     }
 
+    /**
+     * Keep the stats reports for |milliseconds|, getConnectionStats calls within that time get
+     * the same report. 0, the default, only shares the report among the calls made while it is
+     * being collected.
+     */
+    public void setStatsCacheTtl(int milliseconds) {
+        RCHECK(milliseconds >= 0);
+        statsRequests.setTtl(milliseconds);
+    }
+
+    /**
+     * |callback| is called on a thread of the channel, after the channel is disposed as well.
+     */
     public void getConnectionStats(final ActionCallback<RTCStatsReport> callback) {
-        DCHECK(pcExecutor);
-        pcExecutor.execute(() -> {
-            if (disposed()) {
-                callback.onFailure(new OwtError("Invalid stats."));
-                return;
-            }
-            peerConnection.getStats(callback::onSuccess);
-        });
+        statsRequests.request(callback);
     }
 
-    private SessionDescription preferCodecs(SessionDescription sdp, boolean video) {
-        LinkedHashSet<String> preferredCodecs = new LinkedHashSet<>();
-        if (video) {
-            for (VideoCodec codec : this.videoCodecs) {
-                preferredCodecs.add(codec.name);
-            }
-            preferredCodecs.add("red");
-            preferredCodecs.add("ulpfec");
-        } else {
+    private void preferCodecs(Sdp sdp) {
+        if (audioCodecs != null) {
+            ArrayList<String> preferredAudioCodecs = new ArrayList<>();
             for (AudioCodec codec : audioCodecs) {
-                preferredCodecs.add(codec.name);
-            }
-            preferredCodecs.add("CN");
-            preferredCodecs.add("telephone-event");
-        }
-
-        return preferCodec(sdp, preferredCodecs, video);
-    }
-
-    private SessionDescription preferCodec(SessionDescription originalSdp,
-            LinkedHashSet<String> preferredCodecs, boolean video) {
-        String[] lines = originalSdp.description.split("(\r\n|\n)");
-        ArrayList<String> newLines = new ArrayList<>();
-
-        int audioMLineIndex = -1;
-        int videoMLineIndex = -1;
-        //<codecName, payloadType>
-        HashMap<String, ArrayList<String>> preferredPayloadTypes = new HashMap<>();
-        //skipped all video payload types when dealing with audio codecs, and vice versa.
-        HashSet<String> misMatchedPayloadTypes = new HashSet<>();
-        for (int i = 0; i < lines.length; i++) {
-            String line = lines[i];
-            if (line.startsWith("a=rtpmap:")) {
-                String payloadType = line.split(" ")[0].split(":")[1];
-                String codecName = line.split(" ")[1].split("/")[0];
-                boolean typeMismatched = video ? VideoCodec.get(codecName) == VideoCodec.INVALID
-                        : AudioCodec.get(codecName) == AudioCodec.INVALID;
-                boolean codecPreferred = preferredCodecs.contains(codecName);
-                boolean rtxPreferred = codecName.equals("rtx")
-                        && containsValue(preferredPayloadTypes, lines[i + 1].split("apt=")[1]);
-                if (codecPreferred || rtxPreferred) {
-                    putEntry(preferredPayloadTypes, codecName, payloadType);
-                } else if (typeMismatched && !codecName.equals("rtx")) {
-                    misMatchedPayloadTypes.add(payloadType);
-                } else {
-                    continue;
-                }
-            } else if (line.startsWith("a=rtcp-fb:") || line.startsWith("a=fmtp:")) {
-                String payloadType = line.split(" ")[0].split(":")[1];
-                if (!misMatchedPayloadTypes.contains(payloadType)
-                        && !containsValue(preferredPayloadTypes, payloadType)) {
-                    continue;
-                }
-            } else if (line.startsWith("m=audio")) {
-                audioMLineIndex = newLines.size();
-            } else if (line.startsWith("m=video")) {
-                videoMLineIndex = newLines.size();
+                preferredAudioCodecs.add(codec.name);
             }
-            newLines.add(line);
+            preferredAudioCodecs.add("CN");
+            preferredAudioCodecs.add("telephone-event");
+            sdp.preferCodecs(MediaSection.AUDIO, preferredAudioCodecs);
         }
-
-        if (!video && audioMLineIndex != -1) {
-            newLines.set(audioMLineIndex, changeMLine(newLines.get(audioMLineIndex),
-                    preferredCodecs,
-                    preferredPayloadTypes));
-        }
-        if (video && videoMLineIndex != -1) {
-            newLines.set(videoMLineIndex, changeMLine(newLines.get(videoMLineIndex),
-                    preferredCodecs,
-                    preferredPayloadTypes));
-        }
-        String newSdp = joinString(newLines, "\r\n", true);
-
-        return new SessionDescription(originalSdp.type, newSdp);
-    }
-
-    private boolean containsValue(HashMap<String, ArrayList<String>> payloadTypes, String value) {
-        for (ArrayList<String> v : payloadTypes.values()) {
-            for (String s : v) {
-                if (s.equals(value)) {
-                    return true;
-                }
+        if (videoCodecs != null) {
+            ArrayList<String> preferredVideoCodecs = new ArrayList<>();
+            for (VideoCodec codec : videoCodecs) {
+                preferredVideoCodecs.add(codec.name);
             }
+            preferredVideoCodecs.add("red");
+            preferredVideoCodecs.add("ulpfec");
+            sdp.preferCodecs(MediaSection.VIDEO, preferredVideoCodecs);
         }
-        return false;
     }
 
-    private void putEntry(HashMap<String, ArrayList<String>> payloadTypes, String key,
-            String value) {
-        if (payloadTypes.containsKey(key)) {
-            payloadTypes.get(key).add(value);
-        } else {
-            ArrayList<String> valueList = new ArrayList<>();
-            valueList.add(value);
-            payloadTypes.put(key, valueList);
-        }
+    /**
+     * Called with the parsed local description before it is set and signaled, subclasses may
+     * modify |sdp| in place. Only called when codecs are preferred or
+     * needsLocalDescriptionChange returns true.
+     */
+    protected void onPrepareLocalDescription(Sdp sdp) {
     }
 
-    private String changeMLine(String mLine, LinkedHashSet<String> preferredCodecs,
-            HashMap<String, ArrayList<String>> preferredPayloadTypes) {
-        List<String> oldMLineParts = Arrays.asList(mLine.split(" "));
-        List<String> mLineHeader = oldMLineParts.subList(0, 3);
-
-        ArrayList<String> newMLineParts = new ArrayList<>(mLineHeader);
-        for (String preferredCodec : preferredCodecs) {
-            if (preferredPayloadTypes.containsKey(preferredCodec)) {
-                newMLineParts.addAll(preferredPayloadTypes.get(preferredCodec));
-            }
-        }
-        if (preferredPayloadTypes.containsKey("rtx")) {
-            newMLineParts.addAll(preferredPayloadTypes.get("rtx"));
-        }
-        return joinString(newMLineParts, " ", false);
-    }
-
-    private String joinString(
-            ArrayList<String> strings, String delimiter, boolean delimiterAtEnd) {
-        Iterator<String> iter = strings.iterator();
-        if (!iter.hasNext()) {
-            return "";
-        }
-        StringBuilder buffer = new StringBuilder(iter.next());
-        while (iter.hasNext()) {
-            buffer.append(delimiter).append(iter.next());
-        }
-        if (delimiterAtEnd) {
-            buffer.append(delimiter);
-        }
-        return buffer.toString();
+    /**
+     * @return whether onPrepareLocalDescription would modify |description|, false by default.
+     * Subclasses overriding onPrepareLocalDescription override this too.
+     */
+    protected boolean needsLocalDescriptionChange(String description) {
+        return false;
     }
 
     private void setMaxBitrate(RtpSender sender, Integer bitrate) {
@@ -424,20 +328,29 @@ public abstract class PeerConnectionChannel
                 }
                 peerConnection = null;
             }
+            // Fail the stats requests left waiting for a report that will not come, and the
+            // ones made from now on.
+            statsRequests.close();
+            // Closing the PeerConnection has delivered its last callbacks, let the ones queued
+            // run and tear the queue down.
+            callbackExecutor.shutdown();
         });
+        pcExecutor.shutdown();
     }
 
     //SdpObserver
     @Override
     public void onCreateSuccess(final SessionDescription sessionDescription) {
-        localSdp = sessionDescription;
-
-        if (audioCodecs != null) {
-            localSdp = preferCodecs(localSdp, false);
-        }
-
-        if (videoCodecs != null) {
-            localSdp = preferCodecs(localSdp, true);
+        if (audioCodecs == null && videoCodecs == null
+                && !needsLocalDescriptionChange(sessionDescription.description)) {
+            // Nothing to modify, leave the description as it is.
+            localSdp = sessionDescription;
+        } else {
+            // Parse once, apply all modifications to the model and serialize once.
+            Sdp sdp = Sdp.parse(sessionDescription.description);
+            preferCodecs(sdp);
+            onPrepareLocalDescription(sdp);
+            localSdp = new SessionDescription(sessionDescription.type, sdp.toString());
         }
 
         callbackExecutor.execute(() -> {
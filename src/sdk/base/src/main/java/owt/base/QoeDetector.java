@@ -0,0 +1,506 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import static owt.base.CheckCondition.RCHECK;
+
+import java.util.HashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Turns the samples of a StatsSampler into quality of experience events: video freezes,
+ * sustained packet loss, RTT and jitter spikes, bursts of concealed audio and changes of what
+ * limits the quality of the video sent. Add it to the StatsSampler with
+ * StatsSampler.addListener. Events are detected at most one sampling interval late, plus the
+ * number of samples the hysteresis asks for. Listeners are called on the thread of the
+ * StatsSampler. A QoeDetector may be added to several StatsSamplers as long as the ids of their
+ * Sources differ.
+ */
+public final class QoeDetector implements StatsSampler.SnapshotListener {
+
+    /**
+     * Quality of experience event of a publication or a subscription.
+     */
+    public static final class Event {
+        public enum Type {
+            /**
+             * No video frame has been decoded for the freeze threshold while packets were
+             * still expected.
+             */
+            FREEZE_STARTED,
+            /**
+             * Frames are decoded again, |value| is the duration of the freeze in milliseconds.
+             */
+            FREEZE_ENDED,
+            /**
+             * Packet loss has stayed above the threshold, |value| is the loss in [0, 1].
+             */
+            LOSS_STARTED,
+            LOSS_ENDED,
+            /**
+             * RTT has risen well above its usual level, |value| is the RTT in milliseconds.
+             */
+            RTT_SPIKE_STARTED,
+            RTT_SPIKE_ENDED,
+            /**
+             * Jitter has stayed above the threshold, |value| is the jitter in milliseconds.
+             */
+            JITTER_SPIKE_STARTED,
+            JITTER_SPIKE_ENDED,
+            /**
+             * Audio received has been concealed for more than the threshold of its samples,
+             * |value| is the fraction of the samples concealed in [0, 1].
+             */
+            CONCEALMENT_STARTED,
+            CONCEALMENT_ENDED,
+            /**
+             * What limits the resolution or frame rate of the video sent has changed to
+             * |reason|: "none", "cpu", "bandwidth" or "other".
+             */
+            QUALITY_LIMITATION_CHANGED
+        }
+
+        public final Type type;
+        /**
+         * Id the Source was added to the StatsSampler with.
+         */
+        public final String id;
+        public final long timestampMs;
+        public final double value;
+        public final String reason;
+
+        Event(Type type, String id, long timestampMs, double value, String reason) {
+            this.type = type;
+            this.id = id;
+            this.timestampMs = timestampMs;
+            this.value = value;
+            this.reason = reason;
+        }
+
+        @Override
+        public String toString() {
+            return type + " " + id + (reason != null ? " " + reason : " " + value);
+        }
+    }
+
+    /**
+     * Interface for observing the events detected.
+     */
+    public interface Listener {
+        void onQoeEvent(Event event);
+    }
+
+    /**
+     * Builder for building up a QoeDetector.
+     */
+    public static class Builder {
+        private long freezeThresholdMs = 500;
+        private double lossEnter = 0.05;
+        private double lossExit = 0.02;
+        private double rttSpikeFactor = 2;
+        private double rttSpikeMinIncreaseMs = 100;
+        private double jitterEnterMs = 30;
+        private double jitterExitMs = 20;
+        private double concealmentEnter = 0.05;
+        private double concealmentExit = 0.02;
+        private int enterSamples = 2;
+        private int exitSamples = 2;
+
+        Builder() {
+        }
+
+        /**
+         * @param milliseconds time without a decoded frame a freeze starts after, 500 by
+         * default.
+         * @return Builder
+         */
+        public Builder setFreezeThreshold(long milliseconds) {
+            RCHECK(milliseconds > 0);
+            this.freezeThresholdMs = milliseconds;
+            return this;
+        }
+
+        /**
+         * @param enter loss a LOSS_STARTED is raised above, 0.05 by default.
+         * @param exit loss a LOSS_ENDED is raised below, 0.02 by default.
+         * @return Builder
+         */
+        public Builder setLossThresholds(double enter, double exit) {
+            RCHECK(exit <= enter);
+            this.lossEnter = enter;
+            this.lossExit = exit;
+            return this;
+        }
+
+        /**
+         * An RTT spike starts when the RTT exceeds both |factor| times and |minIncreaseMs|
+         * more than its usual level, and ends when it is back under |factor| times.
+         *
+         * @param factor 2 by default.
+         * @param minIncreaseMs 100 by default.
+         * @return Builder
+         */
+        public Builder setRttSpike(double factor, double minIncreaseMs) {
+            RCHECK(factor > 1);
+            this.rttSpikeFactor = factor;
+            this.rttSpikeMinIncreaseMs = minIncreaseMs;
+            return this;
+        }
+
+        /**
+         * @param enterMs jitter a JITTER_SPIKE_STARTED is raised above, 30 by default.
+         * @param exitMs jitter a JITTER_SPIKE_ENDED is raised below, 20 by default.
+         * @return Builder
+         */
+        public Builder setJitterThresholds(double enterMs, double exitMs) {
+            RCHECK(exitMs <= enterMs);
+            this.jitterEnterMs = enterMs;
+            this.jitterExitMs = exitMs;
+            return this;
+        }
+
+        /**
+         * @param enter fraction of the audio samples concealed a CONCEALMENT_STARTED is raised
+         * above, 0.05 by default.
+         * @param exit fraction a CONCEALMENT_ENDED is raised below, 0.02 by default.
+         * @return Builder
+         */
+        public Builder setConcealmentThresholds(double enter, double exit) {
+            RCHECK(exit <= enter);
+            this.concealmentEnter = enter;
+            this.concealmentExit = exit;
+            return this;
+        }
+
+        /**
+         * Set up the number of consecutive samples a condition has to hold for before its
+         * event is raised, except for the start of a freeze, which is time based.
+         *
+         * @param enterSamples samples for a loss, a spike, a concealment or a quality
+         * limitation to start, 2 by default.
+         * @param exitSamples samples for a freeze, a loss, a spike or a concealment to end, 2 by
+         * default.
+         * @return Builder
+         */
+        public Builder setHysteresis(int enterSamples, int exitSamples) {
+            RCHECK(enterSamples > 0);
+            RCHECK(exitSamples > 0);
+            this.enterSamples = enterSamples;
+            this.exitSamples = exitSamples;
+            return this;
+        }
+
+        public QoeDetector build() {
+            return new QoeDetector(this);
+        }
+    }
+
+    // Weight of a new RTT in the usual RTT level.
+    private static final double RTT_LEVEL_WEIGHT = 0.1;
+
+    // Condition raising an event when it starts and another when it ends.
+    private static final class Hysteresis {
+        boolean active;
+        int count;
+    }
+
+    private static final class Channel {
+        // Counters of the video received in the previous sample, -1 before the first one.
+        long framesDecoded = -1;
+        long packetsExpected;
+        long freezeCount;
+        double totalFreezesDuration;
+        // Time frames were last seen decoded.
+        long progressMs;
+        boolean frozen;
+        int freezeExitCount;
+        // Time frames were first seen decoded again during a freeze.
+        long resumeMs;
+
+        final Hysteresis loss = new Hysteresis();
+
+        // Usual RTT level, -1 until measured.
+        double rttLevelMs = -1;
+        final Hysteresis rttSpike = new Hysteresis();
+
+        final Hysteresis jitterSpike = new Hysteresis();
+
+        // Counters of the audio received in the previous sample, -1 before the first one.
+        long audioSamples = -1;
+        long concealedSamples;
+        final Hysteresis concealment = new Hysteresis();
+
+        String limitation;
+        String pendingLimitation;
+        int limitationCount;
+    }
+
+    private final long freezeThresholdMs;
+    private final double lossEnter;
+    private final double lossExit;
+    private final double rttSpikeFactor;
+    private final double rttSpikeMinIncreaseMs;
+    private final double jitterEnterMs;
+    private final double jitterExitMs;
+    private final double concealmentEnter;
+    private final double concealmentExit;
+    private final int enterSamples;
+    private final int exitSamples;
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    // Guarded by |this|, the StatsSamplers the detector is added to each call it on their own
+    // thread. key: id of the Source.
+    private final HashMap<String, Channel> channels = new HashMap<>();
+
+    private QoeDetector(Builder builder) {
+        freezeThresholdMs = builder.freezeThresholdMs;
+        lossEnter = builder.lossEnter;
+        lossExit = builder.lossExit;
+        rttSpikeFactor = builder.rttSpikeFactor;
+        rttSpikeMinIncreaseMs = builder.rttSpikeMinIncreaseMs;
+        jitterEnterMs = builder.jitterEnterMs;
+        jitterExitMs = builder.jitterExitMs;
+        concealmentEnter = builder.concealmentEnter;
+        concealmentExit = builder.concealmentExit;
+        enterSamples = builder.enterSamples;
+        exitSamples = builder.exitSamples;
+    }
+
+    /**
+     * Get a Builder for creating a QoeDetector.
+     *
+     * @return Builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public void addListener(Listener listener) {
+        RCHECK(listener);
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    ///@cond
+    @Override
+    public void onSample(String id, StatsSeries series) {
+        // onSnapshot is called instead.
+    }
+
+    @Override
+    public synchronized void onSnapshot(String id, StatsSeries series, StatsSnapshot snapshot) {
+        Channel channel = channels.get(id);
+        if (channel == null) {
+            channel = new Channel();
+            channels.put(id, channel);
+        }
+        int last = series.size() - 1;
+        long nowMs = series.timestampMs(last);
+        detectFreeze(id, channel, snapshot, nowMs);
+        detectLoss(id, channel, series.packetLoss(last), nowMs);
+        detectRttSpike(id, channel, series.rttMs(last), nowMs);
+        detectJitterSpike(id, channel, series.jitterMs(last), nowMs);
+        detectConcealment(id, channel, snapshot, nowMs);
+        detectLimitation(id, channel, snapshot, nowMs);
+    }
+
+    @Override
+    public synchronized void onRemoved(String id) {
+        channels.remove(id);
+    }
+    ///@endcond
+
+    private void detectFreeze(String id, Channel channel, StatsSnapshot snapshot, long nowMs) {
+        long framesDecoded = 0, packetsExpected = 0, freezeCount = 0;
+        double totalFreezesDuration = 0;
+        boolean video = false;
+        for (int i = 0; i < snapshot.inboundRtpCount(); i++) {
+            StatsSnapshot.InboundRtp inbound = snapshot.inboundRtp(i);
+            if ("video".equals(inbound.kind)) {
+                video = true;
+                framesDecoded += inbound.framesDecoded;
+                packetsExpected += inbound.packetsReceived + inbound.packetsLost;
+                freezeCount += inbound.freezeCount;
+                // -1 when not reported.
+                totalFreezesDuration += Math.max(inbound.totalFreezesDuration, 0);
+            }
+        }
+        if (!video) {
+            return;
+        }
+        boolean first = channel.framesDecoded < 0;
+        boolean progress = framesDecoded > channel.framesDecoded;
+        // A stream receiving no packets at all, e.g. paused, is not considered frozen.
+        boolean expecting = packetsExpected > channel.packetsExpected;
+        long freezesDelta = freezeCount - channel.freezeCount;
+        double freezesDurationMs = (totalFreezesDuration - channel.totalFreezesDuration) * 1000;
+        channel.framesDecoded = framesDecoded;
+        channel.packetsExpected = packetsExpected;
+        channel.freezeCount = freezeCount;
+        channel.totalFreezesDuration = totalFreezesDuration;
+        if (first || (progress && !channel.frozen)) {
+            channel.progressMs = nowMs;
+            // Freezes shorter than the sampling interval only show in the counters.
+            if (!first && freezesDelta > 0) {
+                raise(Event.Type.FREEZE_STARTED, id, nowMs, 0, null);
+                raise(Event.Type.FREEZE_ENDED, id, nowMs, freezesDurationMs, null);
+            }
+            return;
+        }
+        if (!channel.frozen) {
+            if (expecting && nowMs - channel.progressMs >= freezeThresholdMs) {
+                channel.frozen = true;
+                channel.freezeExitCount = 0;
+                raise(Event.Type.FREEZE_STARTED, id, nowMs, 0, null);
+            }
+            return;
+        }
+        channel.freezeExitCount = progress ? channel.freezeExitCount + 1 : 0;
+        if (channel.freezeExitCount == 1) {
+            channel.resumeMs = nowMs;
+        }
+        if (channel.freezeExitCount >= exitSamples) {
+            channel.frozen = false;
+            raise(Event.Type.FREEZE_ENDED, id, nowMs, channel.resumeMs - channel.progressMs,
+                    null);
+            channel.progressMs = nowMs;
+        }
+    }
+
+    private void detectLoss(String id, Channel channel, double loss, long nowMs) {
+        boolean crossing = channel.loss.active ? loss < lossExit : loss > lossEnter;
+        if (toggles(channel.loss, crossing)) {
+            raise(channel.loss.active ? Event.Type.LOSS_STARTED : Event.Type.LOSS_ENDED, id,
+                    nowMs, loss, null);
+        }
+    }
+
+    private void detectRttSpike(String id, Channel channel, double rttMs, long nowMs) {
+        if (rttMs < 0) {
+            return;
+        }
+        // Seeded from a measured RTT only, an unmeasured one is -1.
+        if (channel.rttLevelMs < 0) {
+            channel.rttLevelMs = rttMs;
+            return;
+        }
+        double level = channel.rttLevelMs;
+        boolean crossing = channel.rttSpike.active ? rttMs < level * rttSpikeFactor
+                : rttMs > Math.max(level * rttSpikeFactor, level + rttSpikeMinIncreaseMs);
+        if (toggles(channel.rttSpike, crossing)) {
+            raise(channel.rttSpike.active ? Event.Type.RTT_SPIKE_STARTED
+                    : Event.Type.RTT_SPIKE_ENDED, id, nowMs, rttMs, null);
+        }
+        // The level follows the RTT outside of spikes only, so that a spike does not raise it.
+        if (!channel.rttSpike.active && !crossing) {
+            channel.rttLevelMs += (rttMs - level) * RTT_LEVEL_WEIGHT;
+        }
+    }
+
+    private void detectJitterSpike(String id, Channel channel, double jitterMs, long nowMs) {
+        // Jitter is small and noisy at its usual level, so it is compared to fixed thresholds
+        // rather than to its level like the RTT.
+        if (jitterMs < 0) {
+            return;
+        }
+        boolean crossing = channel.jitterSpike.active ? jitterMs < jitterExitMs
+                : jitterMs > jitterEnterMs;
+        if (toggles(channel.jitterSpike, crossing)) {
+            raise(channel.jitterSpike.active ? Event.Type.JITTER_SPIKE_STARTED
+                    : Event.Type.JITTER_SPIKE_ENDED, id, nowMs, jitterMs, null);
+        }
+    }
+
+    private void detectConcealment(String id, Channel channel, StatsSnapshot snapshot,
+            long nowMs) {
+        long audioSamples = 0, concealedSamples = 0;
+        boolean audio = false;
+        for (int i = 0; i < snapshot.inboundRtpCount(); i++) {
+            StatsSnapshot.InboundRtp inbound = snapshot.inboundRtp(i);
+            if ("audio".equals(inbound.kind)) {
+                audio = true;
+                // Both include the samples concealed.
+                audioSamples += inbound.totalSamplesReceived;
+                concealedSamples += inbound.concealedSamples;
+            }
+        }
+        if (!audio) {
+            return;
+        }
+        long samplesDelta = audioSamples - channel.audioSamples;
+        long concealedDelta = concealedSamples - channel.concealedSamples;
+        boolean first = channel.audioSamples < 0;
+        channel.audioSamples = audioSamples;
+        channel.concealedSamples = concealedSamples;
+        // Nothing played out, e.g. paused, or the counters were reset.
+        if (first || samplesDelta <= 0 || concealedDelta < 0) {
+            return;
+        }
+        double concealed = (double) concealedDelta / samplesDelta;
+        boolean crossing = channel.concealment.active ? concealed < concealmentExit
+                : concealed > concealmentEnter;
+        if (toggles(channel.concealment, crossing)) {
+            raise(channel.concealment.active ? Event.Type.CONCEALMENT_STARTED
+                    : Event.Type.CONCEALMENT_ENDED, id, nowMs, concealed, null);
+        }
+    }
+
+    /**
+     * @return whether |state| has toggled, after the condition has been |crossing| its
+     * threshold for as many consecutive samples as the hysteresis asks for.
+     */
+    private boolean toggles(Hysteresis state, boolean crossing) {
+        state.count = crossing ? state.count + 1 : 0;
+        if (state.count < (state.active ? exitSamples : enterSamples)) {
+            return false;
+        }
+        state.active = !state.active;
+        state.count = 0;
+        return true;
+    }
+
+    private void detectLimitation(String id, Channel channel, StatsSnapshot snapshot,
+            long nowMs) {
+        String limitation = null;
+        for (int i = 0; i < snapshot.outboundRtpCount(); i++) {
+            StatsSnapshot.OutboundRtp outbound = snapshot.outboundRtp(i);
+            // Simulcast layers share the encoder, the first reason other than "none" wins.
+            if ("video".equals(outbound.kind) && outbound.qualityLimitationReason != null
+                    && (limitation == null || limitation.equals("none"))) {
+                limitation = outbound.qualityLimitationReason;
+            }
+        }
+        if (limitation == null) {
+            return;
+        }
+        if (channel.limitation == null) {
+            channel.limitation = limitation;
+            return;
+        }
+        if (limitation.equals(channel.limitation)) {
+            channel.pendingLimitation = null;
+            return;
+        }
+        if (!limitation.equals(channel.pendingLimitation)) {
+            channel.pendingLimitation = limitation;
+            channel.limitationCount = 0;
+        }
+        if (++channel.limitationCount >= enterSamples) {
+            channel.limitation = limitation;
+            channel.pendingLimitation = null;
+            raise(Event.Type.QUALITY_LIMITATION_CHANGED, id, nowMs, 0, limitation);
+        }
+    }
+
+    private void raise(Event.Type type, String id, long timestampMs, double value,
+            String reason) {
+        Event event = new Event(type, id, timestampMs, value, reason);
+        for (Listener listener : listeners) {
+            listener.onQoeEvent(event);
+        }
+    }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import static owt.base.CheckCondition.RCHECK;
+import static owt.base.Const.LOG_TAG;
+
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically writes the QoS of a client to files a local scraper can read: the totals and
+ * per-channel stats of getAllStats along with counters of the SDK, e.g. the number of channels
+ * and reconnections. Files are written on a thread of their own.
+ */
+public final class QosExporter {
+
+    /**
+     * Format of the files written.
+     */
+    public enum Format {
+        /**
+         * Prometheus text exposition format, in <name>.prom. The file holds the latest export,
+         * it is replaced as a whole so that a reader never sees a partial one.
+         */
+        PROMETHEUS,
+        /**
+         * One JSON object per export appended to <name>.jsonl. The file is rotated to
+         * <name>.1.jsonl, <name>.2.jsonl... when it reaches its maximum size.
+         */
+        JSON_LINES
+    }
+
+    ///@cond
+    /**
+     * Client the QoS is exported for.
+     */
+    public interface Source {
+        void getAllStats(long deadlineMs, ActionCallback<ClientStats> callback);
+
+        /**
+         * @return counters of the client, keyed by Prometheus metric name.
+         */
+        Map<String, Long> counters();
+    }
+    ///@endcond
+
+    public static final long DEFAULT_MAX_FILE_BYTES = 1024 * 1024;
+    public static final int DEFAULT_MAX_FILES = 5;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int BUFFER_BYTES = 16 * 1024;
+
+    private final File directory;
+    private final String name;
+    private final Format format;
+    private final long intervalMs;
+    private final long maxFileBytes;
+    private final int maxFiles;
+    private final Source source;
+    private final SerialExecutor executor = WorkerPool.newIoExecutor();
+    // Accessed on |executor|.
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+    private FileChannel file;
+    private ScheduledFuture<?> exportTask;
+    // Whether a getAllStats is in flight, no other one is started until it completes.
+    private boolean exporting = false;
+
+    ///@cond
+    /**
+     * Constructor for QosExporter.
+     *
+     * @param name name of the files, without extension.
+     * @param maxFileBytes size a JSON lines file is rotated at.
+     * @param maxFiles number of rotated JSON lines files kept besides the current one.
+     */
+    public QosExporter(File directory, String name, Format format, long intervalMs,
+            long maxFileBytes, int maxFiles, Source source) {
+        RCHECK(directory);
+        RCHECK(name);
+        RCHECK(format);
+        RCHECK(intervalMs > 0);
+        RCHECK(maxFileBytes > 0);
+        RCHECK(maxFiles >= 0);
+        RCHECK(source);
+        this.directory = directory;
+        this.name = name.replaceAll("[^A-Za-z0-9_.-]", "_");
+        this.format = format;
+        this.intervalMs = intervalMs;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+        this.source = source;
+    }
+
+    public void start() {
+        executor.execute(() -> {
+            if (exportTask == null) {
+                exportTask = WorkerPool.scheduler().scheduleAtFixedRate(
+                        () -> executor.execute(this::export), 0, intervalMs,
+                        TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    /**
+     * Stop exporting and close the files, an export in flight is dropped.
+     */
+    public void stop() {
+        executor.execute(() -> {
+            if (exportTask != null) {
+                exportTask.cancel(false);
+                exportTask = null;
+            }
+            close();
+        });
+    }
+    ///@endcond
+
+    private void export() {
+        if (exporting || exportTask == null) {
+            return;
+        }
+        exporting = true;
+        source.getAllStats(Math.min(intervalMs, StatsAggregator.DEFAULT_DEADLINE_MS),
+                new ActionCallback<ClientStats>() {
+                    @Override
+                    public void onSuccess(final ClientStats result) {
+                        final Map<String, Long> counters = source.counters();
+                        executor.execute(() -> {
+                            exporting = false;
+                            if (exportTask != null) {
+                                write(counters, result);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onFailure(OwtError error) {
+                        executor.execute(() -> exporting = false);
+                    }
+                });
+    }
+
+    private void write(Map<String, Long> counters, ClientStats stats) {
+        try {
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("Failed to create " + directory);
+            }
+            if (format == Format.PROMETHEUS) {
+                File tmp = new File(directory, name + ".prom.tmp");
+                FileChannel channel = new FileOutputStream(tmp, false).getChannel();
+                try {
+                    append(channel, prometheus(name, counters, stats).getBytes(UTF_8));
+                    flush(channel);
+                } finally {
+                    channel.close();
+                }
+                if (!tmp.renameTo(new File(directory, name + ".prom"))) {
+                    throw new IOException("Failed to replace " + name + ".prom");
+                }
+            } else {
+                byte[] line = (jsonLine(name, counters, stats) + "\n").getBytes(UTF_8);
+                if (file != null && file.size() + line.length > maxFileBytes) {
+                    rotate();
+                }
+                if (file == null) {
+                    file = new FileOutputStream(new File(directory, name + ".jsonl"), true)
+                            .getChannel();
+                }
+                append(file, line);
+                // Whole lines only, so that a scraper tailing the file never reads half of one.
+                flush(file);
+            }
+        } catch (IOException | JSONException e) {
+            Log.w(LOG_TAG, "Failed to export QoS: " + e.getMessage());
+            close();
+        }
+    }
+
+    private void append(FileChannel channel, byte[] bytes) throws IOException {
+        if (bytes.length > buffer.remaining()) {
+            flush(channel);
+        }
+        if (bytes.length > buffer.capacity()) {
+            ByteBuffer wrapped = ByteBuffer.wrap(bytes);
+            while (wrapped.hasRemaining()) {
+                channel.write(wrapped);
+            }
+        } else {
+            buffer.put(bytes);
+        }
+    }
+
+    private void flush(FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void rotate() throws IOException {
+        file.close();
+        file = null;
+        File current = new File(directory, name + ".jsonl");
+        if (maxFiles == 0) {
+            current.delete();
+            return;
+        }
+        new File(directory, name + "." + maxFiles + ".jsonl").delete();
+        for (int i = maxFiles - 1; i > 0; i--) {
+            File rotated = new File(directory, name + "." + i + ".jsonl");
+            if (rotated.exists()) {
+                rotated.renameTo(new File(directory, name + "." + (i + 1) + ".jsonl"));
+            }
+        }
+        current.renameTo(new File(directory, name + ".1.jsonl"));
+    }
+
+    private void close() {
+        buffer.clear();
+        if (file != null) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                Log.w(LOG_TAG, "Failed to close " + name + ".jsonl: " + e.getMessage());
+            }
+            file = null;
+        }
+    }
+
+    static String prometheus(String client, Map<String, Long> counters, ClientStats stats) {
+        StringBuilder text = new StringBuilder();
+        String labels = "client=\"" + escape(client) + "\"";
+        for (Map.Entry<String, Long> counter : counters.entrySet()) {
+            String type = counter.getKey().endsWith("_total") ? "counter" : "gauge";
+            metric(text, counter.getKey(), type, labels, counter.getValue());
+        }
+        metric(text, "owt_uplink_bitrate_bps", "gauge", labels, stats.uplinkBitrateBps);
+        metric(text, "owt_downlink_bitrate_bps", "gauge", labels, stats.downlinkBitrateBps);
+        metric(text, "owt_worst_rtt_ms", "gauge", labels, stats.worstRttMs);
+        metric(text, "owt_freeze_count", "gauge", labels, stats.freezeCount);
+        metric(text, "owt_stats_missing_channels", "gauge", labels, stats.missing.size());
+        if (!stats.channels.isEmpty()) {
+            header(text, "owt_channel_uplink_bitrate_bps", "gauge");
+            for (ClientStats.ChannelStats channel : stats.channels) {
+                sample(text, "owt_channel_uplink_bitrate_bps", channelLabels(labels, channel),
+                        channel.uplinkBitrateBps);
+            }
+            header(text, "owt_channel_downlink_bitrate_bps", "gauge");
+            for (ClientStats.ChannelStats channel : stats.channels) {
+                sample(text, "owt_channel_downlink_bitrate_bps", channelLabels(labels, channel),
+                        channel.downlinkBitrateBps);
+            }
+            header(text, "owt_channel_rtt_ms", "gauge");
+            for (ClientStats.ChannelStats channel : stats.channels) {
+                sample(text, "owt_channel_rtt_ms", channelLabels(labels, channel),
+                        channel.rttMs);
+            }
+            header(text, "owt_channel_freeze_count", "gauge");
+            for (ClientStats.ChannelStats channel : stats.channels) {
+                sample(text, "owt_channel_freeze_count", channelLabels(labels, channel),
+                        channel.freezeCount);
+            }
+        }
+        return text.toString();
+    }
+
+    static String jsonLine(String client, Map<String, Long> counters, ClientStats stats)
+            throws JSONException {
+        JSONArray channels = new JSONArray();
+        for (ClientStats.ChannelStats channel : stats.channels) {
+            channels.put(new JSONObject()
+                    .put("id", channel.id)
+                    .put("uplinkBitrateBps", channel.uplinkBitrateBps)
+                    .put("downlinkBitrateBps", channel.downlinkBitrateBps)
+                    .put("rttMs", channel.rttMs)
+                    .put("freezeCount", channel.freezeCount));
+        }
+        return new JSONObject()
+                .put("timestamp", stats.timestampMs)
+                .put("client", client)
+                .put("counters", new JSONObject(counters))
+                .put("uplinkBitrateBps", stats.uplinkBitrateBps)
+                .put("downlinkBitrateBps", stats.downlinkBitrateBps)
+                .put("worstRttMs", stats.worstRttMs)
+                .put("freezeCount", stats.freezeCount)
+                .put("channels", channels)
+                .put("missing", new JSONArray(stats.missing))
+                .toString();
+    }
+
+    private static void metric(StringBuilder text, String name, String type, String labels,
+            double value) {
+        header(text, name, type);
+        sample(text, name, labels, value);
+    }
+
+    private static void header(StringBuilder text, String name, String type) {
+        text.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    // Values that are not available, i.e. negative, are left out.
+    private static void sample(StringBuilder text, String name, String labels, double value) {
+        if (value < 0) {
+            return;
+        }
+        text.append(name).append('{').append(labels).append("} ");
+        if (value == (long) value) {
+            text.append((long) value);
+        } else {
+            text.append(String.format(Locale.US, "%.3f", value));
+        }
+        text.append('\n');
+    }
+
+    private static String channelLabels(String labels, ClientStats.ChannelStats channel) {
+        return labels + ",channel=\"" + escape(channel.id) + "\"";
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import static owt.base.Const.LOG_TAG;
+
+import android.util.Log;
+
+import org.webrtc.IceCandidate;
+
+import java.util.ArrayList;
+import java.util.concurrent.Executor;
+
+/**
+ * Remote ICE candidates of a PeerConnection, held until the PeerConnection is able to take them.
+ * Both the queue and the target are only touched on |executor|, so swapping the queue out in a
+ * drain is atomic with regard to candidates arriving concurrently. Candidates are added to the
+ * target in arrival order: a candidate that can be added right away first drains the ones queued
+ * before it.
+ */
+final class RemoteCandidateQueue {
+
+    interface Target {
+        /**
+         * Whether candidates can be added now. Called on |executor|.
+         */
+        boolean readyForCandidates();
+
+        /**
+         * Called on |executor|.
+         */
+        void addIceCandidate(IceCandidate candidate);
+    }
+
+    private final Executor executor;
+    private final Target target;
+    private ArrayList<IceCandidate> queued = new ArrayList<>();
+
+    RemoteCandidateQueue(Executor executor, Target target) {
+        this.executor = executor;
+        this.target = target;
+    }
+
+    void addOrQueue(final IceCandidate candidate) {
+        executor.execute(() -> {
+            if (target.readyForCandidates()) {
+                addQueued();
+                target.addIceCandidate(candidate);
+            } else {
+                queued.add(candidate);
+            }
+        });
+    }
+
+    /**
+     * Add all the queued candidates in a single task on |executor|, whether or not the target
+     * reports being ready.
+     */
+    void drain() {
+        executor.execute(this::addQueued);
+    }
+
+    private void addQueued() {
+        if (queued.isEmpty()) {
+            return;
+        }
+        ArrayList<IceCandidate> candidates = queued;
+        queued = new ArrayList<>();
+        Log.d(LOG_TAG, "add " + candidates.size() + " queued ice candidates");
+        for (IceCandidate candidate : candidates) {
+            target.addIceCandidate(candidate);
+        }
+    }
+}
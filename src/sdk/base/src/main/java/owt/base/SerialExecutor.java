@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+
+///@cond
+/**
+ * Runs tasks one at a time in submission order on the threads of a shared pool, the way a single
+ * thread executor would, without owning a thread. Tasks of different SerialExecutors run in
+ * parallel. A SerialExecutor gives its thread back to the pool after a few tasks so that a busy
+ * queue does not starve the others.
+ */
+public final class SerialExecutor implements Executor {
+    private static final int MAX_TASKS_PER_TURN = 16;
+
+    private final Executor pool;
+    // Guards |tasks|, |running| and |shutdown|.
+    private final Object lock = new Object();
+    private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+    // Whether a turn is scheduled on or running on |pool|.
+    private boolean running = false;
+    private boolean shutdown = false;
+    private final Runnable turn = this::runTurn;
+
+    SerialExecutor(Executor pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Queue |task|. Tasks submitted after shutdown() are dropped.
+     */
+    @Override
+    public void execute(Runnable task) {
+        synchronized (lock) {
+            if (shutdown) {
+                return;
+            }
+            tasks.add(task);
+            if (running) {
+                return;
+            }
+            running = true;
+        }
+        pool.execute(turn);
+    }
+
+    /**
+     * Stop accepting tasks. Tasks queued already still run.
+     */
+    public void shutdown() {
+        synchronized (lock) {
+            shutdown = true;
+        }
+    }
+
+    public boolean isShutdown() {
+        synchronized (lock) {
+            return shutdown;
+        }
+    }
+
+    private void runTurn() {
+        for (int i = 0; i < MAX_TASKS_PER_TURN; i++) {
+            Runnable task;
+            synchronized (lock) {
+                task = tasks.poll();
+                if (task == null) {
+                    running = false;
+                    return;
+                }
+            }
+            try {
+                task.run();
+            } catch (RuntimeException | Error e) {
+                // Keep the queue going, the exception still reaches the uncaught exception
+                // handler as it would on a single thread executor.
+                scheduleNextTurn();
+                throw e;
+            }
+        }
+        scheduleNextTurn();
+    }
+
+    private void scheduleNextTurn() {
+        synchronized (lock) {
+            if (tasks.isEmpty()) {
+                running = false;
+                return;
+            }
+        }
+        pool.execute(turn);
+    }
+}
+///@endcond
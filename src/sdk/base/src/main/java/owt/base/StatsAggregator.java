@@ -0,0 +1,193 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import static owt.base.CheckCondition.RCHECK;
+
+import org.webrtc.RTCStatsReport;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+///@cond
+/**
+ * Collects the stats of all the channels of a client in parallel into a ClientStats. The
+ * channels are asked at once, the ClientStats completes when all of them have reported or
+ * failed, or at the deadline, whichever comes first. Counters of the previous collection are
+ * kept per channel for the bitrates, so callers polling on their own schedule each need a
+ * StatsAggregator of their own.
+ */
+public final class StatsAggregator {
+    public static final long DEFAULT_DEADLINE_MS = 1000;
+
+    private static final class Channel {
+        final StatsSnapshot snapshot = new StatsSnapshot(EnumSet.of(
+                StatsSnapshot.Type.INBOUND_RTP, StatsSnapshot.Type.OUTBOUND_RTP,
+                StatsSnapshot.Type.REMOTE_INBOUND_RTP, StatsSnapshot.Type.CANDIDATE_PAIR,
+                StatsSnapshot.Type.TRACK));
+        // Counters of the previous report, |timestampUs| is -1 before the first one.
+        long timestampUs = -1;
+        long bytesSent;
+        long bytesReceived;
+    }
+
+    private final class Collection {
+        final List<String> ids;
+        final ActionCallback<ClientStats> callback;
+        // Channels that have settled, to null for the ones that failed.
+        final Map<String, ClientStats.ChannelStats> results = new HashMap<>();
+        ScheduledFuture<?> deadline;
+        boolean completed = false;
+
+        Collection(List<String> ids, ActionCallback<ClientStats> callback) {
+            this.ids = ids;
+            this.callback = callback;
+        }
+
+        void onResult(String id, ClientStats.ChannelStats result) {
+            if (completed) {
+                return;
+            }
+            results.put(id, result);
+            if (results.size() == ids.size()) {
+                complete();
+            }
+        }
+
+        void complete() {
+            if (completed) {
+                return;
+            }
+            completed = true;
+            if (deadline != null) {
+                deadline.cancel(false);
+            }
+            List<ClientStats.ChannelStats> channelStats = new ArrayList<>();
+            List<String> missing = new ArrayList<>();
+            for (String id : ids) {
+                ClientStats.ChannelStats result = results.get(id);
+                if (result != null) {
+                    channelStats.add(result);
+                } else {
+                    missing.add(id);
+                }
+            }
+            callback.onSuccess(
+                    new ClientStats(System.currentTimeMillis(), channelStats, missing));
+        }
+    }
+
+    private final SerialExecutor executor = WorkerPool.newSerialExecutor();
+    // Accessed on |executor|. key: channel id.
+    private final HashMap<String, Channel> channels = new HashMap<>();
+
+    /**
+     * Collect the stats of |sources|. |callback| is called on a thread of the SDK, with a
+     * ClientStats that is empty if there is no source.
+     *
+     * @param sources key: channel id.
+     */
+    public void collect(final Map<String, StatsSampler.Source> sources, final long deadlineMs,
+            final ActionCallback<ClientStats> callback) {
+        RCHECK(sources);
+        RCHECK(deadlineMs > 0);
+        RCHECK(callback);
+        final Map<String, StatsSampler.Source> snapshot = new LinkedHashMap<>(sources);
+        executor.execute(() -> {
+            // Forget the channels gone since the previous collection.
+            channels.keySet().retainAll(snapshot.keySet());
+            final Collection collection =
+                    new Collection(new ArrayList<>(snapshot.keySet()), callback);
+            if (snapshot.isEmpty()) {
+                collection.complete();
+                return;
+            }
+            collection.deadline = WorkerPool.scheduler().schedule(
+                    () -> executor.execute(collection::complete), deadlineMs,
+                    TimeUnit.MILLISECONDS);
+            for (final Map.Entry<String, StatsSampler.Source> entry : snapshot.entrySet()) {
+                entry.getValue().getStats(new ActionCallback<RTCStatsReport>() {
+                    @Override
+                    public void onSuccess(final RTCStatsReport result) {
+                        executor.execute(() -> collection.onResult(entry.getKey(),
+                                read(entry.getKey(), result)));
+                    }
+
+                    @Override
+                    public void onFailure(OwtError error) {
+                        // Reported missing, without holding the others up to the deadline.
+                        executor.execute(() -> collection.onResult(entry.getKey(), null));
+                    }
+                });
+            }
+        });
+    }
+
+    private ClientStats.ChannelStats read(String id, RTCStatsReport report) {
+        Channel channel = channels.get(id);
+        if (channel == null) {
+            channel = new Channel();
+            channels.put(id, channel);
+        }
+        StatsSnapshot snapshot = channel.snapshot;
+        snapshot.update(report);
+        long bytesSent = 0;
+        long bytesReceived = 0;
+        long inboundFreezes = 0;
+        long trackFreezes = 0;
+        double rttMs = -1;
+        double remoteRttMs = -1;
+        for (int i = 0; i < snapshot.outboundRtpCount(); i++) {
+            bytesSent += snapshot.outboundRtp(i).bytesSent;
+        }
+        for (int i = 0; i < snapshot.inboundRtpCount(); i++) {
+            bytesReceived += snapshot.inboundRtp(i).bytesReceived;
+            inboundFreezes += snapshot.inboundRtp(i).freezeCount;
+        }
+        for (int i = 0; i < snapshot.trackCount(); i++) {
+            if (snapshot.track(i).remoteSource) {
+                trackFreezes += snapshot.track(i).freezeCount;
+            }
+        }
+        for (int i = 0; i < snapshot.remoteInboundRtpCount(); i++) {
+            double roundTripTime = snapshot.remoteInboundRtp(i).roundTripTime;
+            // -1 when not measured.
+            if (roundTripTime >= 0) {
+                remoteRttMs = Math.max(remoteRttMs, roundTripTime * 1000);
+            }
+        }
+        if (snapshot.candidatePair() != null
+                && snapshot.candidatePair().currentRoundTripTime >= 0) {
+            rttMs = snapshot.candidatePair().currentRoundTripTime * 1000;
+        }
+
+        long uplink = -1, downlink = -1;
+        long intervalUs = report.getTimestampUs() - channel.timestampUs;
+        if (channel.timestampUs >= 0 && intervalUs > 0) {
+            double seconds = intervalUs / 1e6;
+            // Counters that went backwards only serve as a baseline.
+            if (bytesSent >= channel.bytesSent) {
+                uplink = (long) ((bytesSent - channel.bytesSent) * 8 / seconds);
+            }
+            if (bytesReceived >= channel.bytesReceived) {
+                downlink = (long) ((bytesReceived - channel.bytesReceived) * 8 / seconds);
+            }
+        }
+        channel.timestampUs = report.getTimestampUs();
+        channel.bytesSent = bytesSent;
+        channel.bytesReceived = bytesReceived;
+        // Freezes are counted by the inbound-rtp stats or by the track stats depending on the
+        // version of WebRTC, not by both.
+        return new ClientStats.ChannelStats(id, report, uplink, downlink,
+                rttMs >= 0 ? rttMs : remoteRttMs, Math.max(inboundFreezes, trackFreezes));
+    }
+}
+///@endcond
@@ -0,0 +1,294 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import static owt.base.CheckCondition.RCHECK;
+
+import org.webrtc.RTCStatsReport;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the stats of publications and subscriptions on one shared schedule, and keeps the
+ * bitrate, frame rate, packet loss, jitter and RTT of every interval in a StatsSeries. The
+ * schedule runs only while there is something to sample. Listeners are called on a thread of
+ * the SDK, one sample at a time.
+ */
+public final class StatsSampler {
+
+    /**
+     * Where the stats of a publication or a subscription come from, e.g. Publication::getStats.
+     */
+    public interface Source {
+        void getStats(ActionCallback<RTCStatsReport> callback);
+    }
+
+    /**
+     * Interface for observing the samples taken.
+     */
+    public interface Listener {
+        /**
+         * Called upon a sample has been added to the StatsSeries of |id|.
+         *
+         * @param id id the Source was added with.
+         * @param series StatsSeries the sample has been added to, its latest sample.
+         */
+        void onSample(String id, StatsSeries series);
+    }
+
+    /**
+     * Listener that also gets the stats each sample is computed from. onSnapshot is called
+     * instead of onSample.
+     */
+    public interface SnapshotListener extends Listener {
+        /**
+         * Called upon a sample has been added to the StatsSeries of |id|.
+         *
+         * @param snapshot StatsSnapshot of the report the sample is computed from, valid until
+         * the call returns.
+         */
+        void onSnapshot(String id, StatsSeries series, StatsSnapshot snapshot);
+
+        /**
+         * Called upon the Source added with |id| has been removed or replaced.
+         */
+        void onRemoved(String id);
+    }
+
+    private static final class Channel {
+        final Source source;
+        final StatsSeries series;
+        final StatsSnapshot snapshot = new StatsSnapshot(EnumSet.of(StatsSnapshot.Type.INBOUND_RTP,
+                StatsSnapshot.Type.OUTBOUND_RTP, StatsSnapshot.Type.REMOTE_INBOUND_RTP,
+                StatsSnapshot.Type.CANDIDATE_PAIR));
+        // Whether a getStats is in flight, no other one is started until it completes.
+        boolean polling = false;
+        // Cumulative counters of the previous report, |timestampUs| is -1 before the first one.
+        long timestampUs = -1;
+        long bytes;
+        long frames;
+        long packetsSent;
+        long packetsReceived;
+        long packetsLost;
+        long remotePacketsLost;
+
+        Channel(Source source, int historySize) {
+            this.source = source;
+            this.series = new StatsSeries(historySize);
+        }
+    }
+
+    private final long intervalMs;
+    private final int historySize;
+    private final SerialExecutor executor = WorkerPool.newSerialExecutor();
+    // key: id the Source was added with.
+    private final ConcurrentHashMap<String, Channel> channels = new ConcurrentHashMap<>();
+    private final CopyOnWriteArrayList<Listener> listeners = new CopyOnWriteArrayList<>();
+    // Accessed on |executor|, null when nothing is sampled.
+    private ScheduledFuture<?> samplingTask;
+
+    /**
+     * Constructor for StatsSampler.
+     *
+     * @param intervalMs interval between two samples, in milliseconds.
+     * @param historySize number of samples kept for every Source.
+     */
+    public StatsSampler(long intervalMs, int historySize) {
+        RCHECK(intervalMs > 0);
+        RCHECK(historySize > 0);
+        this.intervalMs = intervalMs;
+        this.historySize = historySize;
+    }
+
+    /**
+     * Start sampling |source|. A Source added with the |id| of another replaces it.
+     */
+    public void add(final String id, final Source source) {
+        RCHECK(id);
+        RCHECK(source);
+        executor.execute(() -> {
+            if (channels.put(id, new Channel(source, historySize)) != null) {
+                notifyRemoved(id);
+            }
+            if (samplingTask == null) {
+                samplingTask = WorkerPool.scheduler().scheduleAtFixedRate(
+                        () -> executor.execute(this::sample), intervalMs, intervalMs,
+                        TimeUnit.MILLISECONDS);
+            }
+        });
+    }
+
+    /**
+     * Stop sampling the Source added with |id| and drop its StatsSeries.
+     */
+    public void remove(final String id) {
+        executor.execute(() -> {
+            if (channels.remove(id) != null) {
+                notifyRemoved(id);
+            }
+            cancelIfIdle();
+        });
+    }
+
+    /**
+     * Stop sampling all the Sources.
+     */
+    public void clear() {
+        executor.execute(() -> {
+            for (String id : channels.keySet()) {
+                notifyRemoved(id);
+            }
+            channels.clear();
+            cancelIfIdle();
+        });
+    }
+
+    /**
+     * @return the StatsSeries of the Source added with |id|, null if there is no such Source.
+     */
+    public StatsSeries series(String id) {
+        Channel channel = channels.get(id);
+        return channel == null ? null : channel.series;
+    }
+
+    public void addListener(Listener listener) {
+        RCHECK(listener);
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private void cancelIfIdle() {
+        if (channels.isEmpty() && samplingTask != null) {
+            samplingTask.cancel(false);
+            samplingTask = null;
+        }
+    }
+
+    private void sample() {
+        for (final Map.Entry<String, Channel> entry : channels.entrySet()) {
+            final Channel channel = entry.getValue();
+            if (channel.polling) {
+                continue;
+            }
+            channel.polling = true;
+            channel.source.getStats(new ActionCallback<RTCStatsReport>() {
+                @Override
+                public void onSuccess(final RTCStatsReport result) {
+                    executor.execute(() -> {
+                        channel.polling = false;
+                        // Skip the reports of a Source removed or replaced meanwhile.
+                        if (channels.get(entry.getKey()) == channel) {
+                            onReport(entry.getKey(), channel, result);
+                        }
+                    });
+                }
+
+                @Override
+                public void onFailure(OwtError error) {
+                    executor.execute(() -> channel.polling = false);
+                }
+            });
+        }
+    }
+
+    private void onReport(String id, Channel channel, RTCStatsReport report) {
+        StatsSnapshot snapshot = channel.snapshot;
+        snapshot.update(report);
+        long bytes = 0;
+        long frames = 0;
+        long packetsSent = 0;
+        long packetsReceived = 0;
+        long packetsLost = 0;
+        long remotePacketsLost = 0;
+        double jitterMs = -1;
+        double rttMs = -1;
+        double remoteRttMs = -1;
+        for (int i = 0; i < snapshot.outboundRtpCount(); i++) {
+            StatsSnapshot.OutboundRtp outbound = snapshot.outboundRtp(i);
+            bytes += outbound.bytesSent;
+            frames += outbound.framesEncoded;
+            packetsSent += outbound.packetsSent;
+        }
+        for (int i = 0; i < snapshot.inboundRtpCount(); i++) {
+            StatsSnapshot.InboundRtp inbound = snapshot.inboundRtp(i);
+            bytes += inbound.bytesReceived;
+            frames += inbound.framesDecoded;
+            packetsReceived += inbound.packetsReceived;
+            packetsLost += inbound.packetsLost;
+            jitterMs = Math.max(jitterMs, ms(inbound.jitter));
+        }
+        for (int i = 0; i < snapshot.remoteInboundRtpCount(); i++) {
+            StatsSnapshot.RemoteInboundRtp remoteInbound = snapshot.remoteInboundRtp(i);
+            // Packets sent by this end that the remote end has not received.
+            remotePacketsLost += remoteInbound.packetsLost;
+            jitterMs = Math.max(jitterMs, ms(remoteInbound.jitter));
+            remoteRttMs = Math.max(remoteRttMs, ms(remoteInbound.roundTripTime));
+        }
+        if (snapshot.candidatePair() != null) {
+            rttMs = ms(snapshot.candidatePair().currentRoundTripTime);
+        }
+        if (rttMs < 0) {
+            rttMs = remoteRttMs;
+        }
+
+        long intervalUs = report.getTimestampUs() - channel.timestampUs;
+        long bytesDelta = bytes - channel.bytes;
+        long framesDelta = frames - channel.frames;
+        long sentDelta = packetsSent - channel.packetsSent;
+        long receivedDelta = packetsReceived - channel.packetsReceived;
+        // Loss counters may go down on duplicated packets.
+        long lostDelta = Math.max(packetsLost - channel.packetsLost, 0);
+        long remoteLostDelta = Math.max(remotePacketsLost - channel.remotePacketsLost, 0);
+        boolean baseline = channel.timestampUs < 0 || intervalUs <= 0 || bytesDelta < 0
+                || framesDelta < 0 || sentDelta < 0 || receivedDelta < 0;
+        channel.timestampUs = report.getTimestampUs();
+        channel.bytes = bytes;
+        channel.frames = frames;
+        channel.packetsSent = packetsSent;
+        channel.packetsReceived = packetsReceived;
+        channel.packetsLost = packetsLost;
+        channel.remotePacketsLost = remotePacketsLost;
+        // The first report, or counters that went backwards, only serve as a baseline.
+        if (baseline) {
+            return;
+        }
+
+        double seconds = intervalUs / 1e6;
+        // Packets sent include the ones lost, packets received do not.
+        long expected = sentDelta + receivedDelta + lostDelta;
+        double loss = expected == 0 ? 0
+                : Math.min(1, (lostDelta + remoteLostDelta) / (double) expected);
+        channel.series.add(channel.timestampUs / 1000, (long) (bytesDelta * 8 / seconds),
+                framesDelta / seconds, loss, jitterMs, rttMs);
+        for (Listener listener : listeners) {
+            if (listener instanceof SnapshotListener) {
+                ((SnapshotListener) listener).onSnapshot(id, channel.series, snapshot);
+            } else {
+                listener.onSample(id, channel.series);
+            }
+        }
+    }
+
+    // Seconds to milliseconds, keeping -1 for a value not measured.
+    private static double ms(double seconds) {
+        return seconds < 0 ? -1 : seconds * 1000;
+    }
+
+    private void notifyRemoved(String id) {
+        for (Listener listener : listeners) {
+            if (listener instanceof SnapshotListener) {
+                ((SnapshotListener) listener).onRemoved(id);
+            }
+        }
+    }
+}
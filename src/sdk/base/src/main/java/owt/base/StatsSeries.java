@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import static owt.base.CheckCondition.RCHECK;
+
+/**
+ * History of the stats of a publication or a subscription sampled by a StatsSampler. Samples
+ * are kept in fixed-size ring buffers, the oldest sample is dropped when a new one comes in
+ * with the history full. Index 0 is the oldest sample held, size() - 1 the latest one. Values
+ * that are not available, e.g. the RTT before any has been measured, are -1.
+ */
+public final class StatsSeries {
+    private final long[] timestampMs;
+    private final long[] bitrateBps;
+    private final double[] framesPerSecond;
+    private final double[] packetLoss;
+    private final double[] jitterMs;
+    private final double[] rttMs;
+    // Position the next sample is written to.
+    private int next = 0;
+    private int size = 0;
+
+    StatsSeries(int capacity) {
+        RCHECK(capacity > 0);
+        timestampMs = new long[capacity];
+        bitrateBps = new long[capacity];
+        framesPerSecond = new double[capacity];
+        packetLoss = new double[capacity];
+        jitterMs = new double[capacity];
+        rttMs = new double[capacity];
+    }
+
+    synchronized void add(long timestampMs, long bitrateBps, double framesPerSecond,
+            double packetLoss, double jitterMs, double rttMs) {
+        this.timestampMs[next] = timestampMs;
+        this.bitrateBps[next] = bitrateBps;
+        this.framesPerSecond[next] = framesPerSecond;
+        this.packetLoss[next] = packetLoss;
+        this.jitterMs[next] = jitterMs;
+        this.rttMs[next] = rttMs;
+        next = (next + 1) % capacity();
+        if (size < capacity()) {
+            size++;
+        }
+    }
+
+    /**
+     * @return maximum number of samples held.
+     */
+    public int capacity() {
+        return timestampMs.length;
+    }
+
+    /**
+     * @return number of samples held.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return time the stats of the sample were collected, in milliseconds since the epoch.
+     */
+    public synchronized long timestampMs(int index) {
+        return timestampMs[position(index)];
+    }
+
+    /**
+     * @return bits sent and received per second over the interval ending with the sample.
+     */
+    public synchronized long bitrateBps(int index) {
+        return bitrateBps[position(index)];
+    }
+
+    /**
+     * @return frames encoded and decoded per second over the interval ending with the sample.
+     */
+    public synchronized double framesPerSecond(int index) {
+        return framesPerSecond[position(index)];
+    }
+
+    /**
+     * @return fraction of the packets lost over the interval ending with the sample, in [0, 1].
+     */
+    public synchronized double packetLoss(int index) {
+        return packetLoss[position(index)];
+    }
+
+    /**
+     * @return highest jitter of the RTP streams at the time of the sample, in milliseconds.
+     */
+    public synchronized double jitterMs(int index) {
+        return jitterMs[position(index)];
+    }
+
+    /**
+     * @return round trip time at the time of the sample, in milliseconds.
+     */
+    public synchronized double rttMs(int index) {
+        return rttMs[position(index)];
+    }
+
+    private int position(int index) {
+        RCHECK(index >= 0 && index < size);
+        return (next - size + index + capacity()) % capacity();
+    }
+}
@@ -0,0 +1,364 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import static owt.base.CheckCondition.RCHECK;
+
+import org.webrtc.RTCStats;
+import org.webrtc.RTCStatsReport;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Map;
+
+/**
+ * Typed projection of an RTCStatsReport. update() reads the members of the stats types
+ * selected into primitive fields of objects that are reused from one report to the next, so
+ * that polling stats does not allocate beyond the report itself and readers do not look up
+ * members by name. A StatsSnapshot is not thread-safe, the values read are the ones of the
+ * last report until the next update(). Values absent from the report, e.g. not measured yet,
+ * are 0 for integers, -1 for floating point values and null for strings.
+ */
+public final class StatsSnapshot {
+
+    /**
+     * Types of the stats a StatsSnapshot can project.
+     */
+    public enum Type {
+        INBOUND_RTP("inbound-rtp"),
+        OUTBOUND_RTP("outbound-rtp"),
+        REMOTE_INBOUND_RTP("remote-inbound-rtp"),
+        CANDIDATE_PAIR("candidate-pair"),
+        TRACK("track");
+
+        ///@cond
+        public final String type;
+
+        Type(String type) {
+            this.type = type;
+        }
+        ///@endcond
+    }
+
+    /**
+     * Stats of an RTP stream received.
+     */
+    public static final class InboundRtp {
+        public String kind;
+        public long ssrc;
+        public long packetsReceived;
+        public long packetsLost;
+        public long bytesReceived;
+        public double jitter;
+        public long framesReceived;
+        public long framesDecoded;
+        public long framesDropped;
+        public long frameWidth;
+        public long frameHeight;
+        public double framesPerSecond;
+        public long freezeCount;
+        public double totalFreezesDuration;
+        public long totalSamplesReceived;
+        public long concealedSamples;
+        public long nackCount;
+        public long pliCount;
+        public long firCount;
+
+        void read(Map<String, Object> members) {
+            kind = kind(members);
+            ssrc = asLong(members.get("ssrc"));
+            packetsReceived = asLong(members.get("packetsReceived"));
+            packetsLost = asLong(members.get("packetsLost"));
+            bytesReceived = asLong(members.get("bytesReceived"));
+            jitter = asDouble(members.get("jitter"));
+            framesReceived = asLong(members.get("framesReceived"));
+            framesDecoded = asLong(members.get("framesDecoded"));
+            framesDropped = asLong(members.get("framesDropped"));
+            frameWidth = asLong(members.get("frameWidth"));
+            frameHeight = asLong(members.get("frameHeight"));
+            framesPerSecond = asDouble(members.get("framesPerSecond"));
+            freezeCount = asLong(members.get("freezeCount"));
+            totalFreezesDuration = asDouble(members.get("totalFreezesDuration"));
+            totalSamplesReceived = asLong(members.get("totalSamplesReceived"));
+            concealedSamples = asLong(members.get("concealedSamples"));
+            nackCount = asLong(members.get("nackCount"));
+            pliCount = asLong(members.get("pliCount"));
+            firCount = asLong(members.get("firCount"));
+        }
+    }
+
+    /**
+     * Stats of an RTP stream sent.
+     */
+    public static final class OutboundRtp {
+        public String kind;
+        public long ssrc;
+        public long packetsSent;
+        public long bytesSent;
+        public long retransmittedPacketsSent;
+        public long framesEncoded;
+        public long keyFramesEncoded;
+        public long frameWidth;
+        public long frameHeight;
+        public double framesPerSecond;
+        public double totalEncodeTime;
+        /**
+         * "none", "cpu", "bandwidth" or "other".
+         */
+        public String qualityLimitationReason;
+        public long nackCount;
+        public long pliCount;
+        public long firCount;
+
+        void read(Map<String, Object> members) {
+            kind = kind(members);
+            ssrc = asLong(members.get("ssrc"));
+            packetsSent = asLong(members.get("packetsSent"));
+            bytesSent = asLong(members.get("bytesSent"));
+            retransmittedPacketsSent = asLong(members.get("retransmittedPacketsSent"));
+            framesEncoded = asLong(members.get("framesEncoded"));
+            keyFramesEncoded = asLong(members.get("keyFramesEncoded"));
+            frameWidth = asLong(members.get("frameWidth"));
+            frameHeight = asLong(members.get("frameHeight"));
+            framesPerSecond = asDouble(members.get("framesPerSecond"));
+            totalEncodeTime = asDouble(members.get("totalEncodeTime"));
+            qualityLimitationReason = (String) members.get("qualityLimitationReason");
+            nackCount = asLong(members.get("nackCount"));
+            pliCount = asLong(members.get("pliCount"));
+            firCount = asLong(members.get("firCount"));
+        }
+    }
+
+    /**
+     * Stats the remote end reports about an RTP stream sent.
+     */
+    public static final class RemoteInboundRtp {
+        public String kind;
+        public long ssrc;
+        public long packetsLost;
+        public double jitter;
+        public double roundTripTime;
+        public double fractionLost;
+
+        void read(Map<String, Object> members) {
+            kind = kind(members);
+            ssrc = asLong(members.get("ssrc"));
+            packetsLost = asLong(members.get("packetsLost"));
+            jitter = asDouble(members.get("jitter"));
+            roundTripTime = asDouble(members.get("roundTripTime"));
+            fractionLost = asDouble(members.get("fractionLost"));
+        }
+    }
+
+    /**
+     * Stats of the ICE candidate pair in use.
+     */
+    public static final class CandidatePair {
+        public long bytesSent;
+        public long bytesReceived;
+        public double currentRoundTripTime;
+        public double availableOutgoingBitrate;
+        public double availableIncomingBitrate;
+
+        void read(Map<String, Object> members) {
+            bytesSent = asLong(members.get("bytesSent"));
+            bytesReceived = asLong(members.get("bytesReceived"));
+            currentRoundTripTime = asDouble(members.get("currentRoundTripTime"));
+            availableOutgoingBitrate = asDouble(members.get("availableOutgoingBitrate"));
+            availableIncomingBitrate = asDouble(members.get("availableIncomingBitrate"));
+        }
+    }
+
+    /**
+     * Stats of a media track, as reported by the "track" stats.
+     */
+    public static final class Track {
+        public String kind;
+        public boolean remoteSource;
+        public long frameWidth;
+        public long frameHeight;
+        public long framesReceived;
+        public long framesDecoded;
+        public long framesDropped;
+        public long freezeCount;
+        public double totalFreezesDuration;
+        public long concealedSamples;
+        public long concealmentEvents;
+        public double jitterBufferDelay;
+        public long jitterBufferEmittedCount;
+
+        void read(Map<String, Object> members) {
+            kind = (String) members.get("kind");
+            remoteSource = Boolean.TRUE.equals(members.get("remoteSource"));
+            frameWidth = asLong(members.get("frameWidth"));
+            frameHeight = asLong(members.get("frameHeight"));
+            framesReceived = asLong(members.get("framesReceived"));
+            framesDecoded = asLong(members.get("framesDecoded"));
+            framesDropped = asLong(members.get("framesDropped"));
+            freezeCount = asLong(members.get("freezeCount"));
+            totalFreezesDuration = asDouble(members.get("totalFreezesDuration"));
+            concealedSamples = asLong(members.get("concealedSamples"));
+            concealmentEvents = asLong(members.get("concealmentEvents"));
+            jitterBufferDelay = asDouble(members.get("jitterBufferDelay"));
+            jitterBufferEmittedCount = asLong(members.get("jitterBufferEmittedCount"));
+        }
+    }
+
+    private final EnumSet<Type> types;
+    // Entries in use are the first |*Count| ones, the others are kept for the next reports.
+    private final ArrayList<InboundRtp> inbound = new ArrayList<>();
+    private final ArrayList<OutboundRtp> outbound = new ArrayList<>();
+    private final ArrayList<RemoteInboundRtp> remoteInbound = new ArrayList<>();
+    private final ArrayList<Track> tracks = new ArrayList<>();
+    private final CandidatePair candidatePair = new CandidatePair();
+    private int inboundCount;
+    private int outboundCount;
+    private int remoteInboundCount;
+    private int trackCount;
+    private boolean hasCandidatePair;
+    private long timestampUs;
+
+    /**
+     * Constructor for a StatsSnapshot projecting all the Types.
+     */
+    public StatsSnapshot() {
+        this(EnumSet.allOf(Type.class));
+    }
+
+    /**
+     * Constructor for a StatsSnapshot projecting |types| only.
+     *
+     * @param types Types of the stats to read from the reports.
+     */
+    public StatsSnapshot(EnumSet<Type> types) {
+        RCHECK(types);
+        this.types = EnumSet.copyOf(types);
+    }
+
+    /**
+     * Replace the values with the ones of |report|.
+     */
+    public void update(RTCStatsReport report) {
+        timestampUs = report.getTimestampUs();
+        inboundCount = outboundCount = remoteInboundCount = trackCount = 0;
+        hasCandidatePair = false;
+        for (RTCStats stats : report.getStatsMap().values()) {
+            switch (stats.getType()) {
+                case "inbound-rtp":
+                    if (types.contains(Type.INBOUND_RTP)) {
+                        if (inboundCount == inbound.size()) {
+                            inbound.add(new InboundRtp());
+                        }
+                        InboundRtp entry = inbound.get(inboundCount++);
+                        entry.read(stats.getMembers());
+                    }
+                    break;
+                case "outbound-rtp":
+                    if (types.contains(Type.OUTBOUND_RTP)) {
+                        if (outboundCount == outbound.size()) {
+                            outbound.add(new OutboundRtp());
+                        }
+                        OutboundRtp entry = outbound.get(outboundCount++);
+                        entry.read(stats.getMembers());
+                    }
+                    break;
+                case "remote-inbound-rtp":
+                    if (types.contains(Type.REMOTE_INBOUND_RTP)) {
+                        if (remoteInboundCount == remoteInbound.size()) {
+                            remoteInbound.add(new RemoteInboundRtp());
+                        }
+                        RemoteInboundRtp entry = remoteInbound.get(remoteInboundCount++);
+                        entry.read(stats.getMembers());
+                    }
+                    break;
+                case "candidate-pair":
+                    Map<String, Object> members = stats.getMembers();
+                    // Only the pair in use is kept.
+                    if (types.contains(Type.CANDIDATE_PAIR) && !hasCandidatePair
+                            && Boolean.TRUE.equals(members.get("nominated"))
+                            && "succeeded".equals(members.get("state"))) {
+                        candidatePair.read(members);
+                        hasCandidatePair = true;
+                    }
+                    break;
+                case "track":
+                    if (types.contains(Type.TRACK)) {
+                        if (trackCount == tracks.size()) {
+                            tracks.add(new Track());
+                        }
+                        Track entry = tracks.get(trackCount++);
+                        entry.read(stats.getMembers());
+                    }
+                    break;
+            }
+        }
+    }
+
+    /**
+     * @return timestamp of the last report, in microseconds.
+     */
+    public long timestampUs() {
+        return timestampUs;
+    }
+
+    public int inboundRtpCount() {
+        return inboundCount;
+    }
+
+    public InboundRtp inboundRtp(int index) {
+        RCHECK(index >= 0 && index < inboundCount);
+        return inbound.get(index);
+    }
+
+    public int outboundRtpCount() {
+        return outboundCount;
+    }
+
+    public OutboundRtp outboundRtp(int index) {
+        RCHECK(index >= 0 && index < outboundCount);
+        return outbound.get(index);
+    }
+
+    public int remoteInboundRtpCount() {
+        return remoteInboundCount;
+    }
+
+    public RemoteInboundRtp remoteInboundRtp(int index) {
+        RCHECK(index >= 0 && index < remoteInboundCount);
+        return remoteInbound.get(index);
+    }
+
+    public int trackCount() {
+        return trackCount;
+    }
+
+    public Track track(int index) {
+        RCHECK(index >= 0 && index < trackCount);
+        return tracks.get(index);
+    }
+
+    /**
+     * @return the stats of the candidate pair in use, null if there is none.
+     */
+    public CandidatePair candidatePair() {
+        return hasCandidatePair ? candidatePair : null;
+    }
+
+    // "kind" replaced "mediaType" in the RTP stream stats.
+    private static String kind(Map<String, Object> members) {
+        Object kind = members.get("kind");
+        return (String) (kind != null ? kind : members.get("mediaType"));
+    }
+
+    // uint64 members are BigIntegers, uint32 ones Longs and int32 ones Integers.
+    private static long asLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0;
+    }
+
+    // None of the floating point members is negative, -1 tells an absent one from a measured 0.
+    private static double asDouble(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : -1;
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base;
+
+import static owt.base.CheckCondition.RCHECK;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+///@cond
+/**
+ * Threads shared by all the clients and channels of the SDK. Work is submitted through
+ * SerialExecutors, which keep the ordering of a single thread executor. Idle threads exit after
+ * a while, so the SDK holds no thread when it is not in use.
+ */
+public final class WorkerPool {
+    private static final int DEFAULT_THREADS =
+            Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private static final ThreadPoolExecutor workers =
+            new ThreadPoolExecutor(DEFAULT_THREADS, DEFAULT_THREADS, KEEP_ALIVE_SECONDS,
+                    TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new NamedThreadFactory("worker"));
+    // Delayed work only, tasks hand over to a SerialExecutor when they are due.
+    private static final ScheduledThreadPoolExecutor scheduler =
+            new ScheduledThreadPoolExecutor(1, new NamedThreadFactory("scheduler"));
+
+    // Blocking file IO, kept off |workers| so that it does not hold up the callbacks.
+    private static final ThreadPoolExecutor io =
+            new ThreadPoolExecutor(1, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), new NamedThreadFactory("io"));
+
+    static {
+        io.allowCoreThreadTimeOut(true);
+        workers.allowCoreThreadTimeOut(true);
+        scheduler.setKeepAliveTime(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+        scheduler.allowCoreThreadTimeOut(true);
+    }
+
+    private WorkerPool() {
+    }
+
+    /**
+     * Create a serial task queue running on the shared threads.
+     */
+    public static SerialExecutor newSerialExecutor() {
+        return new SerialExecutor(workers);
+    }
+
+    /**
+     * Create a serial task queue running on the thread for blocking IO, e.g. writing files.
+     */
+    public static SerialExecutor newIoExecutor() {
+        return new SerialExecutor(io);
+    }
+
+    /**
+     * Shared single thread scheduler. Tasks run on it must be short, e.g. posting to a
+     * SerialExecutor.
+     */
+    public static ScheduledExecutorService scheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Set the maximum number of worker threads. The pool is shared by all clients, the last
+     * value set wins.
+     */
+    public static synchronized void setThreadCount(int threads) {
+        RCHECK(threads > 0);
+        if (threads > workers.getMaximumPoolSize()) {
+            workers.setMaximumPoolSize(threads);
+            workers.setCorePoolSize(threads);
+        } else {
+            workers.setCorePoolSize(threads);
+            workers.setMaximumPoolSize(threads);
+        }
+    }
+
+    public static int threadCount() {
+        return workers.getMaximumPoolSize();
+    }
+
+    private static final class NamedThreadFactory implements ThreadFactory {
+        private final String name;
+        private final AtomicInteger count = new AtomicInteger();
+
+        NamedThreadFactory(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "owt-" + name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
+///@endcond
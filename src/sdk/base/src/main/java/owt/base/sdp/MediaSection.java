@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base.sdp;
+
+import static owt.base.Const.LOG_TAG;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import owt.base.sdp.SdpLine.Fmtp;
+import owt.base.sdp.SdpLine.RtcpFb;
+import owt.base.sdp.SdpLine.RtpMap;
+
+///@cond
+/**
+ * An m-section of an SDP: the m-line and the lines following it up to the next m-line.
+ */
+public final class MediaSection {
+    public static final String AUDIO = "audio";
+    public static final String VIDEO = "video";
+    // RTP payload types are limited to 0-127.
+    private static final int MAX_PAYLOAD_TYPE = 127;
+    private static final int NOT_PREFERRED = -1;
+    private static final int RTX = -2;
+
+    /**
+     * Media type of the m-line, e.g. "audio", "video" or "application".
+     */
+    public final String media;
+    private final String port;
+    private final String proto;
+    private final ArrayList<String> formats;
+    private final ArrayList<SdpLine> lines;
+
+    private MediaSection(String media, String port, String proto, ArrayList<String> formats) {
+        this.media = media;
+        this.port = port;
+        this.proto = proto;
+        this.formats = formats;
+        this.lines = new ArrayList<>();
+    }
+
+    // m=<media> <port> <proto> <fmt> ...
+    static MediaSection parse(String mLine) {
+        String[] parts = mLine.substring(2).split(" ");
+        if (parts.length < 3) {
+            return null;
+        }
+        ArrayList<String> formats = new ArrayList<>(parts.length - 3);
+        for (int i = 3; i < parts.length; i++) {
+            if (!parts[i].isEmpty()) {
+                formats.add(parts[i]);
+            }
+        }
+        return new MediaSection(parts[0], parts[1], parts[2], formats);
+    }
+
+    void addParsedLine(String text) {
+        lines.add(SdpLine.parse(text));
+    }
+
+    /**
+     * Formats listed in the m-line, payload types for RTP media.
+     */
+    public List<String> formats() {
+        return Collections.unmodifiableList(formats);
+    }
+
+    /**
+     * Lines of this section in order, the m-line excluded.
+     */
+    public List<SdpLine> lines() {
+        return Collections.unmodifiableList(lines);
+    }
+
+    /**
+     * Lines of this section of type |type|, in order.
+     */
+    public <T extends SdpLine> List<T> lines(Class<T> type) {
+        ArrayList<T> result = new ArrayList<>();
+        for (SdpLine line : lines) {
+            if (type.isInstance(line)) {
+                result.add(type.cast(line));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Value of the a=mid attribute, null if there is none.
+     */
+    public String mid() {
+        for (SdpLine line : lines) {
+            if (line.text.startsWith("a=mid:")) {
+                return line.text.substring("a=mid:".length());
+            }
+        }
+        return null;
+    }
+
+    public void addLine(SdpLine line) {
+        lines.add(line);
+    }
+
+    /**
+     * Remove all a=|attribute| lines.
+     *
+     * @return true if any line has been removed.
+     */
+    public boolean removeAttribute(String attribute) {
+        boolean removed = false;
+        for (Iterator<SdpLine> it = lines.iterator(); it.hasNext(); ) {
+            if (it.next().isAttribute(attribute)) {
+                it.remove();
+                removed = true;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Keep only the formats of the codecs in |preferredCodecs|, ordered as in |preferredCodecs|,
+     * and the rtx formats associated with them, which are put last. rtpmap, fmtp and rtcp-fb
+     * lines of the removed formats are removed as well. Codec names are case insensitive. The
+     * section is left untouched if none of the preferred codecs is offered.
+     */
+    public void preferCodecs(List<String> preferredCodecs) {
+        // Payload type -> index in |preferredCodecs|, NOT_PREFERRED or RTX.
+        int[] rank = new int[MAX_PAYLOAD_TYPE + 1];
+        // Payload type -> associated payload type.
+        int[] apt = new int[MAX_PAYLOAD_TYPE + 1];
+        Arrays.fill(rank, NOT_PREFERRED);
+        Arrays.fill(apt, SdpLine.INVALID);
+
+        for (SdpLine line : lines) {
+            if (line instanceof RtpMap) {
+                RtpMap rtpMap = (RtpMap) line;
+                if (rtpMap.payloadType <= MAX_PAYLOAD_TYPE) {
+                    rank[rtpMap.payloadType] = rankOf(rtpMap.encodingName, preferredCodecs);
+                }
+            } else if (line instanceof Fmtp) {
+                Fmtp fmtp = (Fmtp) line;
+                if (fmtp.payloadType <= MAX_PAYLOAD_TYPE) {
+                    apt[fmtp.payloadType] = fmtp.apt();
+                }
+            }
+        }
+
+        boolean[] kept = new boolean[MAX_PAYLOAD_TYPE + 1];
+        boolean anyKept = false;
+        for (int pt = 0; pt <= MAX_PAYLOAD_TYPE; pt++) {
+            if (rank[pt] >= 0) {
+                kept[pt] = true;
+                anyKept = true;
+            }
+        }
+        if (!anyKept) {
+            Log.w(LOG_TAG, "None of the preferred codecs is offered, keep the m-section as is.");
+            return;
+        }
+        for (int pt = 0; pt <= MAX_PAYLOAD_TYPE; pt++) {
+            if (rank[pt] == RTX && apt[pt] >= 0 && apt[pt] <= MAX_PAYLOAD_TYPE
+                    && rank[apt[pt]] >= 0) {
+                kept[pt] = true;
+            }
+        }
+
+        int[] keptFormats = new int[formats.size()];
+        int keptCount = 0;
+        for (String format : formats) {
+            int pt = SdpLine.parseInt(format, 0, format.length());
+            if (pt != SdpLine.INVALID && pt <= MAX_PAYLOAD_TYPE && kept[pt]) {
+                keptFormats[keptCount++] = pt;
+            }
+        }
+        formats.clear();
+        for (int preferred = 0; preferred < preferredCodecs.size(); preferred++) {
+            addFormats(keptFormats, keptCount, rank, preferred);
+        }
+        addFormats(keptFormats, keptCount, rank, RTX);
+
+        for (Iterator<SdpLine> it = lines.iterator(); it.hasNext(); ) {
+            int pt = payloadTypeOf(it.next());
+            if (pt != SdpLine.INVALID && pt <= MAX_PAYLOAD_TYPE && !kept[pt]) {
+                it.remove();
+            }
+        }
+    }
+
+    private void addFormats(int[] keptFormats, int keptCount, int[] rank, int wanted) {
+        for (int i = 0; i < keptCount; i++) {
+            if (rank[keptFormats[i]] == wanted) {
+                formats.add(String.valueOf(keptFormats[i]));
+            }
+        }
+    }
+
+    private static int rankOf(String encodingName, List<String> preferredCodecs) {
+        if (encodingName.equalsIgnoreCase("rtx")) {
+            return RTX;
+        }
+        for (int i = 0; i < preferredCodecs.size(); i++) {
+            if (preferredCodecs.get(i).equalsIgnoreCase(encodingName)) {
+                return i;
+            }
+        }
+        return NOT_PREFERRED;
+    }
+
+    // Wildcard rtcp-fb lines and lines not bound to a payload type yield INVALID.
+    private static int payloadTypeOf(SdpLine line) {
+        if (line instanceof RtpMap) {
+            return ((RtpMap) line).payloadType;
+        } else if (line instanceof Fmtp) {
+            return ((Fmtp) line).payloadType;
+        } else if (line instanceof RtcpFb && ((RtcpFb) line).payloadType >= 0) {
+            return ((RtcpFb) line).payloadType;
+        }
+        return SdpLine.INVALID;
+    }
+
+    void appendTo(StringBuilder builder) {
+        builder.append("m=").append(media).append(' ').append(port).append(' ').append(proto);
+        for (String format : formats) {
+            builder.append(' ').append(format);
+        }
+        builder.append(Sdp.CRLF);
+        for (SdpLine line : lines) {
+            builder.append(line.text).append(Sdp.CRLF);
+        }
+    }
+}
+///@endcond
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base.sdp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+///@cond
+/**
+ * A session description parsed into session level lines and m-sections. An SDP is parsed once,
+ * modified in place and serialized once, lines not touched are written back verbatim.
+ */
+public final class Sdp {
+    static final String CRLF = "\r\n";
+
+    private final ArrayList<SdpLine> sessionLines = new ArrayList<>();
+    private final ArrayList<MediaSection> mediaSections = new ArrayList<>();
+    // Length of the text parsed, used to size the serialization buffer.
+    private final int sizeHint;
+
+    private Sdp(int sizeHint) {
+        this.sizeHint = sizeHint;
+    }
+
+    /**
+     * Parse |sdp|, lines may be terminated by CRLF or LF.
+     */
+    public static Sdp parse(String sdp) {
+        Sdp result = new Sdp(sdp.length());
+        MediaSection section = null;
+        int length = sdp.length();
+        int pos = 0;
+        while (pos < length) {
+            int next = sdp.indexOf('\n', pos);
+            int end;
+            if (next == -1) {
+                end = length;
+                next = length;
+            } else {
+                end = next > pos && sdp.charAt(next - 1) == '\r' ? next - 1 : next;
+                next++;
+            }
+            if (end > pos) {
+                String line = sdp.substring(pos, end);
+                MediaSection parsed = line.startsWith("m=") ? MediaSection.parse(line) : null;
+                if (parsed != null) {
+                    section = parsed;
+                    result.mediaSections.add(section);
+                } else if (section != null) {
+                    section.addParsedLine(line);
+                } else {
+                    result.sessionLines.add(SdpLine.parse(line));
+                }
+            }
+            pos = next;
+        }
+        return result;
+    }
+
+    public List<SdpLine> sessionLines() {
+        return Collections.unmodifiableList(sessionLines);
+    }
+
+    public List<MediaSection> mediaSections() {
+        return Collections.unmodifiableList(mediaSections);
+    }
+
+    /**
+     * Apply MediaSection#preferCodecs to every m-section of type |media|.
+     */
+    public Sdp preferCodecs(String media, List<String> preferredCodecs) {
+        for (MediaSection section : mediaSections) {
+            if (section.media.equals(media)) {
+                section.preferCodecs(preferredCodecs);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Remove all a=|attribute| lines, at session level and in every m-section.
+     */
+    public Sdp removeAttribute(String attribute) {
+        for (int i = sessionLines.size() - 1; i >= 0; i--) {
+            if (sessionLines.get(i).isAttribute(attribute)) {
+                sessionLines.remove(i);
+            }
+        }
+        for (MediaSection section : mediaSections) {
+            section.removeAttribute(attribute);
+        }
+        return this;
+    }
+
+    /**
+     * @return the SDP text, lines are terminated by CRLF.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(sizeHint + CRLF.length());
+        for (SdpLine line : sessionLines) {
+            builder.append(line.text).append(CRLF);
+        }
+        for (MediaSection section : mediaSections) {
+            section.appendTo(builder);
+        }
+        return builder.toString();
+    }
+}
+///@endcond
@@ -0,0 +1,260 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.base.sdp;
+
+///@cond
+/**
+ * A line of an SDP. Lines keep the text they were parsed from and are serialized back verbatim,
+ * the typed subclasses expose the fields of the attributes the SDK rewrites.
+ */
+public class SdpLine {
+    static final int INVALID = -1;
+
+    /**
+     * Text of the line, without the line terminator.
+     */
+    public final String text;
+
+    SdpLine(String text) {
+        this.text = text;
+    }
+
+    static SdpLine parse(String text) {
+        if (text.startsWith("a=rtpmap:")) {
+            return RtpMap.parse(text);
+        } else if (text.startsWith("a=fmtp:")) {
+            return Fmtp.parse(text);
+        } else if (text.startsWith("a=rtcp-fb:")) {
+            return RtcpFb.parse(text);
+        } else if (text.startsWith("a=extmap:")) {
+            return ExtMap.parse(text);
+        } else if (text.startsWith("b=")) {
+            return Bandwidth.parse(text);
+        }
+        return new SdpLine(text);
+    }
+
+    /**
+     * Whether this line is the attribute line "a=|attribute|".
+     */
+    public boolean isAttribute(String attribute) {
+        return text.length() == attribute.length() + 2 && text.startsWith("a=")
+                && text.startsWith(attribute, 2);
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+
+    // Parses the decimal number in [start, end), returns INVALID if it is not one.
+    static int parseInt(String text, int start, int end) {
+        if (start >= end || end - start > 9) {
+            return INVALID;
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return INVALID;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int spaceOrEnd(String text, int from) {
+        int space = text.indexOf(' ', from);
+        return space == -1 ? text.length() : space;
+    }
+
+    /**
+     * a=rtpmap:&lt;payload type&gt; &lt;encoding name&gt;/&lt;clock rate&gt;[/&lt;encoding
+     * parameters&gt;]
+     */
+    public static final class RtpMap extends SdpLine {
+        public final int payloadType;
+        public final String encodingName;
+        public final int clockRate;
+        // null if absent.
+        public final String encodingParameters;
+
+        public RtpMap(int payloadType, String encodingName, int clockRate,
+                String encodingParameters) {
+            this("a=rtpmap:" + payloadType + " " + encodingName + "/" + clockRate
+                            + (encodingParameters == null ? "" : "/" + encodingParameters),
+                    payloadType, encodingName, clockRate, encodingParameters);
+        }
+
+        private RtpMap(String text, int payloadType, String encodingName, int clockRate,
+                String encodingParameters) {
+            super(text);
+            this.payloadType = payloadType;
+            this.encodingName = encodingName;
+            this.clockRate = clockRate;
+            this.encodingParameters = encodingParameters;
+        }
+
+        static SdpLine parse(String text) {
+            int start = "a=rtpmap:".length();
+            int space = text.indexOf(' ', start);
+            int slash = space == -1 ? -1 : text.indexOf('/', space);
+            if (slash == -1) {
+                return new SdpLine(text);
+            }
+            int payloadType = parseInt(text, start, space);
+            int rateEnd = text.indexOf('/', slash + 1);
+            int clockRate = parseInt(text, slash + 1, rateEnd == -1 ? text.length() : rateEnd);
+            if (payloadType == INVALID || clockRate == INVALID) {
+                return new SdpLine(text);
+            }
+            return new RtpMap(text, payloadType, text.substring(space + 1, slash), clockRate,
+                    rateEnd == -1 ? null : text.substring(rateEnd + 1));
+        }
+    }
+
+    /**
+     * a=fmtp:&lt;payload type&gt; &lt;format specific parameters&gt;
+     */
+    public static final class Fmtp extends SdpLine {
+        public final int payloadType;
+        public final String parameters;
+
+        public Fmtp(int payloadType, String parameters) {
+            this("a=fmtp:" + payloadType + " " + parameters, payloadType, parameters);
+        }
+
+        private Fmtp(String text, int payloadType, String parameters) {
+            super(text);
+            this.payloadType = payloadType;
+            this.parameters = parameters;
+        }
+
+        static SdpLine parse(String text) {
+            int start = "a=fmtp:".length();
+            int space = spaceOrEnd(text, start);
+            int payloadType = parseInt(text, start, space);
+            if (payloadType == INVALID) {
+                return new SdpLine(text);
+            }
+            return new Fmtp(text, payloadType,
+                    space == text.length() ? "" : text.substring(space + 1));
+        }
+
+        /**
+         * Associated payload type of a rtx or red format, INVALID if there is none.
+         */
+        public int apt() {
+            int index = parameters.indexOf("apt=");
+            if (index == -1) {
+                return INVALID;
+            }
+            int end = parameters.indexOf(';', index);
+            return parseInt(parameters, index + "apt=".length(),
+                    end == -1 ? parameters.length() : end);
+        }
+    }
+
+    /**
+     * a=rtcp-fb:&lt;payload type|*&gt; &lt;feedback&gt;
+     */
+    public static final class RtcpFb extends SdpLine {
+        public static final int WILDCARD = -2;
+
+        public final int payloadType;
+        public final String feedback;
+
+        public RtcpFb(int payloadType, String feedback) {
+            this("a=rtcp-fb:" + (payloadType == WILDCARD ? "*" : String.valueOf(payloadType))
+                    + " " + feedback, payloadType, feedback);
+        }
+
+        private RtcpFb(String text, int payloadType, String feedback) {
+            super(text);
+            this.payloadType = payloadType;
+            this.feedback = feedback;
+        }
+
+        static SdpLine parse(String text) {
+            int start = "a=rtcp-fb:".length();
+            int space = spaceOrEnd(text, start);
+            int payloadType = space == start + 1 && text.charAt(start) == '*' ? WILDCARD
+                    : parseInt(text, start, space);
+            if (payloadType == INVALID) {
+                return new SdpLine(text);
+            }
+            return new RtcpFb(text, payloadType,
+                    space == text.length() ? "" : text.substring(space + 1));
+        }
+    }
+
+    /**
+     * a=extmap:&lt;id&gt;[/&lt;direction&gt;] &lt;uri&gt; [&lt;extension attributes&gt;]
+     */
+    public static final class ExtMap extends SdpLine {
+        public final int id;
+        // null if absent.
+        public final String direction;
+        public final String uri;
+        // null if absent.
+        public final String extensionAttributes;
+
+        private ExtMap(String text, int id, String direction, String uri,
+                String extensionAttributes) {
+            super(text);
+            this.id = id;
+            this.direction = direction;
+            this.uri = uri;
+            this.extensionAttributes = extensionAttributes;
+        }
+
+        static SdpLine parse(String text) {
+            int start = "a=extmap:".length();
+            int space = text.indexOf(' ', start);
+            if (space == -1) {
+                return new SdpLine(text);
+            }
+            int slash = text.indexOf('/', start);
+            int idEnd = slash != -1 && slash < space ? slash : space;
+            int id = parseInt(text, start, idEnd);
+            if (id == INVALID) {
+                return new SdpLine(text);
+            }
+            int uriEnd = spaceOrEnd(text, space + 1);
+            return new ExtMap(text, id,
+                    idEnd == slash ? text.substring(slash + 1, space) : null,
+                    text.substring(space + 1, uriEnd),
+                    uriEnd == text.length() ? null : text.substring(uriEnd + 1));
+        }
+    }
+
+    /**
+     * b=&lt;bandwidth type&gt;:&lt;bandwidth&gt;
+     */
+    public static final class Bandwidth extends SdpLine {
+        public final String type;
+        public final int value;
+
+        public Bandwidth(String type, int value) {
+            this("b=" + type + ":" + value, type, value);
+        }
+
+        private Bandwidth(String text, String type, int value) {
+            super(text);
+            this.type = type;
+            this.value = value;
+        }
+
+        static SdpLine parse(String text) {
+            int colon = text.indexOf(':');
+            int value = colon == -1 ? INVALID : parseInt(text, colon + 1, text.length());
+            if (value == INVALID) {
+                return new SdpLine(text);
+            }
+            return new Bandwidth(text, text.substring(2, colon), value);
+        }
+    }
+}
+///@endcond
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashSet;
+
+@RunWith(AndroidJUnit4.class)
+public class BackoffReconnectionPolicyTest {
+
+    @Test
+    public void testDelayDoublesUpToMaximum() {
+        ReconnectionPolicy policy = new BackoffReconnectionPolicy(500, 4000, 0, 60000);
+        assertEquals(500, policy.nextDelayMs(1, 0));
+        assertEquals(1000, policy.nextDelayMs(2, 500));
+        assertEquals(2000, policy.nextDelayMs(3, 1500));
+        assertEquals(4000, policy.nextDelayMs(4, 3500));
+        assertEquals(4000, policy.nextDelayMs(40, 3500));
+    }
+
+    @Test
+    public void testJitterSpreadsDelays() {
+        ReconnectionPolicy policy = new BackoffReconnectionPolicy(1000, 8000, 0.5, 60000);
+        HashSet<Long> delays = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            long delay = policy.nextDelayMs(1, 0);
+            assertTrue(delay >= 500 && delay <= 1000);
+            delays.add(delay);
+        }
+        assertTrue(delays.size() > 10);
+    }
+
+    @Test
+    public void testGivesUpWhenBudgetIsSpent() {
+        ReconnectionPolicy policy = new BackoffReconnectionPolicy(1000, 8000, 0, 10000);
+        assertEquals(8000, policy.nextDelayMs(4, 2000));
+        assertEquals(-1, policy.nextDelayMs(5, 9000));
+    }
+}
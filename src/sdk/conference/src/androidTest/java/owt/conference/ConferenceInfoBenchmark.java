@@ -0,0 +1,338 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.fail;
+
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+@RunWith(AndroidJUnit4.class)
+public class ConferenceInfoBenchmark {
+    private static final String TAG = "ConferenceInfoBenchmark";
+    private static final int ATTENDEES = 500;
+    private static final int EVENTS = 10000;
+    private static final int ROUNDS = 5;
+
+    private static final int JOIN = 0;
+    private static final int LEAVE = 1;
+    private static final int ADD = 2;
+    private static final int REMOVE = 3;
+    private static final int UPDATE = 4;
+
+    private static final int[] ROOM_SIZES = {50, 500, 5000};
+
+    private static final class Event {
+        final int type;
+        final String id;
+        final Participant participant;
+        final RemoteStream remoteStream;
+
+        Event(int type, String id, Participant participant, RemoteStream remoteStream) {
+            this.type = type;
+            this.id = id;
+            this.participant = participant;
+            this.remoteStream = remoteStream;
+        }
+    }
+
+    @Test
+    public void testLookupsAndSnapshots() throws Exception {
+        ConferenceInfo info = new ConferenceInfo(roomInfo(3));
+        assertEquals(3, info.getParticipants().size());
+        assertEquals("participant-0", info.self().id);
+        List<RemoteStream> streams = info.getRemoteStreams();
+        assertSame(streams, info.getRemoteStreams());
+
+        RemoteStream removed = info.removeRemoteStream("stream-1");
+        assertEquals("stream-1", removed.id());
+        assertNull(info.removeRemoteStream("stream-1"));
+        assertNull(info.getRemoteStream("stream-1"));
+        // Snapshots taken before a change are left untouched.
+        assertEquals(3, streams.size());
+        assertEquals(2, info.getRemoteStreams().size());
+
+        info.addRemoteStream(removed);
+        List<String> ids = new ArrayList<>();
+        for (RemoteStream remoteStream : info.getRemoteStreams()) {
+            ids.add(remoteStream.id());
+        }
+        assertEquals("[stream-0, stream-2, stream-1]", ids.toString());
+        assertEquals("participant-2", info.removeParticipant("participant-2").id);
+        assertEquals(2, info.getParticipants().size());
+    }
+
+    @Test
+    public void testEntriesAreDecodedOnFirstAccess() throws Exception {
+        JSONObject roomInfo = roomInfo(3);
+        roomInfo.getJSONObject("room").getJSONArray("streams").getJSONObject(1).remove("info");
+        ConferenceInfo info = new ConferenceInfo(roomInfo);
+        RemoteStream first = info.getRemoteStream("stream-0");
+        assertSame(first, info.getRemoteStream("stream-0"));
+        assertEquals(1, first.publicationSettings.videoPublicationSettings.size());
+        // The malformed stream is dropped when decoded, the others keep their order.
+        assertNull(info.getRemoteStream("stream-1"));
+        List<RemoteStream> streams = info.getRemoteStreams();
+        assertEquals(2, streams.size());
+        assertSame(first, streams.get(0));
+        assertEquals("stream-2", streams.get(1).id());
+        assertSame(info.self(), info.getParticipants().get(0));
+    }
+
+    @Test
+    public void testMalformedSelfFailsJoin() throws Exception {
+        JSONObject roomInfo = roomInfo(3);
+        JSONArray participants = roomInfo.getJSONObject("room").getJSONArray("participants");
+        // Another participant being malformed only drops that participant.
+        participants.getJSONObject(1).remove("role");
+        ConferenceInfo info = new ConferenceInfo(roomInfo);
+        assertEquals("participant-0", info.self().id);
+        assertEquals(2, info.getParticipants().size());
+
+        participants.getJSONObject(0).remove("role");
+        try {
+            new ConferenceInfo(roomInfo);
+            fail("The malformed info of the client itself is expected to fail the join.");
+        } catch (JSONException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void benchmarkJoin() throws Exception {
+        for (int size : ROOM_SIZES) {
+            JSONObject roomInfo = roomInfo(size);
+            long eagerNs = Long.MAX_VALUE;
+            long lazyNs = Long.MAX_VALUE;
+            long firstAccessNs = Long.MAX_VALUE;
+            long eagerBytes = 0;
+            long lazyBytes = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                long used = usedMemory();
+                long start = System.nanoTime();
+                LegacyConferenceInfo legacy = new LegacyConferenceInfo(roomInfo);
+                eagerNs = Math.min(eagerNs, System.nanoTime() - start);
+                eagerBytes = usedMemory() - used;
+                assertEquals(size, legacy.remoteStreams.size());
+                legacy = null;
+
+                used = usedMemory();
+                start = System.nanoTime();
+                ConferenceInfo info = new ConferenceInfo(roomInfo);
+                lazyNs = Math.min(lazyNs, System.nanoTime() - start);
+                lazyBytes = usedMemory() - used;
+                start = System.nanoTime();
+                assertEquals(size, info.getRemoteStreams().size());
+                firstAccessNs = Math.min(firstAccessNs, System.nanoTime() - start);
+                info = null;
+            }
+            Log.i(TAG, "Join of a room of " + size + ": eager " + eagerNs / 1000 + " us "
+                    + eagerBytes / 1024 + " KiB, lazy " + lazyNs / 1000 + " us "
+                    + lazyBytes / 1024 + " KiB, first getRemoteStreams " + firstAccessNs / 1000
+                    + " us");
+        }
+    }
+
+    @Test
+    public void benchmarkEventReplay() throws Exception {
+        List<Event> events = events();
+        long legacyNs = Long.MAX_VALUE;
+        long indexedNs = Long.MAX_VALUE;
+        int sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            LegacyConferenceInfo legacy = new LegacyConferenceInfo(roomInfo(ATTENDEES));
+            long start = System.nanoTime();
+            sink += replay(legacy, events);
+            legacyNs = Math.min(legacyNs, System.nanoTime() - start);
+
+            ConferenceInfo info = new ConferenceInfo(roomInfo(ATTENDEES));
+            start = System.nanoTime();
+            sink += replay(info, events);
+            indexedNs = Math.min(indexedNs, System.nanoTime() - start);
+
+            assertEquals(legacy.participants.size(), info.getParticipants().size());
+            assertEquals(legacy.remoteStreams.size(), info.getRemoteStreams().size());
+        }
+        Log.i(TAG, EVENTS + " events in a room of " + ATTENDEES + ": linear scan "
+                + legacyNs / 1000 + " us, id index " + indexedNs / 1000 + " us, speed up "
+                + String.format(java.util.Locale.US, "%.1fx", (double) legacyNs / indexedNs)
+                + " [" + sink + "]");
+    }
+
+    // Same bookkeeping as ConferenceClient does on stream and participant events.
+    private static int replay(ConferenceInfo info, List<Event> events) {
+        int found = 0;
+        for (Event event : events) {
+            switch (event.type) {
+                case JOIN:
+                    info.addParticipant(event.participant);
+                    break;
+                case LEAVE:
+                    found += info.removeParticipant(event.id) != null ? 1 : 0;
+                    break;
+                case ADD:
+                    info.addRemoteStream(event.remoteStream);
+                    break;
+                case REMOVE:
+                    found += info.removeRemoteStream(event.id) != null ? 1 : 0;
+                    break;
+                case UPDATE:
+                    found += info.getRemoteStream(event.id) != null ? 1 : 0;
+                    break;
+            }
+        }
+        return found;
+    }
+
+    private static int replay(LegacyConferenceInfo info, List<Event> events) {
+        int found = 0;
+        for (Event event : events) {
+            switch (event.type) {
+                case JOIN:
+                    info.participants.add(event.participant);
+                    break;
+                case LEAVE:
+                    for (Participant participant : info.participants) {
+                        if (participant.id.equals(event.id)) {
+                            info.participants.remove(participant);
+                            found++;
+                            break;
+                        }
+                    }
+                    break;
+                case ADD:
+                    info.remoteStreams.add(event.remoteStream);
+                    break;
+                case REMOVE:
+                    for (RemoteStream remoteStream : info.remoteStreams) {
+                        if (remoteStream.id().equals(event.id)) {
+                            info.remoteStreams.remove(remoteStream);
+                            found++;
+                            break;
+                        }
+                    }
+                    break;
+                case UPDATE:
+                    for (RemoteStream remoteStream : info.remoteStreams) {
+                        if (remoteStream.id().equals(event.id)) {
+                            found++;
+                        }
+                    }
+                    break;
+            }
+        }
+        return found;
+    }
+
+    // Join and leave storms with layout updates in between, every attendee publishes a stream.
+    private static List<Event> events() throws Exception {
+        Random random = new Random(42);
+        List<Event> events = new ArrayList<>();
+        List<Integer> present = new ArrayList<>();
+        for (int i = 0; i < ATTENDEES; i++) {
+            present.add(i);
+        }
+        int next = ATTENDEES;
+        while (events.size() < EVENTS) {
+            int kind = random.nextInt(4);
+            if (kind == 0 && !present.isEmpty()) {
+                int attendee = present.remove(random.nextInt(present.size()));
+                events.add(new Event(REMOVE, "stream-" + attendee, null, null));
+                events.add(new Event(LEAVE, "participant-" + attendee, null, null));
+            } else if (kind == 1) {
+                int attendee = next++;
+                present.add(attendee);
+                events.add(new Event(JOIN, null, new Participant(participantInfo(attendee)),
+                        null));
+                events.add(new Event(ADD, null, null, new RemoteStream(streamInfo(attendee))));
+            } else if (!present.isEmpty()) {
+                int attendee = present.get(random.nextInt(present.size()));
+                events.add(new Event(UPDATE, "stream-" + attendee, null, null));
+            }
+        }
+        return events;
+    }
+
+    private static JSONObject roomInfo(int attendees) throws Exception {
+        JSONArray participants = new JSONArray();
+        JSONArray streams = new JSONArray();
+        for (int i = 0; i < attendees; i++) {
+            participants.put(participantInfo(i));
+            streams.put(streamInfo(i));
+        }
+        JSONObject room = new JSONObject();
+        room.put("id", "room");
+        room.put("participants", participants);
+        room.put("streams", streams);
+        JSONObject info = new JSONObject();
+        info.put("id", "participant-0");
+        info.put("room", room);
+        return info;
+    }
+
+    private static JSONObject participantInfo(int attendee) throws Exception {
+        return new JSONObject("{\"id\":\"participant-" + attendee
+                + "\",\"role\":\"presenter\",\"user\":\"user-" + attendee + "\"}");
+    }
+
+    private static JSONObject streamInfo(int attendee) throws Exception {
+        return new JSONObject("{\"id\":\"stream-" + attendee + "\",\"type\":\"forward\","
+                + "\"info\":{\"owner\":\"participant-" + attendee + "\","
+                + "\"attributes\":{\"label\":\"camera\"}},\"media\":{"
+                + "\"audio\":{\"source\":\"mic\",\"format\":{\"codec\":\"opus\","
+                + "\"sampleRate\":48000,\"channelNum\":2},\"optional\":{\"format\":["
+                + "{\"codec\":\"pcmu\"},{\"codec\":\"pcma\"}]}},"
+                + "\"video\":{\"source\":\"camera\",\"original\":[{\"format\":"
+                + "{\"codec\":\"vp8\"},\"parameters\":{\"resolution\":{\"width\":640,"
+                + "\"height\":480},\"framerate\":30}}],\"optional\":{\"format\":["
+                + "{\"codec\":\"h264\"},{\"codec\":\"vp9\"}],\"parameters\":{"
+                + "\"resolution\":[{\"width\":320,\"height\":240}],\"framerate\":[15,24],"
+                + "\"bitrate\":[\"x0.8\",\"x0.6\"],\"keyFrameInterval\":[30,60]}}}}}");
+    }
+
+    // Heap in use after a collection, retained by what was built since the previous call.
+    private static long usedMemory() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            runtime.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    // ConferenceInfo as implemented before the id index and the lazy decoding, kept as the
+    // benchmark baseline.
+    private static final class LegacyConferenceInfo {
+        final List<Participant> participants =
+                Collections.synchronizedList(new ArrayList<Participant>());
+        final List<RemoteStream> remoteStreams =
+                Collections.synchronizedList(new ArrayList<RemoteStream>());
+
+        LegacyConferenceInfo(JSONObject conferenceInfo) throws Exception {
+            JSONObject room = conferenceInfo.getJSONObject("room");
+            JSONArray participantsInfo = room.getJSONArray("participants");
+            for (int i = 0; i < participantsInfo.length(); i++) {
+                participants.add(new Participant(participantsInfo.getJSONObject(i)));
+            }
+            JSONArray streamsInfo = room.getJSONArray("streams");
+            for (int i = 0; i < streamsInfo.length(); i++) {
+                remoteStreams.add(new RemoteStream(streamsInfo.getJSONObject(i)));
+            }
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.webrtc.IceCandidate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(AndroidJUnit4.class)
+public class IceCandidateCoalescerTest {
+    private static final long WINDOW_MS = 50;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final IceCandidateCoalescer.Counters counters = new IceCandidateCoalescer.Counters();
+    // Accessed on |executor| only.
+    private final List<List<IceCandidate>> sent = new ArrayList<>();
+    private final IceCandidateCoalescer coalescer = new IceCandidateCoalescer(WINDOW_MS,
+            scheduler, executor, candidates -> sent.add(candidates), counters);
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void testFirstCandidateIsNotDelayed() throws Exception {
+        run(() -> coalescer.add(candidate(0)));
+        assertEquals(1, sentCount());
+    }
+
+    @Test
+    public void testBurstIsCoalesced() throws Exception {
+        run(() -> {
+            for (int i = 0; i < 10; i++) {
+                coalescer.add(candidate(i));
+            }
+        });
+        assertEquals(1, sentCount());
+        Thread.sleep(WINDOW_MS * 4);
+        assertEquals(2, sentCount());
+        run(() -> {
+            assertEquals(1, sent.get(0).size());
+            assertEquals(9, sent.get(1).size());
+        });
+        assertEquals(10, counters.candidates.get());
+        assertEquals(8, counters.emitsSaved());
+        assertTrue(counters.addedLatencyMs.get() > 0);
+    }
+
+    @Test
+    public void testEndOfGatheringFlushes() throws Exception {
+        run(() -> {
+            coalescer.add(candidate(0));
+            coalescer.add(candidate(1));
+            coalescer.add(candidate(2));
+            coalescer.flush();
+        });
+        assertEquals(2, sentCount());
+        // The window is closed, the next candidate is sent right away.
+        run(() -> coalescer.add(candidate(3)));
+        assertEquals(3, sentCount());
+    }
+
+    @Test
+    public void testQueuedCandidatesAreSentTogether() throws Exception {
+        final List<IceCandidate> queued = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            queued.add(candidate(i));
+        }
+        run(() -> coalescer.addAll(queued));
+        assertEquals(1, sentCount());
+        assertEquals(4, counters.emitsSaved());
+    }
+
+    @Test
+    public void testDisposeDropsPendingCandidates() throws Exception {
+        run(() -> {
+            coalescer.add(candidate(0));
+            coalescer.add(candidate(1));
+            coalescer.dispose();
+        });
+        Thread.sleep(WINDOW_MS * 2);
+        assertEquals(1, sentCount());
+    }
+
+    private static IceCandidate candidate(int index) {
+        return new IceCandidate("0", 0,
+                "candidate:" + index + " 1 udp 2122260223 192.168.1.2 5000" + index + " typ host");
+    }
+
+    private int sentCount() throws Exception {
+        final int[] count = new int[1];
+        run(() -> count[0] = sent.size());
+        return count[0];
+    }
+
+    private void run(final Runnable runnable) throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Throwable[] error = new Throwable[1];
+        executor.execute(() -> {
+            try {
+                runnable.run();
+            } catch (Throwable e) {
+                error[0] = e;
+            }
+            latch.countDown();
+        });
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+        if (error[0] instanceof AssertionError) {
+            throw (AssertionError) error[0];
+        } else if (error[0] != null) {
+            throw new RuntimeException(error[0]);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import static junit.framework.Assert.assertEquals;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import owt.conference.ConferenceTransport.Ack;
+
+@RunWith(AndroidJUnit4.class)
+public class OfflineMessageQueueTest {
+
+    private static class RecordingSender implements OfflineMessageQueue.Sender {
+        final List<String> sent = new ArrayList<>();
+
+        @Override
+        public void send(String type, JSONObject msg, Ack ack) {
+            sent.add(type + " " + msg);
+            if (ack != null) {
+                ack.call("ok");
+            }
+        }
+    }
+
+    private static class RecordingAck implements Ack {
+        final List<String> results = new ArrayList<>();
+
+        @Override
+        public void call(Object... args) {
+            results.add(args[0].toString());
+        }
+    }
+
+    private static JSONObject control(String id, String operation, String kind)
+            throws Exception {
+        return new JSONObject().put("id", id).put("operation", operation).put("data", kind);
+    }
+
+    private static JSONObject candidate(String id, String sdp) throws Exception {
+        return new JSONObject().put("id", id).put("signaling", new JSONObject()
+                .put("type", "candidate")
+                .put("candidate", new JSONObject().put("candidate", sdp)));
+    }
+
+    @Test
+    public void testLatestTrackControlIsKept() throws Exception {
+        OfflineMessageQueue queue = new OfflineMessageQueue(16, false, id -> true);
+        RecordingAck muteAck = new RecordingAck();
+        RecordingAck unmuteAck = new RecordingAck();
+        queue.add("stream-control", control("pub", "pause", "audio"), muteAck);
+        queue.add("stream-control", control("pub", "pause", "video"), null);
+        queue.add("stream-control", control("pub", "play", "audio"), unmuteAck);
+
+        RecordingSender sender = new RecordingSender();
+        queue.flush(sender);
+        assertEquals(Arrays.asList(
+                "stream-control " + control("pub", "pause", "video"),
+                "stream-control " + control("pub", "play", "audio")), sender.sent);
+        // The ack of the message superseded gets the result of the one kept.
+        assertEquals(Arrays.asList("ok"), muteAck.results);
+        assertEquals(Arrays.asList("ok"), unmuteAck.results);
+        assertEquals(1, queue.counters().coalesced.get());
+    }
+
+    @Test
+    public void testCandidatesOfDeadChannelsAreDropped() throws Exception {
+        final HashSet<String> alive = new HashSet<>(Arrays.asList("sub-1"));
+        OfflineMessageQueue queue = new OfflineMessageQueue(16, false, alive::contains);
+        queue.add("soac", candidate("sub-1", "a=candidate:1"), null);
+        queue.add("soac", candidate("sub-2", "a=candidate:2"), null);
+        queue.add("soac", candidate("sub-1", "a=candidate:3"), null);
+
+        RecordingSender sender = new RecordingSender();
+        queue.flush(sender);
+        assertEquals(Arrays.asList("soac " + candidate("sub-1", "a=candidate:1"),
+                "soac " + candidate("sub-1", "a=candidate:3")), sender.sent);
+        assertEquals(1, queue.counters().droppedDeadChannel.get());
+    }
+
+    @Test
+    public void testCandidatesAreMergedUntilAnotherSoac() throws Exception {
+        OfflineMessageQueue queue = new OfflineMessageQueue(16, true, id -> true);
+        queue.add("soac", candidate("sub", "a=candidate:1"), null);
+        queue.add("soac", candidate("sub", "a=candidate:2"), null);
+        queue.add("soac", new JSONObject().put("id", "sub").put("signaling",
+                new JSONObject().put("type", "removed-candidates")), null);
+        queue.add("soac", candidate("sub", "a=candidate:3"), null);
+
+        RecordingSender sender = new RecordingSender();
+        queue.flush(sender);
+        assertEquals(3, sender.sent.size());
+        JSONObject merged = new JSONObject(sender.sent.get(0).substring("soac ".length()));
+        assertEquals("candidates", merged.getJSONObject("signaling").getString("type"));
+        assertEquals(2, merged.getJSONObject("signaling").getJSONArray("candidates").length());
+        assertEquals("soac " + candidate("sub", "a=candidate:3"), sender.sent.get(2));
+    }
+
+    @Test
+    public void testOverflowDropsOldest() throws Exception {
+        OfflineMessageQueue queue = new OfflineMessageQueue(2, false, id -> true);
+        RecordingAck droppedAck = new RecordingAck();
+        queue.add("text", new JSONObject().put("message", "1"), droppedAck);
+        queue.add("text", new JSONObject().put("message", "2"), null);
+        queue.add("text", new JSONObject().put("message", "3"), null);
+        assertEquals(Arrays.asList("error"), droppedAck.results);
+
+        RecordingSender sender = new RecordingSender();
+        queue.flush(sender);
+        assertEquals(2, sender.sent.size());
+        assertEquals(1, queue.counters().droppedOverflow.get());
+
+        RecordingAck clearedAck = new RecordingAck();
+        queue.add("text", new JSONObject().put("message", "4"), clearedAck);
+        queue.clear("Disconnected.");
+        assertEquals(Arrays.asList("error"), clearedAck.results);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Base64;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import owt.base.ActionCallback;
+import owt.base.OwtError;
+
+@RunWith(AndroidJUnit4.class)
+public class ParticipantBatchTest {
+
+    // Conference server with no one else in the room, acks every message with "ok".
+    private static class FakeTransport implements ConferenceTransport {
+        volatile Listener listener;
+
+        @Override
+        public void connect(String url, Listener listener) {
+            this.listener = listener;
+            listener.onConnected();
+        }
+
+        @Override
+        public void disconnect() {
+            listener.onDisconnected();
+        }
+
+        @Override
+        public boolean isConnected() {
+            return true;
+        }
+
+        @Override
+        public void emit(String event, Object message, Ack ack) {
+            if (ack == null) {
+                return;
+            }
+            try {
+                if (event.equals("login")) {
+                    JSONObject room = new JSONObject().put("id", "room")
+                            .put("participants", new JSONArray().put(participant("me")))
+                            .put("streams", new JSONArray());
+                    ack.call("ok", new JSONObject().put("id", "me").put("room", room)
+                            .put("reconnectionTicket", ticket()));
+                } else if (event.equals("refreshReconnectionTicket")) {
+                    ack.call("ok", ticket());
+                } else {
+                    ack.call("ok");
+                }
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        void join(String id) throws Exception {
+            listener.onEvent("participant",
+                    new JSONObject().put("action", "join").put("data", participant(id)));
+        }
+
+        void leave(String id) throws Exception {
+            listener.onEvent("participant",
+                    new JSONObject().put("action", "leave").put("data", id));
+        }
+    }
+
+    private static class BatchObserver implements ConferenceClient.ParticipantBatchObserver {
+        final List<String> batches = new ArrayList<>();
+        final CountDownLatch delivered = new CountDownLatch(1);
+
+        @Override
+        public void onParticipantsChanged(List<Participant> joined, List<Participant> left) {
+            batches.add(ids(joined) + " " + ids(left));
+            delivered.countDown();
+        }
+
+        @Override
+        public void onParticipantJoined(Participant participant) {
+            throw new AssertionError("onParticipantsChanged is expected instead.");
+        }
+
+        @Override
+        public void onStreamAdded(RemoteStream remoteStream) {
+        }
+
+        @Override
+        public void onMessageReceived(String message, String from, String to) {
+        }
+
+        @Override
+        public void onServerDisconnected() {
+        }
+    }
+
+    private static String ticket() throws Exception {
+        JSONObject ticket = new JSONObject()
+                .put("notAfter", String.valueOf(System.currentTimeMillis() + 60000));
+        return Base64.encodeToString(ticket.toString().getBytes(), Base64.NO_WRAP);
+    }
+
+    private static JSONObject participant(String id) throws Exception {
+        return new JSONObject().put("id", id).put("role", "viewer").put("user", id);
+    }
+
+    private static List<String> ids(List<Participant> participants) {
+        List<String> ids = new ArrayList<>();
+        for (Participant participant : participants) {
+            ids.add(participant.id);
+        }
+        return ids;
+    }
+
+    @Test
+    public void testJoinsAndLeavesAreBatched() throws Exception {
+        final FakeTransport transport = new FakeTransport();
+        ConferenceClient client = new ConferenceClient(ConferenceClientConfiguration.builder()
+                .setTransportFactory(() -> transport)
+                .setParticipantBatchInterval(200)
+                .build());
+        BatchObserver observer = new BatchObserver();
+        client.addObserver(observer);
+        final CountDownLatch joined = new CountDownLatch(1);
+        String token = Base64.encodeToString(
+                "{\"secure\":false,\"host\":\"localhost:8080\"}".getBytes(), Base64.NO_WRAP);
+        client.join(token, new ActionCallback<ConferenceInfo>() {
+            @Override
+            public void onSuccess(ConferenceInfo result) {
+                joined.countDown();
+            }
+
+            @Override
+            public void onFailure(OwtError error) {
+            }
+        });
+        assertTrue(joined.await(5, TimeUnit.SECONDS));
+
+        transport.join("a");
+        transport.join("b");
+        transport.join("c");
+        transport.leave("b");
+        transport.leave("me");
+        assertTrue(observer.delivered.await(5, TimeUnit.SECONDS));
+        assertEquals("[[a, c] [me]]", observer.batches.toString());
+        assertEquals("[a, c]", ids(client.info().getParticipants()).toString());
+    }
+}
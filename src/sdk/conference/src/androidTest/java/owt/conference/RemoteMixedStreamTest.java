@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(AndroidJUnit4.class)
+public class RemoteMixedStreamTest {
+
+    private static class Observer implements RemoteMixedStream.LayoutChangeObserver {
+        final List<RemoteMixedStream.LayoutChange> changes = new ArrayList<>();
+
+        @Override
+        public void onLayoutChange(RemoteMixedStream.LayoutChange change) {
+            changes.add(change);
+        }
+
+        @Override
+        public void onLayoutChange(List<RemoteMixedStream.Region> regions) {
+            throw new AssertionError("onLayoutChange(LayoutChange) is expected instead.");
+        }
+
+        @Override
+        public void onActiveAudioInputChange(String activeAudioInput) {
+        }
+
+        @Override
+        public void onEnded() {
+        }
+
+        @Override
+        public void onUpdated() {
+        }
+    }
+
+    // |streams| in region order, the first region takes the left half.
+    private static JSONArray layout(String... streams) throws Exception {
+        JSONArray layout = new JSONArray();
+        for (int i = 0; i < streams.length; i++) {
+            layout.put(new JSONObject("{\"stream\":\"" + streams[i] + "\",\"region\":{"
+                    + "\"id\":\"" + (i + 1) + "\",\"shape\":\"rectangle\",\"area\":{"
+                    + "\"left\":\"" + (i == 0 ? "0" : "1/2") + "\",\"top\":\"0\","
+                    + "\"width\":\"1/2\",\"height\":\"1\"}}}"));
+        }
+        return layout;
+    }
+
+    private static List<String> streams(List<RemoteMixedStream.Region> regions) {
+        List<String> streams = new ArrayList<>();
+        for (RemoteMixedStream.Region region : regions) {
+            streams.add(region.streamId);
+        }
+        return streams;
+    }
+
+    @Test
+    public void testLayoutChangeIsDiffed() throws Exception {
+        RemoteMixedStream mixed = new RemoteMixedStream(new JSONObject(
+                "{\"id\":\"mixed\",\"type\":\"mixed\",\"media\":{},\"info\":{\"label\":"
+                        + "\"common\",\"layout\":" + layout("a", "b") + "}}"));
+        Observer observer = new Observer();
+        mixed.addObserver(observer);
+        RemoteMixedStream.Region regionA = mixed.regions().get(0);
+
+        mixed.updateRegions(layout("a", "b"));
+        assertTrue(observer.changes.isEmpty());
+
+        // Speaker switching: c replaces b, a stays where it was.
+        mixed.updateRegions(layout("a", "c"));
+        RemoteMixedStream.LayoutChange change = observer.changes.get(0);
+        assertEquals("[a, c]", streams(change.regions).toString());
+        assertEquals("[c]", streams(change.added).toString());
+        assertEquals("[b]", streams(change.removed).toString());
+        assertTrue(change.moved.isEmpty());
+        assertSame(regionA, mixed.regions().get(0));
+        assertSame(change.regions, mixed.regions());
+
+        mixed.updateRegions(layout("c", "a"));
+        change = observer.changes.get(1);
+        assertEquals("[c, a]", streams(change.moved).toString());
+        assertTrue(change.added.isEmpty() && change.removed.isEmpty());
+    }
+
+    @Test
+    public void testDuplicateStreamsAndRegionsWithoutStream() throws Exception {
+        JSONArray layout = layout("a", "a");
+        // Two regions showing no stream, without an id.
+        layout.put(new JSONObject("{}"));
+        layout.put(new JSONObject("{}"));
+        RemoteMixedStream mixed = new RemoteMixedStream(new JSONObject(
+                "{\"id\":\"mixed\",\"type\":\"mixed\",\"media\":{},\"info\":{\"label\":"
+                        + "\"common\",\"layout\":" + layout + "}}"));
+        Observer observer = new Observer();
+        mixed.addObserver(observer);
+        List<RemoteMixedStream.Region> regions = mixed.regions();
+
+        mixed.updateRegions(new JSONArray(layout.toString()));
+        assertTrue(observer.changes.isEmpty());
+        assertSame(regions, mixed.regions());
+
+        // The second of each is gone.
+        layout = layout("a");
+        layout.put(new JSONObject("{}"));
+        mixed.updateRegions(layout);
+        RemoteMixedStream.LayoutChange change = observer.changes.get(0);
+        assertEquals("[a, ]", streams(change.regions).toString());
+        assertEquals("[a, ]", streams(change.removed).toString());
+        assertSame(regions.get(1), change.removed.get(0));
+        assertSame(regions.get(3), change.removed.get(1));
+        assertTrue(change.added.isEmpty() && change.moved.isEmpty());
+        assertSame(regions.get(0), mixed.regions().get(0));
+        assertSame(regions.get(2), mixed.regions().get(1));
+    }
+}
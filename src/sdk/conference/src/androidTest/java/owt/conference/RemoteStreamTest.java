@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotSame;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import owt.base.Stream.StreamSourceInfo.VideoSourceInfo;
+
+@RunWith(AndroidJUnit4.class)
+public class RemoteStreamTest {
+
+    private static class Observer implements RemoteStream.RemoteStreamObserver {
+        final List<Set<RemoteStream.UpdatedPart>> updates = new ArrayList<>();
+
+        @Override
+        public void onUpdated(Set<RemoteStream.UpdatedPart> updatedParts) {
+            updates.add(updatedParts);
+        }
+
+        @Override
+        public void onEnded() {
+        }
+
+        @Override
+        public void onUpdated() {
+            throw new AssertionError("onUpdated(Set) is expected instead.");
+        }
+    }
+
+    private static JSONObject streamInfo(String videoSource, String label) throws Exception {
+        return new JSONObject("{\"id\":\"stream\",\"type\":\"forward\",\"info\":{"
+                + "\"owner\":\"participant\",\"attributes\":{\"label\":\"" + label + "\"}},"
+                + "\"media\":{\"audio\":{\"source\":\"mic\",\"format\":{\"codec\":\"opus\"}},"
+                + "\"video\":{\"source\":\"" + videoSource + "\",\"original\":[{\"format\":"
+                + "{\"codec\":\"vp8\"}}],\"optional\":{\"format\":[{\"codec\":\"h264\"}]}}}}");
+    }
+
+    @Test
+    public void testOnlyChangedPartsAreUpdated() throws Exception {
+        RemoteStream remoteStream = new RemoteStream(streamInfo("camera", "a"));
+        Observer observer = new Observer();
+        remoteStream.addObserver(observer);
+        PublicationSettings publicationSettings = remoteStream.publicationSettings;
+        SubscriptionCapabilities capabilities = remoteStream.extraSubscriptionCapability;
+
+        remoteStream.updateStreamInfo(streamInfo("camera", "b"), true);
+        assertEquals(EnumSet.of(RemoteStream.UpdatedPart.ATTRIBUTES), observer.updates.get(0));
+        assertSame(publicationSettings, remoteStream.publicationSettings);
+        assertSame(capabilities, remoteStream.extraSubscriptionCapability);
+        assertEquals("b", remoteStream.getAttributes().get("label"));
+
+        remoteStream.updateStreamInfo(streamInfo("screen-cast", "b"), true);
+        assertEquals(EnumSet.of(RemoteStream.UpdatedPart.VIDEO), observer.updates.get(1));
+        assertNotSame(publicationSettings, remoteStream.publicationSettings);
+        assertSame(publicationSettings.audioPublicationSettings,
+                remoteStream.publicationSettings.audioPublicationSettings);
+        assertSame(capabilities.audioSubscriptionCapabilities,
+                remoteStream.extraSubscriptionCapability.audioSubscriptionCapabilities);
+        assertEquals(VideoSourceInfo.SCREEN_CAST,
+                remoteStream.getStreamSourceInfo().videoSourceInfo);
+    }
+
+    private static JSONObject videoInfo(String original) throws Exception {
+        return new JSONObject("{\"id\":\"stream\",\"info\":{\"owner\":\"participant\"},"
+                + "\"media\":{\"video\":{\"source\":\"camera\",\"original\":[" + original
+                + "]}}}");
+    }
+
+    @Test
+    public void testSectionsAreComparedByValue() throws Exception {
+        RemoteStream remoteStream = new RemoteStream(videoInfo("{\"format\":{\"codec\":\"vp8\"},"
+                + "\"parameters\":{\"framerate\":30,\"resolution\":{\"width\":640,"
+                + "\"height\":480}}}"));
+        Observer observer = new Observer();
+        remoteStream.addObserver(observer);
+
+        // Same values, other key order.
+        remoteStream.updateStreamInfo(videoInfo("{\"parameters\":{\"resolution\":{"
+                + "\"height\":480,\"width\":640},\"framerate\":30.0},"
+                + "\"format\":{\"codec\":\"vp8\"}}"), true);
+        assertTrue(observer.updates.isEmpty());
+
+        remoteStream.updateStreamInfo(videoInfo("{\"format\":{\"codec\":\"vp8\"},"
+                + "\"parameters\":{\"framerate\":30,\"resolution\":{\"width\":1280,"
+                + "\"height\":720}}}"), true);
+        assertEquals(EnumSet.of(RemoteStream.UpdatedPart.VIDEO), observer.updates.get(0));
+    }
+
+    @Test
+    public void testUnchangedInfoIsNotNotified() throws Exception {
+        RemoteStream remoteStream = new RemoteStream(streamInfo("camera", "a"));
+        Observer observer = new Observer();
+        remoteStream.addObserver(observer);
+        remoteStream.updateStreamInfo(streamInfo("camera", "a"), true);
+        assertTrue(observer.updates.isEmpty());
+    }
+}
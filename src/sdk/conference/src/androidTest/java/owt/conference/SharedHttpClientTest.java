@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Request;
+import okhttp3.Response;
+
+@RunWith(AndroidJUnit4.class)
+public class SharedHttpClientTest {
+
+    // Keep-alive HTTP server counting the connections accepted.
+    private static class Server extends Thread {
+        final ServerSocket serverSocket = new ServerSocket(0);
+        final AtomicInteger connections = new AtomicInteger();
+        final AtomicInteger requests = new AtomicInteger();
+
+        Server() throws Exception {
+            setDaemon(true);
+        }
+
+        String url() {
+            return "http://127.0.0.1:" + serverSocket.getLocalPort() + "/";
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    final Socket socket = serverSocket.accept();
+                    connections.incrementAndGet();
+                    new Thread(() -> serve(socket)).start();
+                }
+            } catch (Exception ignored) {
+            }
+        }
+
+        private void serve(Socket socket) {
+            try {
+                BufferedReader reader =
+                        new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                OutputStream out = socket.getOutputStream();
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty()) {
+                        requests.incrementAndGet();
+                        out.write("HTTP/1.1 200 OK\r\nContent-Length: 0\r\n\r\n".getBytes());
+                        out.flush();
+                    }
+                }
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    @Test
+    public void testPreconnectedConnectionIsReused() throws Exception {
+        Server server = new Server();
+        server.start();
+        SharedHttpClient httpClient = new SharedHttpClient(null, null);
+        assertSame(httpClient.get(), httpClient.get());
+
+        assertTrue(httpClient.preconnect(server.url()));
+        for (int i = 0; i < 100 && httpClient.get().connectionPool().idleConnectionCount() == 0;
+                i++) {
+            Thread.sleep(10);
+        }
+        Response response = httpClient.get().newCall(
+                new Request.Builder().url(server.url()).build()).execute();
+        response.close();
+        assertEquals(2, server.requests.get());
+        assertEquals(1, server.connections.get());
+        server.serverSocket.close();
+    }
+
+    @Test
+    public void testPreconnectRejectsInvalidUrl() {
+        assertFalse(new SharedHttpClient(null, null).preconnect("https://"));
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Base64;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import owt.base.WorkerPool;
+
+@RunWith(AndroidJUnit4.class)
+public class SignalingChannelTest {
+
+    // In-process stand-in of the conference server, acks every message with "ok".
+    private static class FakeTransport implements ConferenceTransport {
+        final List<String> emitted = new ArrayList<>();
+        volatile Listener listener;
+        volatile boolean connected = false;
+        int connects = 0;
+
+        @Override
+        public synchronized void connect(String url, Listener listener) {
+            this.listener = listener;
+            connects++;
+            connected = true;
+            listener.onConnected();
+        }
+
+        @Override
+        public void disconnect() {
+            drop();
+        }
+
+        @Override
+        public boolean isConnected() {
+            return connected;
+        }
+
+        @Override
+        public synchronized void emit(String event, Object message, Ack ack) {
+            emitted.add(event);
+            if (ack == null) {
+                return;
+            }
+            try {
+                switch (event) {
+                    case "login":
+                        ack.call("ok", new JSONObject().put("id", "me")
+                                .put("reconnectionTicket", ticket()));
+                        break;
+                    case "relogin":
+                    case "refreshReconnectionTicket":
+                        ack.call("ok", ticket());
+                        break;
+                    default:
+                        ack.call("ok");
+                }
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        synchronized List<String> emitted() {
+            return new ArrayList<>(emitted);
+        }
+
+        void drop() {
+            connected = false;
+            listener.onDisconnected();
+        }
+    }
+
+    private static class Observer implements SignalingChannel.SignalingChannelObserver {
+        final CountDownLatch connected = new CountDownLatch(1);
+        final CountDownLatch reconnecting = new CountDownLatch(1);
+        final CountDownLatch disconnected = new CountDownLatch(1);
+        final List<String> texts = new ArrayList<>();
+
+        @Override
+        public void onRoomConnected(JSONObject info) {
+            connected.countDown();
+        }
+
+        @Override
+        public void onRoomConnectFailed(String errorMsg) {
+        }
+
+        @Override
+        public void onReconnecting() {
+            reconnecting.countDown();
+        }
+
+        @Override
+        public void onRoomDisconnected() {
+            disconnected.countDown();
+        }
+
+        @Override
+        public void onProgressMessage(JSONObject message) {
+        }
+
+        @Override
+        public void onTextMessage(String message, String from, String to) {
+            texts.add(message);
+        }
+
+        @Override
+        public void onStreamAdded(RemoteStream remoteStream) {
+        }
+
+        @Override
+        public void onStreamRemoved(String streamId) {
+        }
+
+        @Override
+        public void onStreamUpdated(String id, JSONObject updateInfo) {
+        }
+
+        @Override
+        public void onParticipantJoined(JSONObject participantInfo) {
+        }
+
+        @Override
+        public void onParticipantLeft(String participantId) {
+        }
+    }
+
+    private static String ticket() throws Exception {
+        JSONObject ticket = new JSONObject()
+                .put("notAfter", String.valueOf(System.currentTimeMillis() + 60000));
+        return Base64.encodeToString(ticket.toString().getBytes(), Base64.NO_WRAP);
+    }
+
+    private static SignalingChannel connect(FakeTransport transport, Observer observer,
+            ReconnectionPolicy policy) throws Exception {
+        String token = Base64.encodeToString(
+                "{\"secure\":false,\"host\":\"localhost:8080\"}".getBytes(), Base64.NO_WRAP);
+        SignalingChannel channel = new SignalingChannel(token, observer, policy,
+                new OfflineMessageQueue(OfflineMessageQueue.DEFAULT_CAPACITY, false, id -> true),
+                new SignalingMetrics(WorkerPool.scheduler(), SignalingMetrics.DEFAULT_TIMEOUT_MS));
+        channel.connect(() -> transport);
+        assertTrue(observer.connected.await(5, TimeUnit.SECONDS));
+        return channel;
+    }
+
+    @Test
+    public void testEventsAreDispatched() throws Exception {
+        FakeTransport transport = new FakeTransport();
+        Observer observer = new Observer();
+        connect(transport, observer, (attempt, elapsedMs) -> -1);
+        transport.listener.onEvent("text", new JSONObject().put("message", "hello")
+                .put("from", "someone"));
+        transport.listener.onEvent("unknown", null);
+        for (int i = 0; i < 100 && observer.texts.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals("hello", observer.texts.get(0));
+    }
+
+    @Test
+    public void testMessagesSentOfflineAreFlushedOnRelogin() throws Exception {
+        FakeTransport transport = new FakeTransport();
+        Observer observer = new Observer();
+        final CountDownLatch reconnectAllowed = new CountDownLatch(1);
+        SignalingChannel channel = connect(transport, observer, (attempt, elapsedMs) -> {
+            try {
+                reconnectAllowed.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ignored) {
+            }
+            return 0;
+        });
+
+        transport.drop();
+        channel.sendMsg("text", new JSONObject().put("message", "queued"), null);
+        assertTrue(observer.reconnecting.await(5, TimeUnit.SECONDS));
+        reconnectAllowed.countDown();
+        for (int i = 0; i < 100 && !transport.emitted().contains("text"); i++) {
+            Thread.sleep(10);
+        }
+        List<String> emitted = transport.emitted();
+        assertEquals(2, transport.connects);
+        assertTrue(emitted.indexOf("relogin") < emitted.indexOf("text"));
+    }
+
+    @Test
+    public void testDisconnectWhileReconnectingTriggersDisconnected() throws Exception {
+        FakeTransport transport = new FakeTransport();
+        Observer observer = new Observer();
+        SignalingChannel channel = connect(transport, observer, (attempt, elapsedMs) -> 60000);
+        transport.drop();
+        assertTrue(observer.reconnecting.await(5, TimeUnit.SECONDS));
+        channel.disconnect();
+        assertTrue(observer.disconnected.await(5, TimeUnit.SECONDS));
+        assertEquals(1, transport.connects);
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import owt.base.WorkerPool;
+import owt.conference.ConferenceTransport.Ack;
+
+@RunWith(AndroidJUnit4.class)
+public class SignalingMetricsTest {
+
+    @Test
+    public void testAcksAreTimedByType() {
+        SignalingMetrics metrics =
+                new SignalingMetrics(WorkerPool.scheduler(), SignalingMetrics.DEFAULT_TIMEOUT_MS);
+        final AtomicInteger calls = new AtomicInteger();
+        Ack ack = args -> calls.incrementAndGet();
+        metrics.track("publish", ack).call("ok");
+        metrics.track("publish", ack).call("error", "rejected");
+        // Emitted without an ack, not timed.
+        assertNull(metrics.track("text", null));
+        assertEquals(2, calls.get());
+
+        SignalingLatency publish = metrics.snapshot().get("publish");
+        assertEquals(2, publish.count);
+        assertEquals(1, publish.errors);
+        assertEquals(0, publish.timeouts);
+        long bucketed = 0;
+        for (long bucketCount : publish.bucketCounts) {
+            bucketed += bucketCount;
+        }
+        assertEquals(2, bucketed);
+        // Acked right away.
+        assertTrue(publish.percentileMs(95) <= 1000);
+        assertNull(metrics.snapshot().get("text"));
+    }
+
+    @Test
+    public void testSoacIsTimed() throws Exception {
+        SignalingMetrics metrics = new SignalingMetrics(WorkerPool.scheduler(), 20);
+        // Sent with the ack ConferenceClient sends soac messages with.
+        Ack ack = metrics.track("soac", SignalingMetrics.UNUSED_ACK);
+        ack.call("ok");
+        metrics.track("soac", SignalingMetrics.UNUSED_ACK);
+        for (int i = 0; i < 100 && metrics.snapshot().get("soac").timeouts == 0; i++) {
+            Thread.sleep(10);
+        }
+
+        SignalingLatency soac = metrics.snapshot().get("soac");
+        assertEquals(1, soac.count);
+        assertEquals(0, soac.errors);
+        assertEquals(1, soac.timeouts);
+    }
+
+    @Test
+    public void testAckedMessagesAreNotKept() {
+        SignalingMetrics metrics =
+                new SignalingMetrics(WorkerPool.scheduler(), SignalingMetrics.DEFAULT_TIMEOUT_MS);
+        Ack first = metrics.track("soac", args -> {
+        });
+        for (int i = 0; i < 1000; i++) {
+            metrics.track("soac", args -> {
+            }).call("ok");
+        }
+        // Held behind the first message, which is not acked yet.
+        assertEquals(1001, metrics.pendingCount());
+        first.call("ok");
+        assertEquals(0, metrics.pendingCount());
+        assertEquals(1001, metrics.snapshot().get("soac").count);
+    }
+
+    @Test
+    public void testLateAckCountsAsTimeout() throws Exception {
+        SignalingMetrics metrics = new SignalingMetrics(WorkerPool.scheduler(), 20);
+        final AtomicInteger calls = new AtomicInteger();
+        Ack ack = metrics.track("subscribe", args -> calls.incrementAndGet());
+        for (int i = 0; i < 100 && metrics.snapshot().get("subscribe").timeouts == 0; i++) {
+            Thread.sleep(10);
+        }
+        ack.call("ok");
+
+        SignalingLatency subscribe = metrics.snapshot().get("subscribe");
+        assertEquals(1, subscribe.timeouts);
+        assertEquals(0, subscribe.count);
+        // The ack is still forwarded.
+        assertEquals(1, calls.get());
+        assertTrue(subscribe.toString().startsWith("subscribe: count 0"));
+    }
+}
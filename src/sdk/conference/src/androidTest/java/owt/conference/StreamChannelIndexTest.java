@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+@RunWith(AndroidJUnit4.class)
+public class StreamChannelIndexTest {
+
+    @Test
+    public void testPutAndRemove() {
+        StreamChannelIndex index = new StreamChannelIndex();
+        index.put("stream", "subscription-1");
+        index.put("stream", "subscription-2");
+        index.put("other", "subscription-3");
+        assertEquals(Arrays.asList("subscription-1", "subscription-2"),
+                index.channelIds("stream"));
+
+        // A channel moves to the stream it is indexed under last.
+        index.put("other", "subscription-1");
+        assertEquals(Arrays.asList("subscription-2"), index.channelIds("stream"));
+        assertEquals(Arrays.asList("subscription-3", "subscription-1"),
+                index.channelIds("other"));
+
+        index.remove("subscription-2");
+        index.remove("unknown");
+        assertTrue(index.channelIds("stream").isEmpty());
+        index.clear();
+        assertTrue(index.channelIds("other").isEmpty());
+    }
+
+    @Test
+    public void testConcurrentTeardown() throws Exception {
+        final StreamChannelIndex index = new StreamChannelIndex();
+        final int threads = 8;
+        final int channels = 1000;
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            new Thread(() -> {
+                for (int i = 0; i < channels; i++) {
+                    String channelId = thread + "-" + i;
+                    index.put("stream-" + (i % 10), channelId);
+                    index.channelIds("stream-" + (i % 10));
+                    if (i % 2 == 0) {
+                        index.remove(channelId);
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+        int indexed = 0;
+        for (int i = 0; i < 10; i++) {
+            indexed += index.channelIds("stream-" + i).size();
+        }
+        assertEquals(threads * channels / 2, indexed);
+    }
+}
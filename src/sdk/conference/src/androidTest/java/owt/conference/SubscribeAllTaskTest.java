@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertTrue;
+
+import android.support.test.runner.AndroidJUnit4;
+
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import owt.base.ActionCallback;
+import owt.base.OwtError;
+
+@RunWith(AndroidJUnit4.class)
+public class SubscribeAllTaskTest {
+
+    // Holds subscriptions until settle() is called.
+    private static class FakeSubscriber implements SubscribeAllTask.Subscriber {
+        final List<String> started = new ArrayList<>();
+        final List<ActionCallback<Subscription>> inFlight = new ArrayList<>();
+        int maxInFlight = 0;
+
+        @Override
+        public void subscribe(RemoteStream remoteStream, SubscribeOptions options,
+                ActionCallback<Subscription> callback) {
+            started.add(remoteStream.id());
+            inFlight.add(callback);
+            maxInFlight = Math.max(maxInFlight, inFlight.size());
+        }
+
+        void settle(int index, boolean succeed) {
+            ActionCallback<Subscription> callback = inFlight.remove(index);
+            if (succeed) {
+                callback.onSuccess(null);
+            } else {
+                callback.onFailure(new OwtError("failed"));
+            }
+        }
+    }
+
+    private static class ResultHolder implements ActionCallback<SubscribeAllResult> {
+        SubscribeAllResult result = null;
+
+        @Override
+        public void onSuccess(SubscribeAllResult result) {
+            this.result = result;
+        }
+
+        @Override
+        public void onFailure(OwtError error) {
+        }
+    }
+
+    private static List<RemoteStream> streams(String... ids) throws Exception {
+        List<RemoteStream> streams = new ArrayList<>();
+        for (String id : ids) {
+            streams.add(new RemoteStream(new JSONObject(
+                    "{\"id\":\"" + id + "\",\"info\":{\"owner\":\"p\"},\"media\":{}}")));
+        }
+        return streams;
+    }
+
+    @Test
+    public void testConcurrencyLimitAndOrder() throws Exception {
+        FakeSubscriber subscriber = new FakeSubscriber();
+        ResultHolder holder = new ResultHolder();
+        new SubscribeAllTask(subscriber, streams("a", "b", "c", "d", "e"), null, 2,
+                holder).start();
+        assertEquals(Arrays.asList("a", "b"), subscriber.started);
+
+        subscriber.settle(1, true);
+        subscriber.settle(0, false);
+        assertEquals(Arrays.asList("a", "b", "c", "d"), subscriber.started);
+        while (!subscriber.inFlight.isEmpty()) {
+            subscriber.settle(0, true);
+        }
+
+        assertEquals(Arrays.asList("a", "b", "c", "d", "e"), subscriber.started);
+        assertEquals(2, subscriber.maxInFlight);
+        assertNotNull(holder.result);
+        assertEquals(Arrays.asList("b", "c", "d", "e"),
+                new ArrayList<>(holder.result.subscriptions.keySet()));
+        assertEquals(Collections.singletonList("a"),
+                new ArrayList<>(holder.result.errors.keySet()));
+    }
+
+    @Test
+    public void testEmptyListSucceedsImmediately() {
+        ResultHolder holder = new ResultHolder();
+        new SubscribeAllTask(new FakeSubscriber(), new ArrayList<>(), null, 4, holder).start();
+        assertNotNull(holder.result);
+        assertTrue(holder.result.subscriptions.isEmpty());
+        assertTrue(holder.result.errors.isEmpty());
+    }
+}
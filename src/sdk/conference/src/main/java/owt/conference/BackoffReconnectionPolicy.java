@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import static owt.base.CheckCondition.RCHECK;
+
+import java.util.Random;
+
+/**
+ * ReconnectionPolicy doubling the delay after every attempt up to a maximum, with a random part
+ * so that clients disconnected at the same time do not reconnect at the same time. Gives up once
+ * the time budget has been spent.
+ */
+public final class BackoffReconnectionPolicy implements ReconnectionPolicy {
+
+    private final long initialDelayMs;
+    private final long maxDelayMs;
+    private final double jitter;
+    private final long budgetMs;
+    private final Random random = new Random();
+
+    /**
+     * Constructor for BackoffReconnectionPolicy.
+     *
+     * @param initialDelayMs delay before the first attempt, without jitter.
+     * @param maxDelayMs maximum delay between two attempts, without jitter.
+     * @param jitter part of the delay that is random, in [0, 1]. With 0.5, a delay of 1000 ms
+     * becomes a random delay between 500 and 1000 ms.
+     * @param budgetMs time after which no attempt is made anymore.
+     */
+    public BackoffReconnectionPolicy(long initialDelayMs, long maxDelayMs, double jitter,
+            long budgetMs) {
+        RCHECK(initialDelayMs > 0);
+        RCHECK(maxDelayMs >= initialDelayMs);
+        RCHECK(jitter >= 0 && jitter <= 1);
+        RCHECK(budgetMs >= 0);
+        this.initialDelayMs = initialDelayMs;
+        this.maxDelayMs = maxDelayMs;
+        this.jitter = jitter;
+        this.budgetMs = budgetMs;
+    }
+
+    @Override
+    public long nextDelayMs(int attempt, long elapsedMs) {
+        long delay = initialDelayMs;
+        for (int i = 1; i < attempt && delay < maxDelayMs; i++) {
+            delay *= 2;
+        }
+        delay = Math.min(delay, maxDelayMs);
+        synchronized (random) {
+            delay -= (long) (delay * jitter * random.nextDouble());
+        }
+        if (elapsedMs + delay > budgetMs) {
+            return -1;
+        }
+        return delay;
+    }
+}
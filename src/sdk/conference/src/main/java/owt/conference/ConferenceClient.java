@@ -19,18 +19,28 @@ import org.webrtc.SessionDescription;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
-import io.socket.client.Ack;
 import owt.base.ActionCallback;
+import owt.base.ClientStats;
 import owt.base.LocalStream;
 import owt.base.MediaConstraints.TrackKind;
 import owt.base.OwtError;
 import owt.base.PeerConnectionChannel;
+import owt.base.QosExporter;
+import owt.base.SerialExecutor;
+import owt.base.StatsAggregator;
+import owt.base.StatsSampler;
+import owt.base.WorkerPool;
+import owt.conference.ConferenceTransport.Ack;
 
 /**
  * ConferenceClient handles PeerConnection interactions between client and server.
@@ -71,10 +81,29 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
         void onServerDisconnected();
     }
 
+    /**
+     * Interface for observing conference client events with the participant joins and leaves
+     * delivered in batches, for rooms with many participants. See
+     * ConferenceClientConfiguration.Builder.setParticipantBatchInterval.
+     */
+    public interface ParticipantBatchObserver extends ConferenceClientObserver {
+        /**
+         * Called upon Participant%s have joined or left the conference, instead of
+         * onParticipantJoined. A Participant joining and leaving within the same batch is in
+         * neither list.
+         *
+         * @param joined Participant%s joined, in the order of joining.
+         * @param left Participant%s left, in the order of leaving.
+         */
+        void onParticipantsChanged(List<Participant> joined, List<Participant> left);
+    }
+
     // All callbacks need to be triggered on |callbackExecutor|.
-    private final ExecutorService callbackExecutor = Executors.newSingleThreadExecutor();
+    private final SerialExecutor callbackExecutor = WorkerPool.newSerialExecutor();
     // key: publication/subscription id.
     private final ConcurrentHashMap<String, ConferencePeerConnectionChannel> pcChannels;
+    // Secondary index of |pcChannels| by the id of the stream published or subscribed.
+    private final StreamChannelIndex streamChannels = new StreamChannelIndex();
     // key: subscription id.
     private final ConcurrentHashMap<String, ActionCallback<Subscription>> subCallbacks;
     // key: publication id.
@@ -88,6 +117,39 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
     private final Object infoLock = new Object();
     private RoomStates roomStates;
     private final Object statesLock = new Object();
+    // Only set when local candidates are coalesced, drives the ends of the windows.
+    private final ScheduledExecutorService candidateScheduler;
+    private final IceCandidateCoalescer.Counters candidateCounters =
+            new IceCandidateCoalescer.Counters();
+    // Channels created ahead of their publish acknowledgement, accessed on |callbackExecutor|.
+    // key: channel key.
+    private final HashMap<String, PendingChannelObserver> pendingChannels = new HashMap<>();
+    private int pendingPublications = 0;
+    // Latest layout of the RemoteMixedStreams with a layout change window open, accessed on
+    // |callbackExecutor|. key: stream id.
+    private final HashMap<String, JSONArray> pendingLayouts = new HashMap<>();
+    // Participants joined and left since the last batch delivered to
+    // ParticipantBatchObservers, accessed on |callbackExecutor|. key: participant id.
+    private final LinkedHashMap<String, Participant> joinedBatch = new LinkedHashMap<>();
+    private final ArrayList<Participant> leftBatch = new ArrayList<>();
+    private boolean batchScheduled = false;
+    // null when subscriptions create their channels on demand.
+    private final PeerConnectionPool subscriptionPool;
+    private final SignalingMetrics signalingMetrics =
+            new SignalingMetrics(WorkerPool.scheduler(), SignalingMetrics.DEFAULT_TIMEOUT_MS);
+    // Kept across joins, unused with a custom ConferenceTransport.
+    private final SharedHttpClient httpClient;
+    private final ConferenceTransport.Factory transportFactory;
+    // null when stats sampling is disabled. key: publication/subscription id.
+    private final StatsSampler statsSampler;
+    // Bitrates are measured since the previous collection of the same StatsAggregator, the
+    // QoS export has one of its own so that it does not shorten the intervals of the app's.
+    private final StatsAggregator statsAggregator = new StatsAggregator();
+    private final StatsAggregator qosStatsAggregator = new StatsAggregator();
+    // Connection losses the signaling channel has tried to recover from.
+    private final AtomicLong reconnections = new AtomicLong();
+    // Accessed on |callbackExecutor|, null when QoS export is disabled or not in a conference.
+    private QosExporter qosExporter;
 
     /**
      * Constructor for ConferenceClient.
@@ -102,6 +164,22 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
         subCallbacks = new ConcurrentHashMap<>();
         pubCallbacks = new ConcurrentHashMap<>();
         roomStates = RoomStates.DISCONNECTED;
+        candidateScheduler = configuration.iceCandidateCoalescingWindow > 0
+                ? WorkerPool.scheduler() : null;
+        if (configuration.subscriptionPoolSize > 0) {
+            subscriptionPool = new PeerConnectionPool(configuration.subscriptionPoolSize,
+                    TimeUnit.SECONDS.toMillis(configuration.subscriptionPoolIdleTimeout), this,
+                    (key, observer) -> createPeerConnection(key, true, true, observer,
+                            observer::onIceCandidates));
+        } else {
+            subscriptionPool = null;
+        }
+        httpClient = new SharedHttpClient(configuration.sslContext,
+                configuration.hostnameVerifier);
+        transportFactory = configuration.transportFactory != null
+                ? configuration.transportFactory : httpClient::newTransport;
+        statsSampler = configuration.statsSamplingInterval > 0 ? new StatsSampler(
+                configuration.statsSamplingInterval, configuration.statsHistorySize) : null;
     }
 
     /**
@@ -141,6 +219,92 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
         }
     }
 
+    /**
+     * Get the time the conference server has taken to acknowledge the signaling messages sent
+     * by this ConferenceClient, by message type. The latencies add up over the lifetime of the
+     * ConferenceClient, across joins.
+     *
+     * @return SignalingLatency snapshots. key: message type.
+     */
+    public Map<String, SignalingLatency> getSignalingLatency() {
+        return signalingMetrics.snapshot();
+    }
+
+    /**
+     * Get the StatsSampler sampling the stats of the Publication%s and Subscription%s of this
+     * ConferenceClient, keyed by publication / subscription id. A Publication or Subscription
+     * is sampled from its creation until it ends.
+     *
+     * @return the StatsSampler, null unless enabled by
+     * ConferenceClientConfiguration.Builder.setStatsSampling.
+     */
+    public StatsSampler getStatsSampler() {
+        return statsSampler;
+    }
+
+    /**
+     * Get the stats of all the Publication%s and Subscription%s of this ConferenceClient at
+     * once, within StatsAggregator.DEFAULT_DEADLINE_MS.
+     *
+     * @param callback ActionCallback.onSuccess is invoked with the ClientStats, channels keyed
+     * by publication / subscription id.
+     */
+    public void getAllStats(ActionCallback<ClientStats> callback) {
+        getAllStats(StatsAggregator.DEFAULT_DEADLINE_MS, callback);
+    }
+
+    /**
+     * Get the stats of all the Publication%s and Subscription%s of this ConferenceClient at
+     * once. The PeerConnections are asked in parallel, the ones that have not reported by
+     * |deadlineMs| or have failed to are listed in ClientStats.missing. Bitrates are measured
+     * since the previous call to getAllStats, calls made from several places shorten the
+     * intervals of each other.
+     *
+     * @param deadlineMs time given to the PeerConnections to report, in milliseconds.
+     * @param callback ActionCallback.onSuccess is invoked with the ClientStats, channels keyed
+     * by publication / subscription id.
+     */
+    public void getAllStats(long deadlineMs, ActionCallback<ClientStats> callback) {
+        RCHECK(deadlineMs > 0);
+        RCHECK(callback);
+        collectAllStats(statsAggregator, deadlineMs, callback);
+    }
+
+    private void collectAllStats(StatsAggregator aggregator, long deadlineMs,
+            ActionCallback<ClientStats> callback) {
+        Map<String, StatsSampler.Source> sources = new LinkedHashMap<>();
+        for (Map.Entry<String, ConferencePeerConnectionChannel> entry : pcChannels.entrySet()) {
+            // Idle channels of the subscription pool are not part of the stats.
+            if (entry.getValue().publication != null || entry.getValue().subscription != null) {
+                final String id = entry.getKey();
+                sources.put(id, statsCallback -> getStats(id, statsCallback));
+            }
+        }
+        aggregator.collect(sources, deadlineMs, callback);
+    }
+
+    /**
+     * Open a connection to the conference server ahead of join, e.g. while the token is being
+     * fetched from the application server, so that join does not wait for the DNS lookup and
+     * the TCP and TLS handshakes. The connection is kept for a few minutes. It has no effect
+     * with a custom ConferenceTransport.
+     *
+     * @param host host of the conference server, as the host in the token, e.g.
+     * "example.com:3004". https is assumed unless |host| starts with "http://".
+     */
+    public void preconnect(String host) {
+        RCHECK(host);
+        if (configuration.transportFactory != null) {
+            Log.w(LOG_TAG, "Skipped preconnecting with a custom transport.");
+            return;
+        }
+        String url = host.startsWith("http://") || host.startsWith("https://")
+                ? host : "https://" + host;
+        if (!httpClient.preconnect(url)) {
+            Log.w(LOG_TAG, "Skipped preconnecting to an invalid host: " + host);
+        }
+    }
+
     /**
      * Join a conference specified by |token|.
      *
@@ -157,10 +321,13 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
         DCHECK(signalingChannel == null);
         DCHECK(joinCallback == null);
         this.joinCallback = callback;
-        signalingChannel = new SignalingChannel(token, this);
+        signalingChannel = new SignalingChannel(token, this, configuration.reconnectionPolicy,
+                new OfflineMessageQueue(configuration.signalingQueueCapacity,
+                        configuration.iceCandidateCoalescingWindow > 0,
+                        pcChannels::containsKey), signalingMetrics);
         Log.d(LOG_TAG, "Connecting to the conference room.");
         changeRoomStatus(RoomStates.CONNECTING);
-        signalingChannel.connect(configuration);
+        signalingChannel.connect(transportFactory);
     }
 
     /**
@@ -244,6 +411,11 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
                 publishMsg.put("attributes", attr);
             }
 
+            final long requestedNs = System.nanoTime();
+            if (configuration.pipelinedPublish) {
+                publishPipelined(localStream, options, publishMsg, requestedNs, callback);
+                return;
+            }
             sendSignalingMessage("publish", publishMsg, args -> {
                 if (extractMsg(0, args).equals("ok")) {
                     try {
@@ -255,9 +427,12 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
                         // Do not receive video and audio for publication cpcc.
                         ConferencePeerConnectionChannel pcChannel =
                                 getPeerConnection(result.getString("id"), false, false);
+                        pcChannel.publishRequestedNs = requestedNs;
+                        pcChannel.publishAckedNs = System.nanoTime();
                         if (callback != null) {
                             pubCallbacks.put(result.getString("id"), callback);
                         }
+                        streamChannels.put(localStream.id(), result.getString("id"));
                         pcChannel.publish(localStream, options);
                     } catch (JSONException e) {
                         DCHECK(e);
@@ -272,6 +447,56 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
         }
     }
 
+    // Creates the channel and its offer on |callbackExecutor| while the publish request is in
+    // flight. Signaling of the channel is held by its PendingChannelObserver until the
+    // acknowledgement brings the publication id. The acknowledgement is handled on
+    // |callbackExecutor| as well, so the channel always exists by then.
+    private void publishPipelined(final LocalStream localStream, final PublishOptions options,
+            JSONObject publishMsg, final long requestedNs,
+            final ActionCallback<Publication> callback) {
+        final PendingChannelObserver pendingObserver = new PendingChannelObserver(this);
+        final String pendingKey = "pending-publication-" + (++pendingPublications);
+        callbackExecutor.execute(() -> {
+            ConferencePeerConnectionChannel pcChannel = createPeerConnection(pendingKey, false,
+                    false, pendingObserver, pendingObserver::onIceCandidates);
+            pcChannel.publishRequestedNs = requestedNs;
+            pcChannel.publish(localStream, options);
+            pendingObserver.channel = pcChannel;
+            pendingChannels.put(pendingKey, pendingObserver);
+        });
+        sendSignalingMessage("publish", publishMsg, args -> callbackExecutor.execute(() -> {
+            if (pendingChannels.remove(pendingKey) == null) {
+                // Room disconnected in the meantime.
+                return;
+            }
+            ConferencePeerConnectionChannel pcChannel = pendingObserver.channel;
+            OwtError error = null;
+            if (!extractMsg(0, args).equals("ok")) {
+                error = new OwtError(extractMsg(1, args));
+            } else if (localStream.disposed()) {
+                error = new OwtError("Local stream disposed on publish.");
+            }
+            if (error != null) {
+                pendingObserver.cancel();
+                pcChannel.dispose();
+                triggerCallback(callback, error);
+                return;
+            }
+            try {
+                String id = ((JSONObject) args[1]).getString("id");
+                pcChannel.publishAckedNs = System.nanoTime();
+                pcChannels.put(id, pcChannel);
+                streamChannels.put(localStream.id(), id);
+                if (callback != null) {
+                    pubCallbacks.put(id, callback);
+                }
+                pendingObserver.bind(id);
+            } catch (JSONException e) {
+                DCHECK(e);
+            }
+        }));
+    }
+
     // Not a public API.
     synchronized void unpublish(final String publicationId, final Publication publication) {
         DCHECK(publicationId);
@@ -288,10 +513,9 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
                 // Clean resources associated with this publication regardless of the result from
                 // MCU. But we monitor the result in debug mode.
                 DCHECK(extractMsg(0, args).equals("ok"));
-                if (pcChannels.containsKey(publicationId)) {
-                    ConferencePeerConnectionChannel pcChannel = getPeerConnection(publicationId);
+                ConferencePeerConnectionChannel pcChannel = removePeerConnection(publicationId);
+                if (pcChannel != null) {
                     pcChannel.dispose();
-                    pcChannels.remove(publicationId);
                     publication.onEnded();
                 }
             });
@@ -362,28 +586,33 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
 
             sendSignalingMessage("subscribe", subscribeMsg, args -> {
                 if (extractMsg(0, args).equals("ok")) {
-                    for (ConferencePeerConnectionChannel pcChannel : pcChannels.values()) {
-                        if(pcChannel.stream == null) {
-                            Log.w(LOG_TAG, "Peer connection channel stream is null.");
+                    for (String channelId : streamChannels.channelIds(remoteStreamId)) {
+                        ConferencePeerConnectionChannel pcChannel = pcChannels.get(channelId);
+                        if (pcChannel == null) {
+                            // Torn down in the meantime.
                             continue;
                         }
-                        if(pcChannel.stream.disposed()) {
+                        if(pcChannel.stream == null || pcChannel.stream.disposed()) {
                             Log.w(LOG_TAG, "Peer connection channel stream is disposed.");
                             continue;
                         }
-                        if (pcChannel.stream.id().equals(remoteStreamId)) {
-                            triggerCallback(callback,
-                                    new OwtError("Remote stream has been subscribed."));
-                            return;
-                        }
+                        triggerCallback(callback,
+                                new OwtError("Remote stream has been subscribed."));
+                        return;
                     }
                     JSONObject result = (JSONObject) args[1];
                     try {
                         ConferencePeerConnectionChannel pcChannel =
-                                getPeerConnection(result.getString("id"), subVideo, subAudio);
+                                takePooledPeerConnection(result.getString("id"), subVideo,
+                                        subAudio);
+                        if (pcChannel == null) {
+                            pcChannel = getPeerConnection(result.getString("id"), subVideo,
+                                    subAudio);
+                        }
                         if (callback != null) {
                             subCallbacks.put(result.getString("id"), callback);
                         }
+                        streamChannels.put(remoteStreamId, result.getString("id"));
                         pcChannel.subscribe(remoteStream, options);
                     } catch (JSONException e) {
                         DCHECK(e);
@@ -398,6 +627,36 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
         }
     }
 
+    /**
+     * Subscribe a list of RemoteStreams from the conference, e.g. for a gallery view. At most
+     * |concurrencyLimit| subscriptions are negotiated at the same time, the others start in the
+     * order of |remoteStreams| as soon as one of them succeeds or fails.
+     *
+     * @param remoteStreams RemoteStreams to be subscribed, most important first.
+     * @param options SubscribeOptions for subscribing every RemoteStream.
+     * @param concurrencyLimit maximum number of subscriptions being negotiated at the same time.
+     * @param callback ActionCallback.onSuccess will be invoked with the SubscribeAllResult once
+     * every subscription has succeeded or failed. Otherwise when fails to start subscribing,
+     * ActionCallback.onFailure will be invoked with the corresponding OwtError.
+     */
+    public void subscribeAll(List<RemoteStream> remoteStreams, SubscribeOptions options,
+            int concurrencyLimit, ActionCallback<SubscribeAllResult> callback) {
+        RCHECK(remoteStreams);
+        RCHECK(concurrencyLimit > 0);
+        if (!checkRoomStatus(RoomStates.CONNECTED)) {
+            triggerCallback(callback, new OwtError("Wrong room status."));
+            return;
+        }
+        if (remoteStreams.isEmpty()) {
+            triggerCallback(callback, new SubscribeAllResult(
+                    new LinkedHashMap<String, Subscription>(),
+                    new LinkedHashMap<String, OwtError>(), 0));
+            return;
+        }
+        new SubscribeAllTask(this::subscribe, new ArrayList<>(remoteStreams), options,
+                concurrencyLimit, callback).start();
+    }
+
     // Not a public API.
     synchronized void unsubscribe(final String subscriptionId, final Subscription subscription) {
         DCHECK(subscriptionId);
@@ -412,10 +671,9 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
             unpubMsg.put("id", subscriptionId);
 
             sendSignalingMessage("unsubscribe", unpubMsg, args -> {
-                if (pcChannels.containsKey(subscriptionId)) {
-                    ConferencePeerConnectionChannel pcChannel = getPeerConnection(subscriptionId);
+                ConferencePeerConnectionChannel pcChannel = removePeerConnection(subscriptionId);
+                if (pcChannel != null) {
                     pcChannel.dispose();
-                    pcChannels.remove(subscriptionId);
                     subscription.onEnded();
                 }
             });
@@ -488,11 +746,66 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
         }
     }
 
+    // Must be called on |callbackExecutor|.
+    private void startQosExport(ConferenceInfo conferenceInfo) {
+        if (configuration.qosExportDirectory == null) {
+            return;
+        }
+        // Missing if the room info does not list the client itself.
+        Participant self = conferenceInfo.self();
+        String name = self != null ? "owt-conference-" + self.id
+                : "owt-conference-room-" + conferenceInfo.id();
+        QosExporter.Source source = new QosExporter.Source() {
+            @Override
+            public void getAllStats(long deadlineMs, ActionCallback<ClientStats> callback) {
+                collectAllStats(qosStatsAggregator, deadlineMs, callback);
+            }
+
+            @Override
+            public Map<String, Long> counters() {
+                Map<String, Long> counters = new LinkedHashMap<>();
+                counters.put("owt_channels", (long) pcChannels.size());
+                counters.put("owt_worker_threads", (long) WorkerPool.threadCount());
+                SignalingChannel channel = signalingChannel;
+                counters.put("owt_signaling_queue_depth",
+                        channel == null ? 0L : channel.queuedMessages());
+                counters.put("owt_reconnections_total", reconnections.get());
+                return counters;
+            }
+        };
+        qosExporter = new QosExporter(configuration.qosExportDirectory, name,
+                configuration.qosExportFormat, configuration.qosExportInterval,
+                QosExporter.DEFAULT_MAX_FILE_BYTES, QosExporter.DEFAULT_MAX_FILES, source);
+        qosExporter.start();
+    }
+
     private void closeInternal() {
         for (String key : pcChannels.keySet()) {
             pcChannels.get(key).dispose();
         }
         pcChannels.clear();
+        streamChannels.clear();
+        if (qosExporter != null) {
+            qosExporter.stop();
+            qosExporter = null;
+        }
+        if (statsSampler != null) {
+            statsSampler.clear();
+        }
+        for (PendingChannelObserver pendingObserver : pendingChannels.values()) {
+            pendingObserver.cancel();
+            pendingObserver.channel.dispose();
+        }
+        pendingChannels.clear();
+        pendingLayouts.clear();
+        joinedBatch.clear();
+        leftBatch.clear();
+        if (subscriptionPool != null) {
+            subscriptionPool.stop();
+        }
+        if (candidateScheduler != null) {
+            Log.d(LOG_TAG, "Local ICE candidates coalescing, " + candidateCounters);
+        }
         subCallbacks.clear();
         pubCallbacks.clear();
         signalingChannel = null;
@@ -514,6 +827,15 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
         }
     }
 
+    // Returns null if there is no channel with |id|.
+    private ConferencePeerConnectionChannel removePeerConnection(String id) {
+        streamChannels.remove(id);
+        if (statsSampler != null) {
+            statsSampler.remove(id);
+        }
+        return pcChannels.remove(id);
+    }
+
     private ConferencePeerConnectionChannel getPeerConnection(String id) {
         DCHECK(pcChannels.containsKey(id));
         return getPeerConnection(id, true/*DoesNotMatter*/, true/*DoesNotMatter*/);
@@ -524,13 +846,51 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
         if (pcChannels.containsKey(id)) {
             return pcChannels.get(id);
         }
-        ConferencePeerConnectionChannel pcChannel =
-                new ConferencePeerConnectionChannel(id, configuration.rtcConfiguration,
-                        receiveVideo, receiveAudio, this);
+        ConferencePeerConnectionChannel pcChannel = createPeerConnection(id, receiveVideo,
+                receiveAudio, this, candidates -> onIceCandidates(id, candidates));
         pcChannels.put(id, pcChannel);
         return pcChannel;
     }
 
+    // Returns null if there is no pooled channel matching.
+    private ConferencePeerConnectionChannel takePooledPeerConnection(String id,
+            boolean receiveVideo, boolean receiveAudio) {
+        // Pooled channels receive both audio and video.
+        if (subscriptionPool == null || !receiveVideo || !receiveAudio) {
+            return null;
+        }
+        PendingChannelObserver pendingObserver = subscriptionPool.take();
+        if (pendingObserver == null) {
+            return null;
+        }
+        pcChannels.put(id, pendingObserver.channel);
+        pendingObserver.bind(id);
+        return pendingObserver.channel;
+    }
+
+    private ConferencePeerConnectionChannel createPeerConnection(String key,
+            boolean receiveVideo, boolean receiveAudio,
+            PeerConnectionChannel.PeerConnectionChannelObserver observer,
+            IceCandidateCoalescer.CandidateSink candidateSink) {
+        ConferencePeerConnectionChannel pcChannel =
+                new ConferencePeerConnectionChannel(key, configuration.rtcConfiguration,
+                        receiveVideo, receiveAudio, observer);
+        pcChannel.setStatsCacheTtl(configuration.statsCacheTtl);
+        if (candidateScheduler != null) {
+            pcChannel.coalesceCandidates(configuration.iceCandidateCoalescingWindow,
+                    candidateScheduler, candidateSink, candidateCounters);
+        }
+        return pcChannel;
+    }
+
+    <T> void triggerCallback(final ActionCallback<T> callback, final T result) {
+        DCHECK(callbackExecutor);
+        if (callback == null) {
+            return;
+        }
+        callbackExecutor.execute(() -> callback.onSuccess(result));
+    }
+
     <T> void triggerCallback(final ActionCallback<T> callback, final OwtError error) {
         DCHECK(callbackExecutor);
         if (callback == null) {
@@ -561,7 +921,12 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
             if (pubCallbacks.containsKey(id)) {
                 ActionCallback<Publication> callback = pubCallbacks.get(id);
                 Publication publication = new Publication(id, ConferenceClient.this);
-                getPeerConnection(id).publication = publication;
+                ConferencePeerConnectionChannel pcChannel = getPeerConnection(id);
+                pcChannel.publication = publication;
+                pcChannel.logPublishTimings(id, configuration.pipelinedPublish);
+                if (statsSampler != null) {
+                    statsSampler.add(id, publication::getStats);
+                }
                 callback.onSuccess(publication);
                 pubCallbacks.remove(id);
                 return;
@@ -570,6 +935,9 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
                 ActionCallback<Subscription> callback = subCallbacks.get(id);
                 Subscription subscription = new Subscription(id, ConferenceClient.this);
                 getPeerConnection(id).subscription = subscription;
+                if (statsSampler != null) {
+                    statsSampler.add(id, subscription::getStats);
+                }
                 callback.onSuccess(subscription);
                 subCallbacks.remove(id);
             }
@@ -598,6 +966,9 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
         Log.d(LOG_TAG, "Room connected.");
         DCHECK(callbackExecutor);
         changeRoomStatus(RoomStates.CONNECTED);
+        if (subscriptionPool != null) {
+            subscriptionPool.start();
+        }
         callbackExecutor.execute(() -> {
             ConferenceInfo conferenceInfo;
             try {
@@ -606,6 +977,7 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
                     synchronized (infoLock) {
                         ConferenceClient.this.conferenceInfo = conferenceInfo;
                     }
+                    startQosExport(conferenceInfo);
                     joinCallback.onSuccess(conferenceInfo);
                 }
             } catch (JSONException e) {
@@ -629,6 +1001,7 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
     @Override
     public void onReconnecting() {
         // TODO: consider adding a new event for client.
+        reconnections.incrementAndGet();
     }
 
     @Override
@@ -684,7 +1057,7 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
         callbackExecutor.execute(() -> {
             synchronized (infoLock) {
                 if (conferenceInfo != null) {
-                    conferenceInfo.remoteStreams.add(remoteStream);
+                    conferenceInfo.addRemoteStream(remoteStream);
                 }
             }
             for (ConferenceClientObserver observer : observers) {
@@ -699,12 +1072,9 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
         callbackExecutor.execute(() -> {
             synchronized (infoLock) {
                 if (conferenceInfo != null) {
-                    for (RemoteStream remoteStream : conferenceInfo.remoteStreams) {
-                        if (remoteStream.id().equals(streamId)) {
-                            conferenceInfo.remoteStreams.remove(remoteStream);
-                            remoteStream.onEnded();
-                            break;
-                        }
+                    RemoteStream remoteStream = conferenceInfo.removeRemoteStream(streamId);
+                    if (remoteStream != null) {
+                        remoteStream.onEnded();
                     }
                 }
             }
@@ -717,61 +1087,52 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
         callbackExecutor.execute(() -> {
             try {
                 String field = updateInfo.getString("field");
+                RemoteStream remoteStream = null;
+                synchronized (infoLock) {
+                    if (conferenceInfo != null) {
+                        remoteStream = conferenceInfo.getRemoteStream(id);
+                    }
+                }
                 switch (field) {
                     case "video.layout":
-                        synchronized (infoLock) {
-                            if(conferenceInfo != null) {
-                                for (RemoteStream remoteStream : conferenceInfo.remoteStreams) {
-                                    if (remoteStream.id().equals(id)) {
-                                        ((RemoteMixedStream) remoteStream).updateRegions(
-                                                updateInfo.getJSONArray("value"));
-                                    }
-                                }
-                            }
+                        if (remoteStream != null) {
+                            updateLayout(id, updateInfo.getJSONArray("value"));
                         }
                         break;
                     case "audio.status":
                     case "video.status":
-                        for (ConferencePeerConnectionChannel pcChannel : pcChannels.values()) {
-                            // For subscription id will be the RemoteStream id, for publication
-                            // the id will be publication id which is pc.key.
-                            if(pcChannel.stream == null || pcChannel.stream.disposed()) {
+                        // For subscription id will be the RemoteStream id, for publication
+                        // the id will be publication id which is the key of |pcChannels|.
+                        List<String> channelIds = streamChannels.channelIds(id);
+                        if (!channelIds.contains(id)) {
+                            channelIds.add(id);
+                        }
+                        TrackKind trackKind = field.equals("audio.status")
+                                ? TrackKind.AUDIO : TrackKind.VIDEO;
+                        boolean active = updateInfo.getString("value").equals("active");
+                        for (String channelId : channelIds) {
+                            ConferencePeerConnectionChannel pcChannel = pcChannels.get(channelId);
+                            if (pcChannel == null || pcChannel.stream == null
+                                    || pcChannel.stream.disposed()) {
                                 continue;
                             }
-                            if (pcChannel.stream.id().equals(id) || pcChannel.key.equals(id)) {
-                                TrackKind trackKind = field.equals("audio.status")
-                                        ? TrackKind.AUDIO : TrackKind.VIDEO;
-                                boolean active = updateInfo.getString("value").equals("active");
-                                if (pcChannel.publication != null) {
-                                    pcChannel.publication.onStatusUpdated(trackKind, active);
-                                } else if (pcChannel.subscription != null){
-                                    pcChannel.subscription.onStatusUpdated(trackKind, active);
-                                }
+                            if (pcChannel.publication != null) {
+                                pcChannel.publication.onStatusUpdated(trackKind, active);
+                            } else if (pcChannel.subscription != null){
+                                pcChannel.subscription.onStatusUpdated(trackKind, active);
                             }
                         }
                         break;
                     case "activeInput":
-                        synchronized (infoLock) {
-                            if(conferenceInfo != null) {
-                                for (RemoteStream remoteStream : conferenceInfo.remoteStreams) {
-                                    if (remoteStream.id().equals(id)) {
-                                        ((RemoteMixedStream) remoteStream).updateActiveInput(
-                                                updateInfo.getString("value"));
-                                    }
-                                }
-                            }
+                        if (remoteStream != null) {
+                            ((RemoteMixedStream) remoteStream).updateActiveInput(
+                                    updateInfo.getString("value"));
                         }
                         break;
                     case ".":
-                        synchronized (infoLock) {
-                            if (conferenceInfo != null) {
-                                for (RemoteStream remoteStream : conferenceInfo.remoteStreams) {
-                                    if (remoteStream.id().equals(id)) {
-                                        JSONObject streamInfo = updateInfo.getJSONObject("value");
-                                        remoteStream.updateStreamInfo(streamInfo, true);
-                                    }
-                                }
-                            }
+                        if (remoteStream != null) {
+                            JSONObject streamInfo = updateInfo.getJSONObject("value");
+                            remoteStream.updateStreamInfo(streamInfo, true);
                         }
                         break;
                 }
@@ -781,6 +1142,35 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
         });
     }
 
+    // Runs on |callbackExecutor|.
+    private void updateLayout(final String streamId, JSONArray layout) {
+        if (configuration.layoutChangeWindow == 0) {
+            applyLayout(streamId, layout);
+            return;
+        }
+        // The window opens with the first update, later ones only replace the layout.
+        if (pendingLayouts.put(streamId, layout) == null) {
+            WorkerPool.scheduler().schedule(() -> callbackExecutor.execute(() -> {
+                JSONArray pendingLayout = pendingLayouts.remove(streamId);
+                if (pendingLayout != null) {
+                    applyLayout(streamId, pendingLayout);
+                }
+            }), configuration.layoutChangeWindow, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void applyLayout(String streamId, JSONArray layout) {
+        RemoteStream remoteStream = null;
+        synchronized (infoLock) {
+            if (conferenceInfo != null) {
+                remoteStream = conferenceInfo.getRemoteStream(streamId);
+            }
+        }
+        if (remoteStream instanceof RemoteMixedStream) {
+            ((RemoteMixedStream) remoteStream).updateRegions(layout);
+        }
+    }
+
     @Override
     public void onParticipantJoined(final JSONObject participantInfo) {
         DCHECK(callbackExecutor);
@@ -789,11 +1179,20 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
                 Participant participant = new Participant(participantInfo);
                 synchronized (infoLock) {
                     if (conferenceInfo != null) {
-                        conferenceInfo.participants.add(participant);
+                        conferenceInfo.addParticipant(participant);
                     }
                 }
+                boolean batched = false;
                 for (ConferenceClientObserver observer : observers) {
-                    observer.onParticipantJoined(participant);
+                    if (observer instanceof ParticipantBatchObserver) {
+                        batched = true;
+                    } else {
+                        observer.onParticipantJoined(participant);
+                    }
+                }
+                if (batched) {
+                    joinedBatch.put(participant.id, participant);
+                    scheduleParticipantBatch();
                 }
             } catch (JSONException e) {
                 DCHECK(false);
@@ -805,55 +1204,122 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
     public void onParticipantLeft(final String participantId) {
         DCHECK(callbackExecutor);
         callbackExecutor.execute(() -> {
+            Participant participant = null;
             synchronized (infoLock) {
                 if (conferenceInfo != null) {
-                    for (Participant participant : conferenceInfo.participants) {
-                        if (participant.id.equals(participantId)) {
-                            conferenceInfo.participants.remove(participant);
-                            participant.onLeft();
-                            break;
-                        }
-                    }
+                    participant = conferenceInfo.removeParticipant(participantId);
                 }
             }
+            if (participant == null) {
+                return;
+            }
+            participant.onLeft();
+            if (joinedBatch.remove(participantId) == null && hasParticipantBatchObserver()) {
+                leftBatch.add(participant);
+                scheduleParticipantBatch();
+            }
         });
     }
 
+    private boolean hasParticipantBatchObserver() {
+        for (ConferenceClientObserver observer : observers) {
+            if (observer instanceof ParticipantBatchObserver) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Runs on |callbackExecutor|.
+    private void scheduleParticipantBatch() {
+        if (configuration.participantBatchInterval == 0) {
+            deliverParticipantBatch();
+            return;
+        }
+        if (!batchScheduled) {
+            batchScheduled = true;
+            WorkerPool.scheduler().schedule(() -> callbackExecutor.execute(() -> {
+                batchScheduled = false;
+                deliverParticipantBatch();
+            }), configuration.participantBatchInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void deliverParticipantBatch() {
+        if (joinedBatch.isEmpty() && leftBatch.isEmpty()) {
+            return;
+        }
+        List<Participant> joined =
+                Collections.unmodifiableList(new ArrayList<>(joinedBatch.values()));
+        List<Participant> left = Collections.unmodifiableList(new ArrayList<>(leftBatch));
+        joinedBatch.clear();
+        leftBatch.clear();
+        for (ConferenceClientObserver observer : observers) {
+            if (observer instanceof ParticipantBatchObserver) {
+                ((ParticipantBatchObserver) observer).onParticipantsChanged(joined, left);
+            }
+        }
+    }
+
     // PeerConnectionChannelObserver
     @Override
     public void onIceCandidate(final String id, final IceCandidate candidate) {
         try {
-            JSONObject candidateObj = new JSONObject();
-            candidateObj.put("sdpMLineIndex", candidate.sdpMLineIndex);
-            candidateObj.put("sdpMid", candidate.sdpMid);
-            candidateObj.put("candidate",
-                    candidate.sdp.indexOf("a=") == 0 ? candidate.sdp : "a=" + candidate.sdp);
-
             JSONObject candidateMsg = new JSONObject();
             candidateMsg.put("type", "candidate");
-            candidateMsg.put("candidate", candidateObj);
+            candidateMsg.put("candidate", candidateToJson(candidate));
 
             JSONObject msg = new JSONObject();
             msg.put("id", id);
             msg.put("signaling", candidateMsg);
 
-            sendSignalingMessage("soac", msg, null);
+            sendSignalingMessage("soac", msg, SignalingMetrics.UNUSED_ACK);
         } catch (JSONException e) {
             DCHECK(e);
         }
     }
 
+    // Candidates batched by IceCandidateCoalescer.
+    void onIceCandidates(final String id, final List<IceCandidate> candidates) {
+        if (candidates.size() == 1) {
+            onIceCandidate(id, candidates.get(0));
+            return;
+        }
+        try {
+            JSONArray candidatesObj = new JSONArray();
+            for (IceCandidate candidate : candidates) {
+                candidatesObj.put(candidateToJson(candidate));
+            }
+
+            JSONObject candidatesMsg = new JSONObject();
+            candidatesMsg.put("type", "candidates");
+            candidatesMsg.put("candidates", candidatesObj);
+
+            JSONObject msg = new JSONObject();
+            msg.put("id", id);
+            msg.put("signaling", candidatesMsg);
+
+            sendSignalingMessage("soac", msg, SignalingMetrics.UNUSED_ACK);
+        } catch (JSONException e) {
+            DCHECK(e);
+        }
+    }
+
+    private JSONObject candidateToJson(IceCandidate candidate) throws JSONException {
+        JSONObject candidateObj = new JSONObject();
+        candidateObj.put("sdpMLineIndex", candidate.sdpMLineIndex);
+        candidateObj.put("sdpMid", candidate.sdpMid);
+        candidateObj.put("candidate",
+                candidate.sdp.indexOf("a=") == 0 ? candidate.sdp : "a=" + candidate.sdp);
+        return candidateObj;
+    }
+
     @Override
     public void onIceCandidatesRemoved(final String id, final IceCandidate[] candidates) {
         try {
             JSONArray removedCandidates = new JSONArray();
             for (IceCandidate candidate : candidates) {
-                JSONObject candidateObj = new JSONObject();
-                candidateObj.put("sdpMLineIndex", candidate.sdpMLineIndex);
-                candidateObj.put("sdpMid", candidate.sdpMid);
-                candidateObj.put("candidate",
-                        candidate.sdp.indexOf("a=") == 0 ? candidate.sdp : "a=" + candidate.sdp);
-                removedCandidates.put(candidateObj);
+                removedCandidates.put(candidateToJson(candidate));
             }
 
             JSONObject rmCanMsg = new JSONObject();
@@ -863,7 +1329,7 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
             JSONObject msg = new JSONObject();
             msg.put("id", id);
             msg.put("signaling", rmCanMsg);
-            sendSignalingMessage("soac", msg, null);
+            sendSignalingMessage("soac", msg, SignalingMetrics.UNUSED_ACK);
         } catch (JSONException e) {
             DCHECK(e);
         }
@@ -872,19 +1338,15 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
     @Override
     public void onLocalDescription(final String id, final SessionDescription localSdp) {
         try {
-            SessionDescription sdp =
-                    new SessionDescription(localSdp.type,
-                            localSdp.description.replaceAll(
-                                    "a=ice-options:google-ice\r\n", ""));
             JSONObject sdpObj = new JSONObject();
-            sdpObj.put("type", sdp.type.toString().toLowerCase(Locale.US));
-            sdpObj.put("sdp", sdp.description);
+            sdpObj.put("type", localSdp.type.toString().toLowerCase(Locale.US));
+            sdpObj.put("sdp", localSdp.description);
 
             JSONObject msg = new JSONObject();
             msg.put("id", id);
             msg.put("signaling", sdpObj);
 
-            sendSignalingMessage("soac", msg, null);
+            sendSignalingMessage("soac", msg, SignalingMetrics.UNUSED_ACK);
         } catch (JSONException e) {
             DCHECK(e);
         }
@@ -892,9 +1354,9 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
 
     @Override
     public void onEnded(final String id) {
-        if (pcChannels.containsKey(id)) {
-            pcChannels.get(id).dispose();
-            pcChannels.remove(id);
+        ConferencePeerConnectionChannel pcChannel = removePeerConnection(id);
+        if (pcChannel != null) {
+            pcChannel.dispose();
         }
     }
 
@@ -911,13 +1373,14 @@ public final class ConferenceClient implements SignalingChannel.SignalingChannel
                 subCallbacks.remove(id);
             }
         });
-        for (ConferencePeerConnectionChannel pcChannel : pcChannels.values()) {
-            if (pcChannel.key.equals(id)) {
-                if (pcChannel.publication != null) {
-                    pcChannel.publication.onError(error);
-                } else if (pcChannel.subscription != null){
-                    pcChannel.subscription.onError(error);
-                }
+        // Keys of |pcChannels| are the ids given by the server, which differ from the channel key
+        // of a pipelined publication.
+        ConferencePeerConnectionChannel pcChannel = pcChannels.get(id);
+        if (pcChannel != null) {
+            if (pcChannel.publication != null) {
+                pcChannel.publication.onError(error);
+            } else if (pcChannel.subscription != null){
+                pcChannel.subscription.onError(error);
             }
         }
         onEnded(id);
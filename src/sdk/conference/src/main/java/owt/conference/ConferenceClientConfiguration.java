@@ -4,10 +4,15 @@
  */
 package owt.conference;
 
+import static owt.base.CheckCondition.RCHECK;
+
 import owt.base.ClientConfiguration;
+import owt.base.QosExporter;
 
 import org.webrtc.PeerConnection;
 
+import java.io.File;
+
 import javax.net.ssl.HostnameVerifier;
 import javax.net.ssl.SSLContext;
 
@@ -18,6 +23,26 @@ public final class ConferenceClientConfiguration extends ClientConfiguration {
 
     SSLContext sslContext = null;
     HostnameVerifier hostnameVerifier = null;
+    int iceCandidateCoalescingWindow = 0;
+    boolean pipelinedPublish = false;
+    int subscriptionPoolSize = 0;
+    int subscriptionPoolIdleTimeout = 0;
+    int signalingQueueCapacity = OfflineMessageQueue.DEFAULT_CAPACITY;
+    ReconnectionPolicy reconnectionPolicy = null;
+    ConferenceTransport.Factory transportFactory = null;
+    int layoutChangeWindow = 0;
+    int participantBatchInterval = 0;
+    int statsSamplingInterval = 0;
+    int statsHistorySize = 0;
+    int statsCacheTtl = 0;
+    File qosExportDirectory = null;
+    QosExporter.Format qosExportFormat = null;
+    int qosExportInterval = 0;
+
+    private static final long DEFAULT_RECONNECTION_DELAY_MS = 500;
+    private static final long DEFAULT_MAX_RECONNECTION_DELAY_MS = 8000;
+    private static final double DEFAULT_RECONNECTION_JITTER = 0.5;
+    private static final long DEFAULT_RECONNECTION_BUDGET_MS = 60000;
 
     private ConferenceClientConfiguration(PeerConnection.RTCConfiguration configuration) {
         super(configuration);
@@ -39,6 +64,23 @@ public final class ConferenceClientConfiguration extends ClientConfiguration {
         private SSLContext sslContext = null;
         private HostnameVerifier hostnameVerifier = null;
         private PeerConnection.RTCConfiguration rtcConfiguration = null;
+        private int iceCandidateCoalescingWindow = 0;
+        private boolean pipelinedPublish = false;
+        private int subscriptionPoolSize = 0;
+        private int subscriptionPoolIdleTimeout = 0;
+        private int signalingQueueCapacity = OfflineMessageQueue.DEFAULT_CAPACITY;
+        private ReconnectionPolicy reconnectionPolicy = new BackoffReconnectionPolicy(
+                DEFAULT_RECONNECTION_DELAY_MS, DEFAULT_MAX_RECONNECTION_DELAY_MS,
+                DEFAULT_RECONNECTION_JITTER, DEFAULT_RECONNECTION_BUDGET_MS);
+        private ConferenceTransport.Factory transportFactory = null;
+        private int layoutChangeWindow = 0;
+        private int participantBatchInterval = 0;
+        private int statsSamplingInterval = 0;
+        private int statsHistorySize = 0;
+        private int statsCacheTtl = 0;
+        private File qosExportDirectory = null;
+        private QosExporter.Format qosExportFormat = null;
+        private int qosExportInterval = 0;
 
         Builder() {
         }
@@ -76,6 +118,184 @@ public final class ConferenceClientConfiguration extends ClientConfiguration {
             return this;
         }
 
+        /**
+         * Set up the window in which local ICE candidates are batched into one signaling
+         * message. The first candidate of a window is always sent without delay, the ones
+         * gathered during the window are sent together when it ends or when gathering
+         * completes. 0, the default value, sends every candidate in its own message. The
+         * conference server needs to support the "candidates" signaling message for a value
+         * other than 0.
+         *
+         * @param milliseconds length of the window in milliseconds, 20 is a sensible value.
+         * @return Builder
+         */
+        public Builder setIceCandidateCoalescingWindow(int milliseconds) {
+            RCHECK(milliseconds >= 0);
+            this.iceCandidateCoalescingWindow = milliseconds;
+            return this;
+        }
+
+        /**
+         * Set up whether ConferenceClient.publish creates the PeerConnection and the offer
+         * while the publish request is sent to the server instead of after it is acknowledged.
+         * The work is thrown away if the server rejects the request. Disabled by default.
+         *
+         * @param enabled true to enable pipelined publishing.
+         * @return Builder
+         */
+        public Builder setPipelinedPublish(boolean enabled) {
+            this.pipelinedPublish = enabled;
+            return this;
+        }
+
+        /**
+         * Set up a pool of receive-only PeerConnections created ahead of subscriptions while
+         * connected to a conference. Subscriptions receiving both audio and video take a
+         * PeerConnection from the pool, which refills in the background. PeerConnections left
+         * unused for |idleTimeoutSeconds| are released. Candidates are gathered ahead as well if
+         * the RTCConfiguration sets an iceCandidatePoolSize. Disabled by default.
+         *
+         * @param size maximum number of PeerConnections in the pool, 0 disables the pool.
+         * @param idleTimeoutSeconds time after which an unused PeerConnection is released.
+         * @return Builder
+         */
+        public Builder setSubscriptionPool(int size, int idleTimeoutSeconds) {
+            RCHECK(size >= 0);
+            RCHECK(idleTimeoutSeconds > 0);
+            this.subscriptionPoolSize = size;
+            this.subscriptionPoolIdleTimeout = idleTimeoutSeconds;
+            return this;
+        }
+
+        /**
+         * Set up the maximum number of signaling messages held while the connection to the
+         * conference server is lost. Messages that only matter for their latest value, like
+         * muting and unmuting the same track, are coalesced. When the limit is reached the
+         * oldest message is dropped and its callback fails. Defaults to 256.
+         *
+         * @param capacity maximum number of messages held.
+         * @return Builder
+         */
+        public Builder setSignalingQueueCapacity(int capacity) {
+            RCHECK(capacity > 0);
+            this.signalingQueueCapacity = capacity;
+            return this;
+        }
+
+        /**
+         * Set up when to try to connect to the conference server again after the connection
+         * is lost, or could not be established when joining. Defaults to a
+         * BackoffReconnectionPolicy starting at 500 ms, up to 8 s between attempts, with half
+         * of the delay random and a budget of 60 s.
+         *
+         * @param reconnectionPolicy ReconnectionPolicy to be set.
+         * @return Builder
+         */
+        public Builder setReconnectionPolicy(ReconnectionPolicy reconnectionPolicy) {
+            RCHECK(reconnectionPolicy);
+            this.reconnectionPolicy = reconnectionPolicy;
+            return this;
+        }
+
+        /**
+         * Set up the transport for exchanging signaling messages with the conference server,
+         * e.g. a plain WebSocket transport or an in-process server for tests. By default
+         * socket.io is used, with the SSLContext and HostnameVerifier set. They do not apply to
+         * a custom transport.
+         *
+         * @param transportFactory ConferenceTransport.Factory creating the transport of every
+         * join.
+         * @return Builder
+         */
+        public Builder setTransportFactory(ConferenceTransport.Factory transportFactory) {
+            this.transportFactory = transportFactory;
+            return this;
+        }
+
+        /**
+         * Set up the window in which video layout updates of a RemoteMixedStream are merged.
+         * Only the last layout of a window is applied, when the window ends, so that a burst of
+         * updates, e.g. on speaker switching, triggers one onLayoutChange. 0, the default
+         * value, applies every update right away.
+         *
+         * @param milliseconds length of the window in milliseconds.
+         * @return Builder
+         */
+        public Builder setLayoutChangeWindow(int milliseconds) {
+            RCHECK(milliseconds >= 0);
+            this.layoutChangeWindow = milliseconds;
+            return this;
+        }
+
+        /**
+         * Set up the interval at which participant joins and leaves are delivered to
+         * ConferenceClient.ParticipantBatchObservers. A batch is delivered when the interval
+         * since its first change has passed. 0, the default value, delivers every change in
+         * its own batch. It has no effect on the other observers, which are notified of every
+         * join as it happens.
+         *
+         * @param milliseconds length of the interval in milliseconds, a few hundreds is a
+         * sensible value for rooms with thousands of participants.
+         * @return Builder
+         */
+        public Builder setParticipantBatchInterval(int milliseconds) {
+            RCHECK(milliseconds >= 0);
+            this.participantBatchInterval = milliseconds;
+            return this;
+        }
+
+        /**
+         * Set up sampling the stats of all the Publication%s and Subscription%s of the
+         * ConferenceClient on one schedule, see ConferenceClient.getStatsSampler. Disabled by
+         * default.
+         *
+         * @param intervalMs interval between two samples in milliseconds, 0 disables sampling.
+         * @param historySize number of samples kept for every Publication and Subscription.
+         * @return Builder
+         */
+        public Builder setStatsSampling(int intervalMs, int historySize) {
+            RCHECK(intervalMs >= 0);
+            RCHECK(intervalMs == 0 || historySize > 0);
+            this.statsSamplingInterval = intervalMs;
+            this.statsHistorySize = historySize;
+            return this;
+        }
+
+        /**
+         * Set up how long the stats of a Publication or Subscription are reused for. Calls
+         * to getStats made while a report is being collected always share it, a TTL also
+         * serves the calls made within |milliseconds| after it from the same report.
+         *
+         * @param milliseconds time a report is reused for, 0 (the default) disables the cache.
+         * @return Builder
+         */
+        public Builder setStatsCacheTtl(int milliseconds) {
+            RCHECK(milliseconds >= 0);
+            this.statsCacheTtl = milliseconds;
+            return this;
+        }
+
+        /**
+         * Set up exporting the QoS of the ConferenceClient to files while it is in a
+         * conference: the stats of ConferenceClient.getAllStats along with the number of
+         * channels, of worker threads, of signaling messages queued and of reconnections. The
+         * files are named after the participant id. Disabled by default.
+         *
+         * @param directory directory to write the files into, e.g. Context.getFilesDir().
+         * @param format Format of the files.
+         * @param intervalMs interval between two exports in milliseconds.
+         * @return Builder
+         */
+        public Builder setQosExport(File directory, QosExporter.Format format, int intervalMs) {
+            RCHECK(directory);
+            RCHECK(format);
+            RCHECK(intervalMs > 0);
+            this.qosExportDirectory = directory;
+            this.qosExportFormat = format;
+            this.qosExportInterval = intervalMs;
+            return this;
+        }
+
         /**
          * Build up the ConferenceClientConfiguration.
          *
@@ -86,6 +306,21 @@ public final class ConferenceClientConfiguration extends ClientConfiguration {
                     new ConferenceClientConfiguration(rtcConfiguration);
             configuration.sslContext = sslContext;
             configuration.hostnameVerifier = hostnameVerifier;
+            configuration.iceCandidateCoalescingWindow = iceCandidateCoalescingWindow;
+            configuration.pipelinedPublish = pipelinedPublish;
+            configuration.subscriptionPoolSize = subscriptionPoolSize;
+            configuration.subscriptionPoolIdleTimeout = subscriptionPoolIdleTimeout;
+            configuration.signalingQueueCapacity = signalingQueueCapacity;
+            configuration.reconnectionPolicy = reconnectionPolicy;
+            configuration.transportFactory = transportFactory;
+            configuration.layoutChangeWindow = layoutChangeWindow;
+            configuration.participantBatchInterval = participantBatchInterval;
+            configuration.statsSamplingInterval = statsSamplingInterval;
+            configuration.statsHistorySize = statsHistorySize;
+            configuration.statsCacheTtl = statsCacheTtl;
+            configuration.qosExportDirectory = qosExportDirectory;
+            configuration.qosExportFormat = qosExportFormat;
+            configuration.qosExportInterval = qosExportInterval;
             return configuration;
         }
     }
@@ -4,29 +4,116 @@
  */
 package owt.conference;
 
+import static owt.base.Const.LOG_TAG;
+
+import android.util.Log;
+
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Information of the conference.
  */
 public final class ConferenceInfo {
-    // package access here, as the getter methods return an immutable list.
-    final List<Participant> participants;
-    private final Object parLock = new Object();
-    final List<RemoteStream> remoteStreams;
-    private final Object streamLock = new Object();
+
+    /**
+     * Entries keyed by id, in the order of joining / publishing. An entry added from the join
+     * response is kept as its JSONObject and decoded on first access, so that join does not
+     * wait for decoding the whole room.
+     */
+    private abstract static class LazyIndex<T> {
+        // Values are either T or the JSONObject T has not been decoded from yet.
+        private final LinkedHashMap<String, Object> entries = new LinkedHashMap<>();
+        // Immutable snapshot of the values, null after |entries| has changed.
+        private List<T> snapshot;
+
+        abstract T decode(JSONObject info) throws JSONException;
+
+        synchronized void putInfo(String id, JSONObject info) {
+            entries.put(id, info);
+            snapshot = null;
+        }
+
+        synchronized void put(String id, T value) {
+            entries.put(id, value);
+            snapshot = null;
+        }
+
+        synchronized T get(String id) {
+            return materialize(id, entries.get(id));
+        }
+
+        synchronized T remove(String id) {
+            Object entry = entries.remove(id);
+            if (entry != null) {
+                snapshot = null;
+            }
+            return materialize(id, entry);
+        }
+
+        synchronized List<T> values() {
+            if (snapshot == null) {
+                ArrayList<T> values = new ArrayList<>(entries.size());
+                // Copied as decoding an entry that turns out malformed removes it.
+                for (Map.Entry<String, Object> entry : new ArrayList<>(entries.entrySet())) {
+                    T value = materialize(entry.getKey(), entry.getValue());
+                    if (value != null) {
+                        values.add(value);
+                    }
+                }
+                snapshot = Collections.unmodifiableList(values);
+            }
+            return snapshot;
+        }
+
+        @SuppressWarnings("unchecked")
+        private T materialize(String id, Object entry) {
+            if (!(entry instanceof JSONObject)) {
+                return (T) entry;
+            }
+            try {
+                T value = decode((JSONObject) entry);
+                // Replacing the value of an existing key keeps its position.
+                if (entries.containsKey(id)) {
+                    entries.put(id, value);
+                }
+                return value;
+            } catch (JSONException e) {
+                Log.e(LOG_TAG, "Dropped malformed conference info of " + id + ": "
+                        + e.getMessage());
+                if (entries.remove(id) != null) {
+                    snapshot = null;
+                }
+                return null;
+            }
+        }
+    }
+
+    private final LazyIndex<Participant> participants = new LazyIndex<Participant>() {
+        @Override
+        Participant decode(JSONObject info) throws JSONException {
+            return new Participant(info);
+        }
+    };
+    private final LazyIndex<RemoteStream> remoteStreams = new LazyIndex<RemoteStream>() {
+        @Override
+        RemoteStream decode(JSONObject info) throws JSONException {
+            return info.getString("type").equals("mixed")
+                    ? new RemoteMixedStream(info) : new RemoteStream(info);
+        }
+    };
     private String id;
+    private String selfId;
     private Participant self;
 
     ConferenceInfo(JSONObject conferenceInfo) throws JSONException {
-        participants = Collections.synchronizedList(new ArrayList<>());
-        remoteStreams = Collections.synchronizedList(new ArrayList<>());
         updateInfo(conferenceInfo);
     }
 
@@ -34,37 +121,55 @@ public final class ConferenceInfo {
 
         JSONObject room = conferenceInfo.getJSONObject("room");
         id = room.getString("id");
+        selfId = conferenceInfo.getString("id");
 
-        // dealing with participants
+        // Only the ids are read here, the rest is decoded on first access, except for the
+        // client itself: a malformed entry of its own fails the join rather than being dropped.
         JSONArray participantsInfo = room.getJSONArray("participants");
         for (int i = 0; i < participantsInfo.length(); i++) {
             JSONObject participantInfo = participantsInfo.getJSONObject(i);
-            Participant participant = new Participant(participantInfo);
-            synchronized (parLock) {
-                participants.add(participant);
-            }
-
-            if (participant.id.equals(conferenceInfo.getString("id"))) {
-                self = participant;
+            String participantId = participantInfo.getString("id");
+            if (participantId.equals(selfId)) {
+                self = new Participant(participantInfo);
+                participants.put(participantId, self);
+            } else {
+                participants.putInfo(participantId, participantInfo);
             }
         }
 
-        // dealing with remote streams
         JSONArray streamsInfo = room.getJSONArray("streams");
         for (int i = 0; i < streamsInfo.length(); i++) {
             JSONObject streamInfo = streamsInfo.getJSONObject(i);
-            RemoteStream remoteStream;
-            if (streamInfo.getString("type").equals("mixed")) {
-                remoteStream = new RemoteMixedStream(streamInfo);
-            } else {
-                remoteStream = new RemoteStream(streamInfo);
-            }
-            synchronized (streamLock) {
-                remoteStreams.add(remoteStream);
-            }
+            remoteStreams.putInfo(streamInfo.getString("id"), streamInfo);
         }
     }
 
+    void addParticipant(Participant participant) {
+        participants.put(participant.id, participant);
+    }
+
+    /**
+     * @return the Participant removed, null if there is no Participant with |participantId|.
+     */
+    Participant removeParticipant(String participantId) {
+        return participants.remove(participantId);
+    }
+
+    void addRemoteStream(RemoteStream remoteStream) {
+        remoteStreams.put(remoteStream.id(), remoteStream);
+    }
+
+    /**
+     * @return the RemoteStream removed, null if there is no RemoteStream with |streamId|.
+     */
+    RemoteStream removeRemoteStream(String streamId) {
+        return remoteStreams.remove(streamId);
+    }
+
+    RemoteStream getRemoteStream(String streamId) {
+        return remoteStreams.get(streamId);
+    }
+
     /**
      * Conference room id.
      *
@@ -84,25 +189,23 @@ public final class ConferenceInfo {
     }
 
     /**
-     * Get the information of all the Participant%s in the conference.
+     * Get the information of all the Participant%s in the conference. The list is a snapshot,
+     * it does not change when Participant%s join or leave.
      *
      * @return list of Participant%s in the conference.
      */
     public List<Participant> getParticipants() {
-        synchronized (parLock) {
-            return Collections.unmodifiableList(participants);
-        }
+        return participants.values();
     }
 
     /**
-     * Get the information of all the RemoteStream%s in the conference.
+     * Get the information of all the RemoteStream%s in the conference. The list is a snapshot,
+     * it does not change when RemoteStream%s are added or removed.
      *
      * @return list of the RemoteStream%s in the conference.
      */
     public List<RemoteStream> getRemoteStreams() {
-        synchronized (streamLock) {
-            return Collections.unmodifiableList(remoteStreams);
-        }
+        return remoteStreams.values();
     }
 
 }
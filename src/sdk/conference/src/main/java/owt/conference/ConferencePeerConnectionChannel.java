@@ -5,6 +5,7 @@
 package owt.conference;
 
 import static owt.base.CheckCondition.DCHECK;
+import static owt.base.Const.LOG_TAG;
 
 import android.util.Log;
 
@@ -15,15 +16,19 @@ import owt.base.PeerConnectionChannel;
 import owt.base.Stream;
 import owt.base.VideoCodecParameters;
 import owt.base.VideoEncodingParameters;
+import owt.base.sdp.Sdp;
 
 import org.webrtc.IceCandidate;
 import org.webrtc.MediaStream;
 import org.webrtc.PeerConnection;
 import org.webrtc.RtpReceiver;
+import org.webrtc.SessionDescription;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 final class ConferencePeerConnectionChannel extends PeerConnectionChannel {
     private final List<IceCandidate> queuedLocalCandidates;
@@ -32,6 +37,12 @@ final class ConferencePeerConnectionChannel extends PeerConnectionChannel {
     Publication publication;
     Subscription subscription;
     private boolean remoteSdpSet = false;
+    // null when candidates are signaled one by one.
+    private IceCandidateCoalescer candidateCoalescer = null;
+    // System.nanoTime() of the steps of a publication, for time-to-first-frame instrumentation.
+    volatile long publishRequestedNs = 0;
+    volatile long publishAckedNs = 0;
+    private volatile long offerCreatedNs = 0;
 
     ConferencePeerConnectionChannel(String key, PeerConnection.RTCConfiguration configuration,
             boolean receiveVideo, boolean receiveAudio,
@@ -40,6 +51,13 @@ final class ConferencePeerConnectionChannel extends PeerConnectionChannel {
         queuedLocalCandidates = new LinkedList<>();
     }
 
+    // Must be called before publish() or subscribe().
+    void coalesceCandidates(long windowMs, ScheduledExecutorService scheduler,
+            IceCandidateCoalescer.CandidateSink sink, IceCandidateCoalescer.Counters counters) {
+        candidateCoalescer =
+                new IceCandidateCoalescer(windowMs, scheduler, callbackExecutor, sink, counters);
+    }
+
     void publish(LocalStream localStream, PublishOptions options) {
         stream = localStream;
         if (options != null && options.videoEncodingParameters != null
@@ -81,7 +99,25 @@ final class ConferencePeerConnectionChannel extends PeerConnectionChannel {
         createOffer();
     }
 
+    void logPublishTimings(String id, boolean pipelined) {
+        if (publishRequestedNs == 0) {
+            return;
+        }
+        Log.d(LOG_TAG, "Publication " + id + (pipelined ? " (pipelined)" : "") + " ready in "
+                + sinceRequestMs(System.nanoTime()) + " ms, offer created at "
+                + sinceRequestMs(offerCreatedNs) + " ms, request acknowledged at "
+                + sinceRequestMs(publishAckedNs) + " ms.");
+    }
+
+    private long sinceRequestMs(long ns) {
+        return TimeUnit.NANOSECONDS.toMillis(ns - publishRequestedNs);
+    }
+
     protected synchronized void dispose() {
+        // Queued before super.dispose() which tears |callbackExecutor| down.
+        if (candidateCoalescer != null) {
+            callbackExecutor.execute(() -> candidateCoalescer.dispose());
+        }
         super.dispose();
         if (publication != null) {
             DCHECK(subscription == null);
@@ -96,11 +132,18 @@ final class ConferencePeerConnectionChannel extends PeerConnectionChannel {
     @Override
     public void onSetSuccess() {
         if (signalingState == PeerConnection.SignalingState.STABLE) {
-            remoteSdpSet = true;
-            for (IceCandidate iceCandidate : queuedLocalCandidates) {
-                observer.onIceCandidate(key, iceCandidate);
-            }
-            queuedLocalCandidates.clear();
+            // |queuedLocalCandidates| and |remoteSdpSet| are accessed on |callbackExecutor|.
+            callbackExecutor.execute(() -> {
+                remoteSdpSet = true;
+                if (candidateCoalescer != null) {
+                    candidateCoalescer.addAll(queuedLocalCandidates);
+                } else {
+                    for (IceCandidate iceCandidate : queuedLocalCandidates) {
+                        observer.onIceCandidate(key, iceCandidate);
+                    }
+                }
+                queuedLocalCandidates.clear();
+            });
 
             if (stream instanceof LocalStream) {
                 setMaxBitrate(stream.id());
@@ -108,6 +151,24 @@ final class ConferencePeerConnectionChannel extends PeerConnectionChannel {
         }
     }
 
+    @Override
+    public void onCreateSuccess(SessionDescription sessionDescription) {
+        if (offerCreatedNs == 0) {
+            offerCreatedNs = System.nanoTime();
+        }
+        super.onCreateSuccess(sessionDescription);
+    }
+
+    @Override
+    protected boolean needsLocalDescriptionChange(String description) {
+        return description.contains("a=ice-options:google-ice");
+    }
+
+    @Override
+    protected void onPrepareLocalDescription(Sdp sdp) {
+        sdp.removeAttribute("ice-options:google-ice");
+    }
+
     @Override
     public void onCreateFailure(final String error) {
         callbackExecutor.execute(() -> observer.onError(key, error, false));
@@ -139,10 +200,25 @@ final class ConferencePeerConnectionChannel extends PeerConnectionChannel {
     @Override
     public void onIceCandidate(final IceCandidate iceCandidate) {
         callbackExecutor.execute(() -> {
-            if (remoteSdpSet) {
-                observer.onIceCandidate(key, iceCandidate);
-            } else {
+            if (!remoteSdpSet) {
                 queuedLocalCandidates.add(iceCandidate);
+            } else if (candidateCoalescer != null) {
+                candidateCoalescer.add(iceCandidate);
+            } else {
+                observer.onIceCandidate(key, iceCandidate);
+            }
+        });
+    }
+
+    @Override
+    public void onIceGatheringChange(PeerConnection.IceGatheringState iceGatheringState) {
+        if (candidateCoalescer == null
+                || iceGatheringState != PeerConnection.IceGatheringState.COMPLETE) {
+            return;
+        }
+        callbackExecutor.execute(() -> {
+            if (remoteSdpSet) {
+                candidateCoalescer.flush();
             }
         });
     }
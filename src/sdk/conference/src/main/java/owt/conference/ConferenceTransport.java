@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+/**
+ * Interface for the transport ConferenceClient relies on for exchanging signaling messages with
+ * the conference server. The default implementation is based on socket.io, a custom one can be
+ * set through ConferenceClientConfiguration.Builder.setTransportFactory. Methods may be called
+ * on any thread, Listener methods and Acks may be triggered on any thread.
+ */
+public interface ConferenceTransport {
+
+    /**
+     * Factory creating a ConferenceTransport for every join.
+     */
+    interface Factory {
+        /**
+         * Create a ConferenceTransport.
+         *
+         * @return ConferenceTransport not connected yet.
+         */
+        ConferenceTransport create();
+    }
+
+    /**
+     * Acknowledgement of a message emitted. The first argument is "ok" when the server
+     * accepts the message, the following ones are the result or the error message.
+     */
+    interface Ack {
+        void call(Object... args);
+    }
+
+    /**
+     * Interface for observing transport events.
+     */
+    interface Listener {
+        /**
+         * Called upon the connection to the server being established.
+         */
+        void onConnected();
+
+        /**
+         * Called upon failing to establish the connection.
+         *
+         * @param reason reason of the failure.
+         */
+        void onConnectFailed(String reason);
+
+        /**
+         * Called upon the connection being lost or closed by disconnect().
+         */
+        void onDisconnected();
+
+        /**
+         * Called upon receiving an event from the server, i.e. "progress", "participant",
+         * "stream", "text" or "drop".
+         *
+         * @param event name of the event.
+         * @param message payload of the event, a JSONObject or null.
+         */
+        void onEvent(String event, Object message);
+    }
+
+    /**
+     * Connect to the server, or connect again after the connection is lost or could not be
+     * established. Listener.onConnected or Listener.onConnectFailed is triggered afterwards.
+     *
+     * @param url url of the server, e.g. https://example.com:8080.
+     * @param listener Listener of the connection, the same one for all the calls.
+     */
+    void connect(String url, Listener listener);
+
+    /**
+     * Close the connection. Listener.onDisconnected is triggered afterwards if connected.
+     */
+    void disconnect();
+
+    /**
+     * @return whether the connection is established.
+     */
+    boolean isConnected();
+
+    /**
+     * Send a message to the server.
+     *
+     * @param event name of the message.
+     * @param message payload of the message, a JSONObject, String or JSONObject.NULL. null to
+     * send the message without payload.
+     * @param ack Ack to be called with the response of the server.
+     */
+    void emit(String event, Object message, Ack ack);
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import org.webrtc.IceCandidate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Batches the local candidates of one PeerConnection into fewer signaling messages. A candidate
+ * arriving while no window is open is sent right away and opens a window, candidates arriving
+ * during the window are sent together when it closes. A window closing with candidates sent
+ * opens the next one, so a steady trickle results in at most one message per window.
+ *
+ * All methods except the constructor must be called on |executor|, which is also where |sink| is
+ * called.
+ */
+final class IceCandidateCoalescer {
+
+    interface CandidateSink {
+        void send(List<IceCandidate> candidates);
+    }
+
+    /**
+     * Counters shared by all the coalescers of a ConferenceClient.
+     */
+    static final class Counters {
+        // Candidates sent.
+        final AtomicLong candidates = new AtomicLong();
+        // Signaling messages sent.
+        final AtomicLong emits = new AtomicLong();
+        // Sum of the time candidates have been held in a window.
+        final AtomicLong addedLatencyMs = new AtomicLong();
+
+        long emitsSaved() {
+            return candidates.get() - emits.get();
+        }
+
+        @Override
+        public String toString() {
+            return "candidates: " + candidates.get() + ", emits: " + emits.get()
+                    + ", emits saved: " + emitsSaved() + ", added latency: "
+                    + addedLatencyMs.get() + " ms";
+        }
+    }
+
+    private final long windowMs;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+    private final CandidateSink sink;
+    private final Counters counters;
+    private final ArrayList<IceCandidate> pending = new ArrayList<>();
+    // Sum of the arrival times of |pending|, in nanoseconds.
+    private long pendingArrivalSumNs = 0;
+    private ScheduledFuture<?> windowEnd = null;
+    // Incremented for every window opened, so that the end of a cancelled window is ignored.
+    private int windowId = 0;
+    private boolean disposed = false;
+
+    IceCandidateCoalescer(long windowMs, ScheduledExecutorService scheduler, Executor executor,
+            CandidateSink sink, Counters counters) {
+        this.windowMs = windowMs;
+        this.scheduler = scheduler;
+        this.executor = executor;
+        this.sink = sink;
+        this.counters = counters;
+    }
+
+    void add(IceCandidate candidate) {
+        if (disposed) {
+            return;
+        }
+        if (windowEnd != null) {
+            pending.add(candidate);
+            pendingArrivalSumNs += System.nanoTime();
+            return;
+        }
+        ArrayList<IceCandidate> candidates = new ArrayList<>(1);
+        candidates.add(candidate);
+        send(candidates);
+        openWindow();
+    }
+
+    /**
+     * Send |candidates| in one message without delay, e.g. the candidates held until the remote
+     * description is set.
+     */
+    void addAll(List<IceCandidate> candidates) {
+        if (disposed || candidates.isEmpty()) {
+            return;
+        }
+        flush();
+        send(new ArrayList<>(candidates));
+        openWindow();
+    }
+
+    /**
+     * Send the pending candidates now and close the window, called upon the end of gathering.
+     */
+    void flush() {
+        if (windowEnd != null) {
+            windowEnd.cancel(false);
+            windowEnd = null;
+        }
+        sendPending();
+    }
+
+    void dispose() {
+        disposed = true;
+        if (windowEnd != null) {
+            windowEnd.cancel(false);
+            windowEnd = null;
+        }
+        pending.clear();
+        pendingArrivalSumNs = 0;
+    }
+
+    private void openWindow() {
+        final int id = ++windowId;
+        final Runnable onWindowEnd = () -> {
+            if (disposed || windowEnd == null || id != windowId) {
+                return;
+            }
+            windowEnd = null;
+            if (sendPending()) {
+                openWindow();
+            }
+        };
+        windowEnd = scheduler.schedule(() -> executor.execute(onWindowEnd), windowMs,
+                TimeUnit.MILLISECONDS);
+    }
+
+    private boolean sendPending() {
+        if (pending.isEmpty()) {
+            return false;
+        }
+        long heldNs = pending.size() * System.nanoTime() - pendingArrivalSumNs;
+        counters.addedLatencyMs.addAndGet(TimeUnit.NANOSECONDS.toMillis(heldNs));
+        ArrayList<IceCandidate> candidates = new ArrayList<>(pending);
+        pending.clear();
+        pendingArrivalSumNs = 0;
+        send(candidates);
+        return true;
+    }
+
+    private void send(List<IceCandidate> candidates) {
+        counters.candidates.addAndGet(candidates.size());
+        counters.emits.incrementAndGet();
+        sink.send(candidates);
+    }
+}
@@ -6,9 +6,12 @@ package owt.conference;
 
 import static owt.base.CheckCondition.DCHECK;
 
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 
+import java.util.Iterator;
+
 final class JsonUtils {
 
     static String getString(JSONObject jsonObject, String key) {
@@ -64,4 +67,62 @@ final class JsonUtils {
             return null;
         }
     }
+
+    /**
+     * Compare two JSON values member by member, stopping at the first difference. Numbers are
+     * compared by value, the order of the keys of an object does not matter.
+     */
+    static boolean same(Object a, Object b) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null) {
+            return false;
+        }
+        if (a instanceof JSONObject) {
+            if (!(b instanceof JSONObject)) {
+                return false;
+            }
+            JSONObject objectA = (JSONObject) a;
+            JSONObject objectB = (JSONObject) b;
+            if (objectA.length() != objectB.length()) {
+                return false;
+            }
+            Iterator<String> keys = objectA.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                if (!same(objectA.opt(key), objectB.opt(key))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (a instanceof JSONArray) {
+            if (!(b instanceof JSONArray)) {
+                return false;
+            }
+            JSONArray arrayA = (JSONArray) a;
+            JSONArray arrayB = (JSONArray) b;
+            if (arrayA.length() != arrayB.length()) {
+                return false;
+            }
+            for (int i = 0; i < arrayA.length(); i++) {
+                if (!same(arrayA.opt(i), arrayB.opt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (a instanceof Number && b instanceof Number) {
+            if (isIntegral(a) && isIntegral(b)) {
+                return ((Number) a).longValue() == ((Number) b).longValue();
+            }
+            return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue()) == 0;
+        }
+        return a.equals(b);
+    }
+
+    private static boolean isIntegral(Object number) {
+        return number instanceof Integer || number instanceof Long;
+    }
 }
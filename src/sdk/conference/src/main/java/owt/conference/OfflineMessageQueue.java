@@ -0,0 +1,285 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import static owt.base.CheckCondition.DCHECK;
+import static owt.base.Const.LOG_TAG;
+
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import owt.conference.ConferenceTransport.Ack;
+
+/**
+ * Signaling messages sent while the socket is disconnected, sent when it is back. The queue
+ * coalesces messages that the server would only need the result of:
+ * - pause/play of the same track of a publication or subscription, the latest one is kept.
+ * - ICE candidates of the same channel are merged into one message, if enabled.
+ * soac messages of the channels disposed in the meantime are dropped when flushing.
+ *
+ * The queue holds |capacity| messages at most, the oldest message is dropped when a new one
+ * does not fit. The ack of a message dropped is called with an error, the acks of the messages
+ * coalesced are called with the result of the message they are coalesced into.
+ */
+final class OfflineMessageQueue {
+
+    interface ChannelRegistry {
+        boolean isAlive(String id);
+    }
+
+    interface Sender {
+        void send(String type, JSONObject msg, Ack ack);
+    }
+
+    static final class Counters {
+        // Messages added to the queue.
+        final AtomicLong queued = new AtomicLong();
+        // Messages sent when flushing.
+        final AtomicLong sent = new AtomicLong();
+        // Messages merged into or superseded by a later one.
+        final AtomicLong coalesced = new AtomicLong();
+        // soac messages of channels disposed before flushing.
+        final AtomicLong droppedDeadChannel = new AtomicLong();
+        // Messages dropped because the queue was full.
+        final AtomicLong droppedOverflow = new AtomicLong();
+
+        @Override
+        public String toString() {
+            return "queued: " + queued.get() + ", sent: " + sent.get() + ", coalesced: "
+                    + coalesced.get() + ", dropped for dead channels: "
+                    + droppedDeadChannel.get() + ", dropped on overflow: "
+                    + droppedOverflow.get();
+        }
+    }
+
+    private static final class Message {
+        final String type;
+        final JSONObject msg;
+        // Key under which later messages are coalesced into this one, null if none.
+        final String coalescingKey;
+        // Acks of this message and of the messages coalesced into it.
+        final ArrayList<Ack> acks = new ArrayList<>(1);
+        boolean removed = false;
+
+        Message(String type, JSONObject msg, Ack ack, String coalescingKey) {
+            this.type = type;
+            this.msg = msg;
+            this.coalescingKey = coalescingKey;
+            if (ack != null) {
+                acks.add(ack);
+            }
+        }
+
+        Ack ack() {
+            if (acks.isEmpty()) {
+                return null;
+            }
+            if (acks.size() == 1) {
+                return acks.get(0);
+            }
+            return args -> {
+                for (Ack ack : acks) {
+                    ack.call(args);
+                }
+            };
+        }
+    }
+
+    static final int DEFAULT_CAPACITY = 256;
+    private static final String SOAC = "soac";
+
+    private final int capacity;
+    private final boolean mergeCandidates;
+    private final ChannelRegistry channels;
+    private final Counters counters = new Counters();
+    // Guards all the fields below.
+    private final Object lock = new Object();
+    // Oldest first, including the messages removed, which are skipped.
+    private final ArrayDeque<Message> messages = new ArrayDeque<>();
+    // Number of messages in |messages| not removed.
+    private int size = 0;
+    // key: coalescing key.
+    private final HashMap<String, Message> coalescable = new HashMap<>();
+
+    OfflineMessageQueue(int capacity, boolean mergeCandidates, ChannelRegistry channels) {
+        DCHECK(capacity > 0);
+        this.capacity = capacity;
+        this.mergeCandidates = mergeCandidates;
+        this.channels = channels;
+    }
+
+    void add(String type, JSONObject msg, Ack ack) {
+        counters.queued.incrementAndGet();
+        Message dropped;
+        synchronized (lock) {
+            String id = msg == null ? null : msg.optString("id", null);
+            String key = null;
+            if (SOAC.equals(type) && id != null) {
+                JSONObject signaling = msg.optJSONObject("signaling");
+                String signalingType = signaling == null ? "" : signaling.optString("type");
+                if (mergeCandidates && (signalingType.equals("candidate")
+                        || signalingType.equals("candidates"))) {
+                    key = "candidates/" + id;
+                    Message previous = coalescable.get(key);
+                    if (previous != null && mergeCandidates(previous.msg, signaling)) {
+                        counters.coalesced.incrementAndGet();
+                        return;
+                    }
+                } else {
+                    // Candidates queued later must not be sent ahead of this message.
+                    coalescable.remove("candidates/" + id);
+                }
+            } else if (isTrackControl(type, msg)) {
+                key = type + "/" + id + "/" + msg.optString("data");
+            }
+            Message message = new Message(type, msg, ack, key);
+            Message previous = key == null ? null : coalescable.get(key);
+            if (previous != null) {
+                // Only track controls get here, merging candidates has returned already.
+                previous.removed = true;
+                size--;
+                message.acks.addAll(0, previous.acks);
+                counters.coalesced.incrementAndGet();
+            }
+            dropped = append(message);
+        }
+        if (dropped != null) {
+            Log.w(LOG_TAG, "Offline signaling queue is full, dropped a " + dropped.type
+                    + " message.");
+            fail(dropped, "Signaling message dropped, the offline queue is full.");
+        }
+    }
+
+    /**
+     * Send the messages queued, in order, and empty the queue.
+     */
+    void flush(Sender sender) {
+        List<Message> toSend;
+        synchronized (lock) {
+            toSend = new ArrayList<>(messages);
+            messages.clear();
+            coalescable.clear();
+            size = 0;
+        }
+        for (Message message : toSend) {
+            if (message.removed) {
+                continue;
+            }
+            if (SOAC.equals(message.type)
+                    && !channels.isAlive(message.msg.optString("id"))) {
+                counters.droppedDeadChannel.incrementAndGet();
+                continue;
+            }
+            counters.sent.incrementAndGet();
+            sender.send(message.type, message.msg, message.ack());
+        }
+        Log.d(LOG_TAG, "Offline signaling queue flushed, " + counters);
+    }
+
+    /**
+     * Empty the queue, the acks of the messages queued are called with an error.
+     */
+    void clear(String reason) {
+        List<Message> toFail;
+        synchronized (lock) {
+            toFail = new ArrayList<>(messages);
+            messages.clear();
+            coalescable.clear();
+            size = 0;
+        }
+        for (Message message : toFail) {
+            if (!message.removed) {
+                fail(message, reason);
+            }
+        }
+    }
+
+    Counters counters() {
+        return counters;
+    }
+
+    /**
+     * @return number of messages held.
+     */
+    int size() {
+        synchronized (lock) {
+            return size;
+        }
+    }
+
+    // Must be called with |lock| held. Returns the message dropped to make room, if any.
+    private Message append(Message message) {
+        messages.addLast(message);
+        size++;
+        if (message.coalescingKey != null) {
+            coalescable.put(message.coalescingKey, message);
+        }
+        if (size <= capacity) {
+            return null;
+        }
+        Message oldest = messages.pollFirst();
+        while (oldest.removed) {
+            oldest = messages.pollFirst();
+        }
+        size--;
+        if (oldest.coalescingKey != null && coalescable.get(oldest.coalescingKey) == oldest) {
+            coalescable.remove(oldest.coalescingKey);
+        }
+        counters.droppedOverflow.incrementAndGet();
+        return oldest;
+    }
+
+    private static boolean isTrackControl(String type, JSONObject msg) {
+        if (msg == null || !(type.equals("stream-control")
+                || type.equals("subscription-control"))) {
+            return false;
+        }
+        String operation = msg.optString("operation");
+        return operation.equals("pause") || operation.equals("play");
+    }
+
+    // Merges the candidates of |signaling| into the soac message |target|.
+    private static boolean mergeCandidates(JSONObject target, JSONObject signaling) {
+        try {
+            JSONObject targetSignaling = target.getJSONObject("signaling");
+            JSONArray candidates = targetSignaling.optJSONArray("candidates");
+            if (candidates == null) {
+                candidates = new JSONArray();
+                candidates.put(targetSignaling.getJSONObject("candidate"));
+                targetSignaling.remove("candidate");
+                targetSignaling.put("type", "candidates");
+                targetSignaling.put("candidates", candidates);
+            }
+            if (signaling.has("candidates")) {
+                JSONArray added = signaling.getJSONArray("candidates");
+                for (int i = 0; i < added.length(); i++) {
+                    candidates.put(added.get(i));
+                }
+            } else {
+                candidates.put(signaling.getJSONObject("candidate"));
+            }
+            return true;
+        } catch (JSONException e) {
+            DCHECK(e);
+            return false;
+        }
+    }
+
+    private static void fail(Message message, String reason) {
+        Ack ack = message.ack();
+        if (ack != null) {
+            ack.call("error", reason);
+        }
+    }
+}
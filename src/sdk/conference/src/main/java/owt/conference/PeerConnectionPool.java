@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import static owt.base.Const.LOG_TAG;
+
+import android.util.Log;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import owt.base.SerialExecutor;
+import owt.base.WorkerPool;
+
+/**
+ * Receive-only ConferencePeerConnectionChannels created ahead of subscriptions, so that
+ * subscribe() does not pay for creating the native PeerConnection. A channel taken from the pool
+ * is bound to its subscription id through its PendingChannelObserver. The pool refills in the
+ * background after every take and drops channels left unused for longer than the idle timeout.
+ */
+final class PeerConnectionPool {
+
+    interface ChannelFactory {
+        ConferencePeerConnectionChannel create(String key, PendingChannelObserver observer);
+    }
+
+    private static final class Entry {
+        final PendingChannelObserver observer;
+        final long createdAtMs;
+
+        Entry(PendingChannelObserver observer, long createdAtMs) {
+            this.observer = observer;
+            this.createdAtMs = createdAtMs;
+        }
+    }
+
+    private final int maxSize;
+    private final long idleTimeoutMs;
+    private final ConferenceClient client;
+    private final ChannelFactory factory;
+    // Channels are created and disposed on |executor|, off the callers' threads.
+    private final SerialExecutor executor = WorkerPool.newSerialExecutor();
+    // Guards all the fields below.
+    private final Object lock = new Object();
+    // Oldest first.
+    private final ArrayDeque<Entry> idle = new ArrayDeque<>();
+    private int creating = 0;
+    private int created = 0;
+    private boolean started = false;
+    private ScheduledFuture<?> eviction = null;
+    private int hits = 0;
+    private int misses = 0;
+
+    PeerConnectionPool(int maxSize, long idleTimeoutMs, ConferenceClient client,
+            ChannelFactory factory) {
+        this.maxSize = maxSize;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.client = client;
+        this.factory = factory;
+    }
+
+    void start() {
+        synchronized (lock) {
+            started = true;
+        }
+        refill();
+    }
+
+    /**
+     * Dispose the channels in the pool. Channels being created are disposed when done.
+     */
+    void stop() {
+        final ArrayList<Entry> entries;
+        synchronized (lock) {
+            if (!started) {
+                return;
+            }
+            started = false;
+            entries = new ArrayList<>(idle);
+            idle.clear();
+            if (eviction != null) {
+                eviction.cancel(false);
+                eviction = null;
+            }
+            Log.d(LOG_TAG, "PeerConnection pool stopped, hits: " + hits + ", misses: " + misses);
+        }
+        executor.execute(() -> dispose(entries));
+    }
+
+    /**
+     * @return the observer of a pooled channel, its channel is set. null if the pool is empty.
+     */
+    PendingChannelObserver take() {
+        Entry entry;
+        synchronized (lock) {
+            if (!started) {
+                return null;
+            }
+            entry = idle.pollFirst();
+            if (entry == null) {
+                misses++;
+            } else {
+                hits++;
+            }
+        }
+        refill();
+        return entry == null ? null : entry.observer;
+    }
+
+    private void refill() {
+        int toCreate;
+        synchronized (lock) {
+            if (!started) {
+                return;
+            }
+            toCreate = maxSize - idle.size() - creating;
+            if (toCreate <= 0) {
+                return;
+            }
+            creating += toCreate;
+        }
+        for (int i = 0; i < toCreate; i++) {
+            executor.execute(this::createChannel);
+        }
+    }
+
+    private void createChannel() {
+        String key;
+        synchronized (lock) {
+            key = "pooled-" + (++created);
+        }
+        PendingChannelObserver observer = new PendingChannelObserver(client);
+        observer.channel = factory.create(key, observer);
+        synchronized (lock) {
+            creating--;
+            if (started) {
+                idle.addLast(new Entry(observer, System.currentTimeMillis()));
+                scheduleEviction();
+                return;
+            }
+        }
+        observer.cancel();
+        observer.channel.dispose();
+    }
+
+    // Must be called with |lock| held.
+    private void scheduleEviction() {
+        if (eviction != null || idle.isEmpty()) {
+            return;
+        }
+        long delay = idle.peekFirst().createdAtMs + idleTimeoutMs - System.currentTimeMillis();
+        eviction = WorkerPool.scheduler().schedule(() -> executor.execute(this::evict),
+                Math.max(0, delay), TimeUnit.MILLISECONDS);
+    }
+
+    private void evict() {
+        ArrayList<Entry> expired = new ArrayList<>();
+        synchronized (lock) {
+            eviction = null;
+            if (!started) {
+                return;
+            }
+            long now = System.currentTimeMillis();
+            while (!idle.isEmpty() && now - idle.peekFirst().createdAtMs >= idleTimeoutMs) {
+                expired.add(idle.pollFirst());
+            }
+            scheduleEviction();
+        }
+        dispose(expired);
+    }
+
+    private static void dispose(ArrayList<Entry> entries) {
+        for (Entry entry : entries) {
+            entry.observer.cancel();
+            entry.observer.channel.dispose();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import org.webrtc.IceCandidate;
+import org.webrtc.SessionDescription;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import owt.base.PeerConnectionChannel.PeerConnectionChannelObserver;
+import owt.base.RemoteStream;
+
+/**
+ * Observer of a ConferencePeerConnectionChannel created before the server has assigned the id
+ * of its publication or subscription. Calls are held until bind() and forwarded to ConferenceClient with the
+ * assigned id, in order, afterwards. Calls are dropped after cancel().
+ */
+final class PendingChannelObserver implements PeerConnectionChannelObserver {
+
+    private interface Call {
+        void run(String id);
+    }
+
+    private final ConferenceClient client;
+    // The channel observed, set before the observer is handed over to another thread.
+    ConferencePeerConnectionChannel channel = null;
+    // Guards all the fields below.
+    private final Object lock = new Object();
+    private String id = null;
+    private boolean flushing = false;
+    private boolean cancelled = false;
+    private final ArrayList<Call> held = new ArrayList<>();
+
+    PendingChannelObserver(ConferenceClient client) {
+        this.client = client;
+    }
+
+    /**
+     * @return the id assigned by the server, null until bind().
+     */
+    String id() {
+        synchronized (lock) {
+            return id;
+        }
+    }
+
+    void bind(String id) {
+        synchronized (lock) {
+            if (cancelled || this.id != null) {
+                return;
+            }
+            this.id = id;
+            flushing = true;
+        }
+        while (true) {
+            Call call;
+            synchronized (lock) {
+                if (held.isEmpty() || cancelled) {
+                    held.clear();
+                    flushing = false;
+                    return;
+                }
+                call = held.remove(0);
+            }
+            call.run(id);
+        }
+    }
+
+    void cancel() {
+        synchronized (lock) {
+            cancelled = true;
+            held.clear();
+        }
+    }
+
+    private void forward(Call call) {
+        String boundId;
+        synchronized (lock) {
+            if (cancelled) {
+                return;
+            }
+            if (id == null || flushing) {
+                held.add(call);
+                return;
+            }
+            boundId = id;
+        }
+        call.run(boundId);
+    }
+
+    void onIceCandidates(final List<IceCandidate> candidates) {
+        forward(id -> client.onIceCandidates(id, candidates));
+    }
+
+    @Override
+    public void onIceCandidate(String key, final IceCandidate candidate) {
+        forward(id -> client.onIceCandidate(id, candidate));
+    }
+
+    @Override
+    public void onIceCandidatesRemoved(String key, final IceCandidate[] candidates) {
+        forward(id -> client.onIceCandidatesRemoved(id, candidates));
+    }
+
+    @Override
+    public void onLocalDescription(String key, final SessionDescription localSdp) {
+        forward(id -> client.onLocalDescription(id, localSdp));
+    }
+
+    @Override
+    public void onError(String key, final String errorMsg, final boolean recoverable) {
+        forward(id -> client.onError(id, errorMsg, recoverable));
+    }
+
+    @Override
+    public void onEnded(String key) {
+        forward(client::onEnded);
+    }
+
+    @Override
+    public void onAddStream(String key, final RemoteStream remoteStream) {
+        forward(id -> client.onAddStream(id, remoteStream));
+    }
+
+    @Override
+    public void onDataChannelMessage(String key, final String message) {
+        forward(id -> client.onDataChannelMessage(id, message));
+    }
+
+    @Override
+    public void onRenegotiationRequest(String key) {
+        forward(client::onRenegotiationRequest);
+    }
+}
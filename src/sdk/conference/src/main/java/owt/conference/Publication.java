@@ -18,7 +18,7 @@ import org.webrtc.RTCStatsReport;
 import java.util.ArrayList;
 import java.util.List;
 
-import io.socket.client.Ack;
+import owt.conference.ConferenceTransport.Ack;
 
 /**
  * Publication handles the actions on a LocalStream published by a ConferenceClient.
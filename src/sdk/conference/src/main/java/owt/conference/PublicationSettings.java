@@ -31,26 +31,36 @@ public final class PublicationSettings {
 
     PublicationSettings(JSONObject mediaInfo) throws JSONException {
         DCHECK(mediaInfo);
+        audioPublicationSettings = audioSettings(getObj(mediaInfo, "audio"));
+        videoPublicationSettings = videoSettings(getObj(mediaInfo, "video"));
+    }
+
+    PublicationSettings(List<AudioPublicationSettings> audioPublicationSettings,
+            List<VideoPublicationSettings> videoPublicationSettings) {
+        this.audioPublicationSettings = audioPublicationSettings;
+        this.videoPublicationSettings = videoPublicationSettings;
+    }
 
-        JSONObject audio = getObj(mediaInfo, "audio");
-        if (audio != null) {
-            audioPublicationSettings = new ArrayList<>();
-            audioPublicationSettings.add(new AudioPublicationSettings(audio));
-        } else {
-            audioPublicationSettings = null;
+    static List<AudioPublicationSettings> audioSettings(JSONObject audio) {
+        if (audio == null) {
+            return null;
         }
+        List<AudioPublicationSettings> settings = new ArrayList<>();
+        settings.add(new AudioPublicationSettings(audio));
+        return settings;
+    }
 
-        JSONObject video = getObj(mediaInfo, "video");
-        if (video != null) {
-            videoPublicationSettings = new ArrayList<>();
-            JSONArray videoOrigins = video.getJSONArray("original");
-            for (int i = 0; i < videoOrigins.length(); i++) {
-                JSONObject videoObj = videoOrigins.getJSONObject(i);
-                videoPublicationSettings.add(new VideoPublicationSettings(videoObj));
-            }
-        } else {
-            videoPublicationSettings = null;
+    static List<VideoPublicationSettings> videoSettings(JSONObject video) throws JSONException {
+        if (video == null) {
+            return null;
+        }
+        List<VideoPublicationSettings> settings = new ArrayList<>();
+        JSONArray videoOrigins = video.getJSONArray("original");
+        for (int i = 0; i < videoOrigins.length(); i++) {
+            JSONObject videoObj = videoOrigins.getJSONObject(i);
+            settings.add(new VideoPublicationSettings(videoObj));
         }
+        return settings;
     }
 
     /**
@@ -0,0 +1,21 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+/**
+ * Decides when ConferenceClient tries to connect to the conference server again after the
+ * connection is lost or could not be established.
+ */
+public interface ReconnectionPolicy {
+
+    /**
+     * Called before every connection attempt.
+     *
+     * @param attempt number of the attempt, 1 for the first one after the connection is lost.
+     * @param elapsedMs milliseconds since the connection was lost.
+     * @return milliseconds to wait before the attempt, or a negative value to give up.
+     */
+    long nextDelayMs(int attempt, long elapsedMs);
+}
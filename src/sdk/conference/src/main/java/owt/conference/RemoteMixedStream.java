@@ -29,16 +29,16 @@ public final class RemoteMixedStream extends RemoteStream {
     public final String view;
     private String activeAudioInput;
     /**
-     * List of Region%s that indicates the video layout of the RemoteStream.
+     * Immutable list of Region%s that indicates the video layout of the RemoteStream, replaced
+     * as a whole when the layout changes.
      */
-    private List<Region> regions;
+    private List<Region> regions = Collections.emptyList();
 
     RemoteMixedStream(JSONObject streamInfo) throws JSONException {
         super(streamInfo);
         JSONObject info = getObj(streamInfo, "info", true);
         view = getString(info, "label", "");
         activeAudioInput = getString(info, "activeInput", "");
-        regions = new ArrayList<>();
         updateRegions(info.getJSONArray("layout"));
     }
 
@@ -48,31 +48,81 @@ public final class RemoteMixedStream extends RemoteStream {
      * @return list of Region%s in this RemoteMixedStream.
      */
     public List<Region> regions() {
-        return Collections.unmodifiableList(regions);
+        return regions;
     }
 
     public String activeAudioInput() {
         return activeAudioInput;
     }
 
+    /**
+     * Apply the layout |regionsInfo|. Region%s are matched with the current ones by the stream
+     * they show and how many Region%s before them show it too, an unchanged Region is kept as
+     * the same instance. Observers are not notified
+     * if the layout is the same. A layout only reordering its Region%s is notified with no
+     * Region added, removed or moved.
+     */
     void updateRegions(JSONArray regionsInfo) {
-        regions.clear();
+        HashMap<String, Region> previous = new HashMap<>();
+        HashMap<String, Integer> occurrences = new HashMap<>();
+        List<String> previousKeys = new ArrayList<>(regions.size());
+        for (Region region : regions) {
+            String key = key(region, occurrences);
+            previousKeys.add(key);
+            previous.put(key, region);
+        }
+        occurrences.clear();
+        List<Region> updated = new ArrayList<>(regionsInfo.length());
+        List<Region> added = new ArrayList<>();
+        List<Region> moved = new ArrayList<>();
         try {
             for (int i = 0; i < regionsInfo.length(); i++) {
-                JSONObject region = regionsInfo.getJSONObject(i);
-                regions.add(new Region(region));
+                Region region = new Region(regionsInfo.getJSONObject(i));
+                Region old = previous.remove(key(region, occurrences));
+                if (old == null) {
+                    added.add(region);
+                } else if (old.equals(region)) {
+                    region = old;
+                } else {
+                    moved.add(region);
+                }
+                updated.add(region);
             }
         } catch (JSONException e) {
             DCHECK(e);
         }
-        triggerLayoutChange();
+        // Left in |previous| are the Regions no longer in the layout.
+        List<Region> removed = new ArrayList<>();
+        for (int i = 0; i < regions.size(); i++) {
+            if (previous.containsKey(previousKeys.get(i))) {
+                removed.add(regions.get(i));
+            }
+        }
+        // Equal lists also have the Regions in the same order, i.e. stacked the same way.
+        if (updated.equals(regions)) {
+            return;
+        }
+        regions = Collections.unmodifiableList(updated);
+        triggerLayoutChange(new LayoutChange(regions, Collections.unmodifiableList(added),
+                Collections.unmodifiableList(removed), Collections.unmodifiableList(moved)));
     }
 
-    private void triggerLayoutChange() {
+    // Key a Region is matched by: the stream it shows, or its id for a Region showing no stream,
+    // along with the number of Regions before it in the layout having the same one.
+    private static String key(Region region, HashMap<String, Integer> occurrences) {
+        String key = region.streamId.isEmpty() ? "region:" + region.regionId : region.streamId;
+        Integer count = occurrences.get(key);
+        occurrences.put(key, count == null ? 1 : count + 1);
+        return count == null ? key : key + "\n" + count;
+    }
+
+    private void triggerLayoutChange(LayoutChange change) {
         if (observers != null) {
             for (StreamObserver observer : observers) {
-                if (observer instanceof RemoteMixedStreamObserver) {
-                    ((RemoteMixedStreamObserver) observer).onLayoutChange(regions);
+                if (observer instanceof LayoutChangeObserver) {
+                    ((LayoutChangeObserver) observer).onLayoutChange(change);
+                } else if (observer instanceof RemoteMixedStreamObserver) {
+                    ((RemoteMixedStreamObserver) observer).onLayoutChange(change.regions);
                 }
             }
         }
@@ -102,6 +152,51 @@ public final class RemoteMixedStream extends RemoteStream {
         void onActiveAudioInputChange(String activeAudioInput);
     }
 
+    /**
+     * Interface for observing remote mixed stream events with the Region%s changed by a layout
+     * update.
+     */
+    public interface LayoutChangeObserver extends RemoteMixedStreamObserver {
+        /**
+         * Called upon the video layout has changed, instead of onLayoutChange(List).
+         *
+         * @param change Region%s of the new layout and the ones changed.
+         */
+        void onLayoutChange(LayoutChange change);
+    }
+
+    /**
+     * Changes of the video layout of a RemoteMixedStream. Region%s are matched by the stream
+     * they show, or by their id for a Region showing no stream. Region%s showing the same
+     * stream are matched in the order of the layout.
+     */
+    public static final class LayoutChange {
+        /**
+         * All the Region%s of the new layout.
+         */
+        public final List<Region> regions;
+        /**
+         * Region%s showing a stream that was not in the layout.
+         */
+        public final List<Region> added;
+        /**
+         * Region%s of the previous layout whose stream is no longer in the layout.
+         */
+        public final List<Region> removed;
+        /**
+         * Region%s showing a stream that was in the layout in another region or area.
+         */
+        public final List<Region> moved;
+
+        LayoutChange(List<Region> regions, List<Region> added, List<Region> removed,
+                List<Region> moved) {
+            this.regions = regions;
+            this.added = added;
+            this.removed = removed;
+            this.moved = moved;
+        }
+    }
+
     /**
      * Region information of a RemoteStream in this RemoteMixedStream.
      */
@@ -143,5 +238,30 @@ public final class RemoteMixedStream extends RemoteStream {
                 shape = null;
             }
         }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Region)) {
+                return false;
+            }
+            Region region = (Region) o;
+            return same(regionId, region.regionId) && streamId.equals(region.streamId)
+                    && same(shape, region.shape) && parameters.equals(region.parameters);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = regionId != null ? regionId.hashCode() : 0;
+            result = 31 * result + streamId.hashCode();
+            result = 31 * result + (shape != null ? shape.hashCode() : 0);
+            return 31 * result + parameters.hashCode();
+        }
+
+        private static boolean same(String a, String b) {
+            return a == null ? b == null : a.equals(b);
+        }
     }
 }
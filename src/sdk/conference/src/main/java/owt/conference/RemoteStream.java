@@ -9,13 +9,18 @@ import static owt.conference.JsonUtils.getString;
 
 import owt.base.Stream.StreamSourceInfo.AudioSourceInfo;
 import owt.base.Stream.StreamSourceInfo.VideoSourceInfo;
+import owt.conference.SubscriptionCapabilities.AudioSubscriptionCapabilities;
+import owt.conference.SubscriptionCapabilities.VideoSubscriptionCapabilities;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.webrtc.MediaStream;
 
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.Set;
 
 /**
  * RemoteStream represent the stream published by other endpoints in the conference.
@@ -31,34 +36,77 @@ public class RemoteStream extends owt.base.RemoteStream {
      */
     public PublicationSettings publicationSettings;
 
+    // Media and attributes sections last applied, null if absent.
+    private JSONObject audioInfo;
+    private JSONObject videoInfo;
+    private JSONObject attributesInfo;
+
     RemoteStream(JSONObject streamInfo) throws JSONException {
         super(JsonUtils.getString(streamInfo, "id"),
                 JsonUtils.getString(streamInfo.getJSONObject("info"), "owner", "mixer"));
         updateStreamInfo(streamInfo, false);
     }
 
+    /**
+     * Apply |streamInfo|, re-parsing only the audio, video and attributes sections that differ
+     * from the ones applied before. The settings of an unchanged section are kept as they are.
+     * Observers are not notified if nothing has changed.
+     */
     void updateStreamInfo(JSONObject streamInfo, boolean triggerEvent) throws JSONException {
+        boolean initial = publicationSettings == null;
         JSONObject mediaInfo = JsonUtils.getObj(streamInfo, "media", true);
-        publicationSettings = new PublicationSettings(mediaInfo);
-        extraSubscriptionCapability = new SubscriptionCapabilities(mediaInfo);
-
+        JSONObject audio = JsonUtils.getObj(mediaInfo, "audio");
         JSONObject video = JsonUtils.getObj(mediaInfo, "video");
-        VideoSourceInfo videoSourceInfo = null;
-        if (video != null) {
-            videoSourceInfo = VideoSourceInfo.get(JsonUtils.getString(video, "source", "mixed"));
-        }
+        JSONObject attributes = JsonUtils.getObj(JsonUtils.getObj(streamInfo, "info"),
+                "attributes");
 
-        JSONObject audio = JsonUtils.getObj(mediaInfo, "audio");
-        AudioSourceInfo audioSourceInfo = null;
-        if (audio != null) {
-            audioSourceInfo = AudioSourceInfo.get(JsonUtils.getString(audio, "source", "mixed"));
+        EnumSet<UpdatedPart> updated = EnumSet.noneOf(UpdatedPart.class);
+        if (initial || !JsonUtils.same(audio, audioInfo)) {
+            updated.add(UpdatedPart.AUDIO);
+        }
+        if (initial || !JsonUtils.same(video, videoInfo)) {
+            updated.add(UpdatedPart.VIDEO);
+        }
+        // Attributes absent from |streamInfo| leave the current ones as they are.
+        if (attributes != null && !JsonUtils.same(attributes, attributesInfo)) {
+            updated.add(UpdatedPart.ATTRIBUTES);
         }
 
-        setStreamSourceInfo(new StreamSourceInfo(videoSourceInfo, audioSourceInfo));
-        setAttributes(JsonUtils.getObj(JsonUtils.getObj(streamInfo, "info"), "attributes"));
+        boolean audioUpdated = updated.contains(UpdatedPart.AUDIO);
+        boolean videoUpdated = updated.contains(UpdatedPart.VIDEO);
+        if (audioUpdated || videoUpdated) {
+            publicationSettings = new PublicationSettings(
+                    audioUpdated ? PublicationSettings.audioSettings(audio)
+                            : publicationSettings.audioPublicationSettings,
+                    videoUpdated ? PublicationSettings.videoSettings(video)
+                            : publicationSettings.videoPublicationSettings);
+            extraSubscriptionCapability = new SubscriptionCapabilities(
+                    !audioUpdated ? extraSubscriptionCapability.audioSubscriptionCapabilities
+                            : audio == null ? null : new AudioSubscriptionCapabilities(audio),
+                    !videoUpdated ? extraSubscriptionCapability.videoSubscriptionCapabilities
+                            : video == null ? null : new VideoSubscriptionCapabilities(video));
+
+            VideoSourceInfo videoSourceInfo = streamSourceInfo.videoSourceInfo;
+            if (videoUpdated) {
+                videoSourceInfo = video == null ? null
+                        : VideoSourceInfo.get(JsonUtils.getString(video, "source", "mixed"));
+            }
+            AudioSourceInfo audioSourceInfo = streamSourceInfo.audioSourceInfo;
+            if (audioUpdated) {
+                audioSourceInfo = audio == null ? null
+                        : AudioSourceInfo.get(JsonUtils.getString(audio, "source", "mixed"));
+            }
+            setStreamSourceInfo(new StreamSourceInfo(videoSourceInfo, audioSourceInfo));
+        }
+        if (updated.contains(UpdatedPart.ATTRIBUTES)) {
+            setAttributes(attributes);
+            attributesInfo = attributes;
+        }
+        audioInfo = audio;
+        videoInfo = video;
 
-        if (triggerEvent) {
-            triggerUpdatedEvent();
+        if (triggerEvent && !updated.isEmpty()) {
+            triggerUpdatedEvent(Collections.unmodifiableSet(updated));
         }
     }
 
@@ -89,4 +137,46 @@ public class RemoteStream extends owt.base.RemoteStream {
     void onEnded() {
         triggerEndedEvent();
     }
+
+    private void triggerUpdatedEvent(Set<UpdatedPart> updatedParts) {
+        if (observers != null) {
+            for (StreamObserver observer : observers) {
+                if (observer instanceof RemoteStreamObserver) {
+                    ((RemoteStreamObserver) observer).onUpdated(updatedParts);
+                } else {
+                    observer.onUpdated();
+                }
+            }
+        }
+    }
+
+    /**
+     * Parts of the information of a RemoteStream that an update may change.
+     */
+    public enum UpdatedPart {
+        /**
+         * Audio PublicationSettings, SubscriptionCapabilities and source info.
+         */
+        AUDIO,
+        /**
+         * Video PublicationSettings, SubscriptionCapabilities and source info.
+         */
+        VIDEO,
+        /**
+         * Attributes of the RemoteStream.
+         */
+        ATTRIBUTES
+    }
+
+    /**
+     * Interface for observing remote stream events with the parts of the information updated.
+     */
+    public interface RemoteStreamObserver extends StreamObserver {
+        /**
+         * Called upon stream information has been updated, instead of onUpdated().
+         *
+         * @param updatedParts parts of the information that have changed, never empty.
+         */
+        void onUpdated(Set<UpdatedPart> updatedParts);
+    }
 }
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import static owt.base.Const.LOG_TAG;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * The OkHttpClient of the socket.io transports of a ConferenceClient. Sharing it across joins
+ * keeps the connection pool and the TLS sessions, so that a re-join or a join following
+ * preconnect() skips the DNS lookup and the TCP and TLS handshakes. Built on first use, so
+ * that OkHttp is not needed with a custom ConferenceTransport.
+ */
+final class SharedHttpClient {
+
+    private static final int MAX_IDLE_CONNECTIONS = 5;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    private final SSLContext sslContext;
+    private final HostnameVerifier hostnameVerifier;
+    private OkHttpClient httpClient;
+
+    SharedHttpClient(SSLContext sslContext, HostnameVerifier hostnameVerifier) {
+        this.sslContext = sslContext;
+        this.hostnameVerifier = hostnameVerifier;
+    }
+
+    synchronized OkHttpClient get() {
+        if (httpClient == null) {
+            OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder()
+                    .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES,
+                            TimeUnit.MINUTES));
+            if (sslContext != null) {
+                clientBuilder.sslSocketFactory(sslContext.getSocketFactory());
+            }
+            if (hostnameVerifier != null) {
+                clientBuilder.hostnameVerifier(hostnameVerifier);
+            }
+            httpClient = clientBuilder.build();
+        }
+        return httpClient;
+    }
+
+    ConferenceTransport newTransport() {
+        return new SocketIoTransport(get());
+    }
+
+    /**
+     * Open a connection to |url| and leave it in the connection pool. Failures are only logged,
+     * the join connects as usual then.
+     *
+     * @return false if |url| is not a valid http or https url.
+     */
+    boolean preconnect(final String url) {
+        HttpUrl httpUrl = HttpUrl.parse(url);
+        if (httpUrl == null) {
+            return false;
+        }
+        final long startMs = SystemClock.elapsedRealtime();
+        // The response does not matter, the connection and the TLS session it leaves do.
+        Request request = new Request.Builder().url(httpUrl).head().build();
+        get().newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                Log.w(LOG_TAG, "Failed to preconnect to " + url + ": " + e.getMessage());
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                response.close();
+                Log.d(LOG_TAG, "Preconnected to " + url + " in "
+                        + (SystemClock.elapsedRealtime() - startMs) + "ms.");
+            }
+        });
+        return true;
+    }
+}
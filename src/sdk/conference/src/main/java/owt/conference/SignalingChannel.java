@@ -8,28 +8,28 @@ import static owt.base.CheckCondition.DCHECK;
 import static owt.base.CheckCondition.RCHECK;
 import static owt.base.Const.LOG_TAG;
 
+import android.os.SystemClock;
 import android.util.Base64;
 import android.util.Log;
 
-import okhttp3.OkHttpClient;
 import owt.base.Const;
+import owt.base.SerialExecutor;
+import owt.base.WorkerPool;
+import owt.conference.ConferenceTransport.Ack;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import java.net.URISyntaxException;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
-import io.socket.client.Ack;
-import io.socket.client.IO;
-import io.socket.client.Socket;
-import io.socket.emitter.Emitter.Listener;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 final class SignalingChannel {
 
+    private interface Listener {
+        void call(Object... args);
+    }
+
     interface SignalingChannelObserver {
 
         void onRoomConnected(JSONObject info);
@@ -58,19 +58,33 @@ final class SignalingChannel {
     private SignalingChannelObserver observer;
     // Base64 encoded token.
     private final String token;
-    private final ExecutorService callbackExecutor = Executors.newSingleThreadExecutor();
-    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor();
-    private final int MAX_RECONNECT_ATTEMPTS = 5;
+    private final SerialExecutor callbackExecutor = WorkerPool.newSerialExecutor();
+    private final ReconnectionPolicy reconnectionPolicy;
     private String reconnectionTicket;
+    // No lock is guarding the fields below so void access and modify them on threads other
+    // than |callbackExecutor|.
     private int reconnectAttempts = 0;
-    // No lock is guarding loggedIn so void access and modify it on threads other than
-    // |callbackExecutor|.
+    // SystemClock.elapsedRealtime() when the connection was lost.
+    private long connectionLostMs = 0;
+    private ScheduledFuture<?> reconnectTask = null;
+    private ScheduledFuture<?> refreshTicketTask = null;
     private boolean loggedIn = false;
-    private Socket socketClient;
-    // [{'name': name, 'msg': message, 'ack': ack}]
-    private final ArrayList<HashMap<String, Object>> cache = new ArrayList<>();
-
-    // Socket.IO events.
+    // Set once onRoomDisconnected has been triggered.
+    private boolean disconnected = false;
+    // Set once disconnect() is called or the room is disconnected, stops reconnecting.
+    private volatile boolean closed = false;
+    // Whether messages can be emitted, i.e. the transport is connected and logged in. Guarded by
+    // |sendLock| so that no message is queued once |cache| has been flushed.
+    private boolean ready = false;
+    private final Object sendLock = new Object();
+    private ConferenceTransport transport;
+    private String url;
+    // Messages sent while the transport is disconnected.
+    private final OfflineMessageQueue cache;
+    // Times the acknowledgements of the messages emitted.
+    private final SignalingMetrics metrics;
+
+    // Transport events.
     private final Listener connectedCallback = args -> callbackExecutor.execute(() -> {
         Log.d(LOG_TAG, "Socket connected.");
         if (loggedIn) {
@@ -86,26 +100,17 @@ final class SignalingChannel {
     private final Listener connectErrorCallback = (Object... args) -> callbackExecutor.execute(
             () -> {
                 Log.d(LOG_TAG, "Socket connect error.");
-                String msg = extractMsg(0, args);
-                if (reconnectAttempts >= MAX_RECONNECT_ATTEMPTS) {
-                    if (loggedIn) {
-                        triggerDisconnected();
-                    } else {
-                        observer.onRoomConnectFailed("Socket.IO connected failed: " + msg);
-                    }
-                }
+                scheduleReconnect("Socket.IO connected failed: " + extractMsg(0, args));
             });
-    private final Listener reconnectingCallback = args -> callbackExecutor.execute(() -> {
-        Log.d(LOG_TAG, "Socket reconnecting.");
-        reconnectAttempts++;
-        // trigger onReconnecting, ONLY when already logged in and first time to reconnect.
-        if (loggedIn && reconnectAttempts == 1) {
-            observer.onReconnecting();
+    private final Listener disconnectCallback = args -> callbackExecutor.execute(() -> {
+        setReady(false);
+        if (closed) {
+            triggerDisconnected();
+        } else {
+            Log.d(LOG_TAG, "Socket disconnected, reconnecting.");
+            scheduleReconnect("Socket.IO disconnected.");
         }
     });
-    // disconnectCallback will be bound ONLY when disconnect() is called actively.
-    private final Listener disconnectCallback = args -> callbackExecutor.execute(
-            this::triggerDisconnected);
 
     // MCU events.
     private final Listener progressCallback = (Object... args) -> callbackExecutor.execute(() -> {
@@ -164,14 +169,52 @@ final class SignalingChannel {
             DCHECK(false);
         }
     });
-    private final Listener dropCallback = args -> triggerDisconnected();
+    private final Listener dropCallback = args -> callbackExecutor.execute(
+            this::triggerDisconnected);
+    // key: server event.
+    private final HashMap<String, Listener> eventCallbacks = new HashMap<>();
+    private final ConferenceTransport.Listener transportListener =
+            new ConferenceTransport.Listener() {
+                @Override
+                public void onConnected() {
+                    connectedCallback.call();
+                }
+
+                @Override
+                public void onConnectFailed(String reason) {
+                    connectErrorCallback.call(reason);
+                }
+
+                @Override
+                public void onDisconnected() {
+                    disconnectCallback.call();
+                }
+
+                @Override
+                public void onEvent(String event, Object message) {
+                    Listener callback = eventCallbacks.get(event);
+                    if (callback != null) {
+                        callback.call(message);
+                    }
+                }
+            };
 
-    SignalingChannel(String token, SignalingChannelObserver observer) {
+    SignalingChannel(String token, SignalingChannelObserver observer,
+            ReconnectionPolicy reconnectionPolicy, OfflineMessageQueue cache,
+            SignalingMetrics metrics) {
         this.token = token;
         this.observer = observer;
+        this.reconnectionPolicy = reconnectionPolicy;
+        this.cache = cache;
+        this.metrics = metrics;
+        eventCallbacks.put("progress", progressCallback);
+        eventCallbacks.put("participant", participantCallback);
+        eventCallbacks.put("stream", streamCallback);
+        eventCallbacks.put("text", textCallback);
+        eventCallbacks.put("drop", dropCallback);
     }
 
-    void connect(final ConferenceClientConfiguration configuration) {
+    void connect(ConferenceTransport.Factory transportFactory) {
         try {
             RCHECK(token);
             JSONObject jsonToken = new JSONObject(
@@ -179,64 +222,59 @@ final class SignalingChannel {
 
             boolean isSecure = jsonToken.getBoolean("secure");
             String host = jsonToken.getString("host");
-            final String url = (isSecure ? "https" : "http") + "://" + host;
-
-            IO.Options opt = new IO.Options();
-            opt.forceNew = true;
-            opt.reconnection = true;
-            opt.reconnectionAttempts = MAX_RECONNECT_ATTEMPTS;
-            opt.secure = isSecure;
-            OkHttpClient.Builder clientBuilder = new OkHttpClient.Builder();
-            if (configuration.sslContext != null) {
-                clientBuilder.sslSocketFactory(configuration.sslContext.getSocketFactory());
-            }
-            if (configuration.hostnameVerifier != null) {
-                clientBuilder.hostnameVerifier(configuration.hostnameVerifier);
-            }
-            OkHttpClient httpClient = clientBuilder.build();
-            opt.callFactory = httpClient;
-            opt.webSocketFactory = httpClient;
-            socketClient = IO.socket(url, opt);
-
-            // Do not listen EVENT_DISCONNECT event on this phase.
-            socketClient.on(Socket.EVENT_CONNECT, connectedCallback)
-                    .on(Socket.EVENT_CONNECT_ERROR, connectErrorCallback)
-                    .on(Socket.EVENT_RECONNECTING, reconnectingCallback)
-                    .on("progress", progressCallback)
-                    .on("participant", participantCallback)
-                    .on("stream", streamCallback)
-                    .on("text", textCallback)
-                    .on("drop", dropCallback);
-            socketClient.connect();
+            url = (isSecure ? "https" : "http") + "://" + host;
+
+            transport = transportFactory.create();
+            transport.connect(url, transportListener);
 
         } catch (JSONException e) {
             observer.onRoomConnectFailed(e.getMessage());
-        } catch (URISyntaxException e) {
-            observer.onRoomConnectFailed(e.getMessage());
         }
     }
 
     void disconnect() {
-        if (socketClient != null) {
-            socketClient.on(Socket.EVENT_DISCONNECT, disconnectCallback);
-            socketClient.disconnect();
-        }
+        closed = true;
+        callbackExecutor.execute(() -> {
+            cancelTasks();
+            if (transport == null) {
+                return;
+            }
+            if (transport.isConnected()) {
+                // Triggers disconnectCallback.
+                transport.disconnect();
+            } else {
+                // Waiting for a reconnection attempt, no disconnect event is coming.
+                transport.disconnect();
+                triggerDisconnected();
+            }
+        });
+    }
+
+    /**
+     * @return number of messages held until the connection is ready.
+     */
+    int queuedMessages() {
+        return cache.size();
     }
 
     void sendMsg(String type, JSONObject msg, Ack ack) {
-        if (!socketClient.connected()) {
-            HashMap<String, Object> msg2cache = new HashMap<>();
-            msg2cache.put("type", type);
-            msg2cache.put("msg", msg);
-            msg2cache.put("ack", ack);
-            cache.add(msg2cache);
-        } else {
-            if (msg != null) {
-                socketClient.emit(type, msg, ack);
-            } else {
-                socketClient.emit(type, ack);
+        synchronized (sendLock) {
+            if (!ready || !transport.isConnected()) {
+                cache.add(type, msg, ack);
+                return;
             }
         }
+        emit(type, msg, ack);
+    }
+
+    private void emit(String type, JSONObject msg, Ack ack) {
+        transport.emit(type, msg, metrics.track(type, ack));
+    }
+
+    private void setReady(boolean ready) {
+        synchronized (sendLock) {
+            this.ready = ready;
+        }
     }
 
     private void login() throws JSONException {
@@ -246,10 +284,12 @@ final class SignalingChannel {
         loginInfo.put("userAgent", new JSONObject(Const.userAgent));
         loginInfo.put("protocol", Const.PROTOCOL_VERSION);
 
-        socketClient.emit("login", loginInfo,
-                (Ack) (Object... args) -> callbackExecutor.execute(() -> {
+        transport.emit("login", loginInfo,
+                metrics.track("login", (Object... args) -> callbackExecutor.execute(() -> {
                     if (extractMsg(0, args).equals("ok")) {
                         loggedIn = true;
+                        setReady(true);
+                        reconnectAttempts = 0;
                         try {
                             reconnectionTicket = ((JSONObject) args[1]).getString(
                                     "reconnectionTicket");
@@ -262,40 +302,96 @@ final class SignalingChannel {
                         observer.onRoomConnectFailed(extractMsg(1, args));
                     }
 
-                }));
+                })));
     }
 
     private void relogin() {
         DCHECK(reconnectionTicket);
-        socketClient.emit("relogin", reconnectionTicket, (Ack) (Object... args) -> {
-            if (extractMsg(0, args).equals("ok")) {
-                reconnectionTicket = (String) args[1];
-                reconnectAttempts = 0;
-                flushCachedMsg();
-                onRefreshReconnectionTicket();
-            } else {
-                triggerDisconnected();
-            }
-        });
+        transport.emit("relogin", reconnectionTicket,
+                metrics.track("relogin", (Object... args) -> callbackExecutor.execute(() -> {
+                    if (extractMsg(0, args).equals("ok")) {
+                        reconnectionTicket = (String) args[1];
+                        reconnectAttempts = 0;
+                        // Media related messages held while disconnected go first, the ticket
+                        // received is fresh so it is only refreshed before it expires.
+                        synchronized (sendLock) {
+                            flushCachedMsg();
+                            ready = true;
+                        }
+                        onReconnectionTicket(reconnectionTicket);
+                    } else {
+                        triggerDisconnected();
+                    }
+                })));
     }
 
     private void flushCachedMsg() {
-        for (HashMap<String, Object> msg : cache) {
+        cache.flush((type, msg, ack) -> {
             try {
-                sendMsg((String) msg.get("type"), (JSONObject) msg.get("msg"),
-                        (Ack) msg.get("ack"));
+                emit(type, msg, ack);
             } catch (Exception exception) {
                 DCHECK(exception);
             }
+        });
+    }
 
+    // Must be called on |callbackExecutor|.
+    private void scheduleReconnect(String reason) {
+        if (closed) {
+            return;
         }
-        cache.clear();
+        if (reconnectAttempts == 0) {
+            connectionLostMs = SystemClock.elapsedRealtime();
+            if (loggedIn) {
+                observer.onReconnecting();
+            }
+        }
+        reconnectAttempts++;
+        long delay = reconnectionPolicy.nextDelayMs(reconnectAttempts,
+                SystemClock.elapsedRealtime() - connectionLostMs);
+        if (delay < 0) {
+            Log.d(LOG_TAG, "Giving up reconnecting after " + (reconnectAttempts - 1)
+                    + " attempts.");
+            if (loggedIn) {
+                triggerDisconnected();
+            } else {
+                closed = true;
+                observer.onRoomConnectFailed(reason);
+            }
+            return;
+        }
+        Log.d(LOG_TAG, "Reconnection attempt " + reconnectAttempts + " in " + delay + " ms.");
+        reconnectTask = WorkerPool.scheduler().schedule(() -> callbackExecutor.execute(() -> {
+            if (!closed) {
+                transport.connect(url, transportListener);
+            }
+        }), delay, TimeUnit.MILLISECONDS);
     }
 
+    // Must be called on |callbackExecutor|.
+    private void cancelTasks() {
+        if (reconnectTask != null) {
+            reconnectTask.cancel(false);
+            reconnectTask = null;
+        }
+        if (refreshTicketTask != null) {
+            refreshTicketTask.cancel(false);
+            refreshTicketTask = null;
+        }
+    }
+
+    // Must be called on |callbackExecutor|.
     private void triggerDisconnected() {
+        if (disconnected) {
+            return;
+        }
+        disconnected = true;
+        closed = true;
+        setReady(false);
         loggedIn = false;
         reconnectAttempts = 0;
-        cache.clear();
+        cancelTasks();
+        cache.clear("Disconnected from the conference room.");
         observer.onRoomDisconnected();
     }
 
@@ -310,13 +406,14 @@ final class SignalingChannel {
 
     private void onRefreshReconnectionTicket() {
         Log.d(LOG_TAG, "refresh connection ticket");
-        socketClient.emit("refreshReconnectionTicket", null,
-                (Object... args) -> callbackExecutor.execute(() -> {
-                    if (extractMsg(0, args).equals("ok")) {
-                        String message = args[1].toString();
-                        onReconnectionTicket(message);
-                    }
-                }));
+        transport.emit("refreshReconnectionTicket", JSONObject.NULL,
+                metrics.track("refreshReconnectionTicket",
+                        (Object... args) -> callbackExecutor.execute(() -> {
+                            if (extractMsg(0, args).equals("ok")) {
+                                String message = args[1].toString();
+                                onReconnectionTicket(message);
+                            }
+                        })));
     }
 
     private void onReconnectionTicket(String ticket){
@@ -332,16 +429,15 @@ final class SignalingChannel {
                 delay = 5*60*1000;
             }
 
-            long finalDelay = delay;
-            refreshExecutor.execute(()->{
-                try {
-                    Thread.sleep(finalDelay);
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
-
-                onRefreshReconnectionTicket();
-            });
+            if (refreshTicketTask != null) {
+                refreshTicketTask.cancel(false);
+            }
+            refreshTicketTask = WorkerPool.scheduler().schedule(
+                    () -> callbackExecutor.execute(() -> {
+                        if (!closed) {
+                            onRefreshReconnectionTicket();
+                        }
+                    }), delay, TimeUnit.MILLISECONDS);
 
 
         } catch (Exception e) {
@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+/**
+ * Snapshot of the time the conference server takes to acknowledge the signaling messages of one
+ * type, e.g. "publish", "subscribe", "soac", "stream-control" or "text". Latencies are counted in
+ * fixed buckets.
+ */
+public final class SignalingLatency {
+
+    /**
+     * Type of the signaling messages.
+     */
+    public final String type;
+    /**
+     * Number of messages acknowledged, including the ones acknowledged with an error.
+     */
+    public final long count;
+    /**
+     * Number of messages acknowledged with an error.
+     */
+    public final long errors;
+    /**
+     * Number of messages not acknowledged within the timeout. They are not part of |count|.
+     */
+    public final long timeouts;
+    /**
+     * Sum of the latencies of the messages acknowledged, in milliseconds.
+     */
+    public final long sumMs;
+    /**
+     * Inclusive upper bounds of the buckets in milliseconds, the last bucket has no upper bound
+     * and is not listed.
+     */
+    public final long[] bucketBoundsMs;
+    /**
+     * Number of messages acknowledged per bucket, one more item than |bucketBoundsMs|.
+     */
+    public final long[] bucketCounts;
+
+    SignalingLatency(String type, long count, long errors, long timeouts, long sumMs,
+            long[] bucketBoundsMs, long[] bucketCounts) {
+        this.type = type;
+        this.count = count;
+        this.errors = errors;
+        this.timeouts = timeouts;
+        this.sumMs = sumMs;
+        this.bucketBoundsMs = bucketBoundsMs;
+        this.bucketCounts = bucketCounts;
+    }
+
+    /**
+     * Upper bound of the bucket holding the given percentile of the latencies.
+     *
+     * @param percentile percentile in (0, 100].
+     * @return latency in milliseconds, Long.MAX_VALUE if it falls into the last bucket, 0 if no
+     * message has been acknowledged.
+     */
+    public long percentileMs(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < bucketBoundsMs.length; i++) {
+            seen += bucketCounts[i];
+            if (seen >= rank) {
+                return bucketBoundsMs[i];
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return type + ": count " + count + ", errors " + errors + ", timeouts " + timeouts
+                + ", mean " + (count == 0 ? 0 : sumMs / count) + " ms, p50 "
+                + percentileMs(50) + " ms, p95 " + percentileMs(95) + " ms";
+    }
+}
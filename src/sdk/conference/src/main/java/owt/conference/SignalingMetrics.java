@@ -0,0 +1,181 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import owt.conference.ConferenceTransport.Ack;
+
+/**
+ * Latency histograms of the signaling messages by message type, from the emit of a message to
+ * its acknowledgement. Recording does not take locks.
+ */
+final class SignalingMetrics {
+
+    static final long[] BUCKET_BOUNDS_MS =
+            {10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+    static final long DEFAULT_TIMEOUT_MS = 20000;
+
+    /**
+     * Ack of the messages whose answer is not used, e.g. "soac". The server answers them anyway,
+     * asking for the answer only adds a packet id to the message.
+     */
+    static final Ack UNUSED_ACK = args -> {
+    };
+
+    private static final class Histogram {
+        final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_MS.length + 1);
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong timeouts = new AtomicLong();
+        final AtomicLong sumMs = new AtomicLong();
+
+        void record(long latencyMs, boolean error) {
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS_MS.length && latencyMs > BUCKET_BOUNDS_MS[bucket]) {
+                bucket++;
+            }
+            buckets.incrementAndGet(bucket);
+            sumMs.addAndGet(latencyMs);
+            if (error) {
+                errors.incrementAndGet();
+            }
+            count.incrementAndGet();
+        }
+
+        SignalingLatency snapshot(String type) {
+            long[] counts = new long[buckets.length()];
+            long total = 0;
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] = buckets.get(i);
+                total += counts[i];
+            }
+            // |total| rather than |count|, so that the buckets add up to the count even if a
+            // message is being recorded at the same time.
+            return new SignalingLatency(type, total, errors.get(), timeouts.get(), sumMs.get(),
+                    BUCKET_BOUNDS_MS.clone(), counts);
+        }
+    }
+
+    // A message waiting for its ack.
+    private static final class Pending {
+        final Histogram histogram;
+        final long emittedNs;
+        final AtomicBoolean settled = new AtomicBoolean(false);
+
+        Pending(Histogram histogram, long emittedNs) {
+            this.histogram = histogram;
+            this.emittedNs = emittedNs;
+        }
+    }
+
+    private final ScheduledExecutorService scheduler;
+    private final long timeoutMs;
+    // key: message type.
+    private final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+    // Messages in the order they were emitted, so that the ones timing out first are at the head.
+    // Settled messages are dropped once they reach the head.
+    private final ConcurrentLinkedQueue<Pending> pending = new ConcurrentLinkedQueue<>();
+    // At most one sweep is scheduled at a time, rather than a timeout task per message.
+    private final AtomicBoolean sweepScheduled = new AtomicBoolean(false);
+
+    SignalingMetrics(ScheduledExecutorService scheduler, long timeoutMs) {
+        this.scheduler = scheduler;
+        this.timeoutMs = timeoutMs;
+    }
+
+    /**
+     * Start timing a message about to be emitted. Messages emitted without an ack are not
+     * timed, nothing tells when they are received. Emit the ones whose answer is not used with
+     * UNUSED_ACK instead to time them.
+     *
+     * @return the ack to emit the message with, it records the latency then calls |ack|. null
+     * if |ack| is null.
+     */
+    Ack track(String type, final Ack ack) {
+        if (ack == null) {
+            return null;
+        }
+        final Pending message = new Pending(histogram(type), System.nanoTime());
+        pending.add(message);
+        scheduleSweep(timeoutMs);
+        return (Object... args) -> {
+            if (message.settled.compareAndSet(false, true)) {
+                boolean error = args == null || args.length == 0 || !"ok".equals(args[0]);
+                message.histogram.record(TimeUnit.NANOSECONDS.toMillis(
+                        System.nanoTime() - message.emittedNs), error);
+                sweep();
+            }
+            ack.call(args);
+        };
+    }
+
+    private void scheduleSweep(long delayMs) {
+        if (sweepScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(this::onSweep, delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void onSweep() {
+        sweepScheduled.set(false);
+        sweep();
+        Pending head = pending.peek();
+        if (head != null) {
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - head.emittedNs);
+            scheduleSweep(Math.max(0, timeoutMs - elapsedMs));
+        }
+    }
+
+    // Drops the settled messages at the head of |pending| and counts the timed out ones.
+    private void sweep() {
+        long nowNs = System.nanoTime();
+        for (Pending head = pending.peek(); head != null; head = pending.peek()) {
+            if (!head.settled.get()) {
+                if (TimeUnit.NANOSECONDS.toMillis(nowNs - head.emittedNs) < timeoutMs) {
+                    return;
+                }
+                if (head.settled.compareAndSet(false, true)) {
+                    head.histogram.timeouts.incrementAndGet();
+                }
+            }
+            pending.remove(head);
+        }
+    }
+
+    int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * @return a snapshot of the histograms. key: message type.
+     */
+    Map<String, SignalingLatency> snapshot() {
+        HashMap<String, SignalingLatency> snapshot = new HashMap<>();
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            snapshot.put(entry.getKey(), entry.getValue().snapshot(entry.getKey()));
+        }
+        return snapshot;
+    }
+
+    private Histogram histogram(String type) {
+        Histogram histogram = histograms.get(type);
+        if (histogram == null) {
+            Histogram created = new Histogram();
+            histogram = histograms.putIfAbsent(type, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+}
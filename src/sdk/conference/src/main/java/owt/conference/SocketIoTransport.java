@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import static owt.base.CheckCondition.DCHECK;
+
+import java.net.URISyntaxException;
+
+import io.socket.client.IO;
+import io.socket.client.Socket;
+import okhttp3.OkHttpClient;
+
+/**
+ * ConferenceTransport based on socket.io, used unless the configuration sets another one.
+ */
+final class SocketIoTransport implements ConferenceTransport {
+
+    private static final String[] SERVER_EVENTS = {"progress", "participant", "stream", "text",
+            "drop"};
+
+    private final OkHttpClient httpClient;
+    private Socket socketClient;
+
+    SocketIoTransport(OkHttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    @Override
+    public synchronized void connect(String url, final Listener listener) {
+        if (socketClient != null) {
+            socketClient.connect();
+            return;
+        }
+        IO.Options opt = new IO.Options();
+        opt.forceNew = true;
+        // Reconnection is driven by the ReconnectionPolicy of SignalingChannel.
+        opt.reconnection = false;
+        opt.secure = url.startsWith("https");
+        opt.callFactory = httpClient;
+        opt.webSocketFactory = httpClient;
+        try {
+            socketClient = IO.socket(url, opt);
+        } catch (URISyntaxException e) {
+            listener.onConnectFailed(e.getMessage());
+            return;
+        }
+
+        socketClient.on(Socket.EVENT_CONNECT, args -> listener.onConnected())
+                .on(Socket.EVENT_CONNECT_ERROR, args -> listener.onConnectFailed(
+                        args.length > 0 && args[0] != null ? args[0].toString() : ""))
+                .on(Socket.EVENT_DISCONNECT, args -> listener.onDisconnected());
+        for (final String event : SERVER_EVENTS) {
+            socketClient.on(event,
+                    args -> listener.onEvent(event, args.length > 0 ? args[0] : null));
+        }
+        socketClient.connect();
+    }
+
+    @Override
+    public synchronized void disconnect() {
+        if (socketClient != null) {
+            socketClient.disconnect();
+        }
+    }
+
+    @Override
+    public synchronized boolean isConnected() {
+        return socketClient != null && socketClient.connected();
+    }
+
+    @Override
+    public void emit(String event, Object message, final Ack ack) {
+        Socket socket;
+        synchronized (this) {
+            socket = socketClient;
+        }
+        DCHECK(socket);
+        if (socket == null) {
+            return;
+        }
+        if (ack == null) {
+            if (message != null) {
+                socket.emit(event, message);
+            } else {
+                socket.emit(event);
+            }
+            return;
+        }
+        io.socket.client.Ack socketAck = ack::call;
+        if (message != null) {
+            socket.emit(event, message, socketAck);
+        } else {
+            socket.emit(event, socketAck);
+        }
+    }
+}
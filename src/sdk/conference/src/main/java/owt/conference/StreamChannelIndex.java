@@ -0,0 +1,73 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * Ids of the channels publishing or subscribing a stream, by stream id. A channel id is a key of
+ * ConferenceClient.pcChannels, and is indexed under one stream at most.
+ */
+final class StreamChannelIndex {
+
+    // Guards all the fields below.
+    private final Object lock = new Object();
+    // key: stream id.
+    private final HashMap<String, LinkedHashSet<String>> channelIds = new HashMap<>();
+    // key: channel id, value: stream id.
+    private final HashMap<String, String> streamIds = new HashMap<>();
+
+    void put(String streamId, String channelId) {
+        synchronized (lock) {
+            removeLocked(channelId);
+            LinkedHashSet<String> ids = channelIds.get(streamId);
+            if (ids == null) {
+                ids = new LinkedHashSet<>();
+                channelIds.put(streamId, ids);
+            }
+            ids.add(channelId);
+            streamIds.put(channelId, streamId);
+        }
+    }
+
+    void remove(String channelId) {
+        synchronized (lock) {
+            removeLocked(channelId);
+        }
+    }
+
+    /**
+     * @return a snapshot of the ids of the channels of |streamId|, empty if there is none.
+     */
+    List<String> channelIds(String streamId) {
+        synchronized (lock) {
+            LinkedHashSet<String> ids = channelIds.get(streamId);
+            return ids == null ? new ArrayList<String>() : new ArrayList<>(ids);
+        }
+    }
+
+    void clear() {
+        synchronized (lock) {
+            channelIds.clear();
+            streamIds.clear();
+        }
+    }
+
+    // Must be called with |lock| held.
+    private void removeLocked(String channelId) {
+        String streamId = streamIds.remove(channelId);
+        if (streamId == null) {
+            return;
+        }
+        LinkedHashSet<String> ids = channelIds.get(streamId);
+        ids.remove(channelId);
+        if (ids.isEmpty()) {
+            channelIds.remove(streamId);
+        }
+    }
+}
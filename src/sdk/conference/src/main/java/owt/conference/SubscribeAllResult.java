@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import java.util.Collections;
+import java.util.Map;
+
+import owt.base.OwtError;
+
+/**
+ * Outcome of ConferenceClient.subscribeAll.
+ */
+public final class SubscribeAllResult {
+
+    /**
+     * Subscriptions succeeded, in the order the RemoteStreams were given. key: RemoteStream id.
+     */
+    public final Map<String, Subscription> subscriptions;
+    /**
+     * Subscriptions failed, in the order the RemoteStreams were given. key: RemoteStream id.
+     */
+    public final Map<String, OwtError> errors;
+    /**
+     * Time from the call to subscribeAll until every subscription succeeded or failed, in
+     * milliseconds.
+     */
+    public final long elapsedMs;
+
+    SubscribeAllResult(Map<String, Subscription> subscriptions, Map<String, OwtError> errors,
+            long elapsedMs) {
+        this.subscriptions = Collections.unmodifiableMap(subscriptions);
+        this.errors = Collections.unmodifiableMap(errors);
+        this.elapsedMs = elapsedMs;
+    }
+}
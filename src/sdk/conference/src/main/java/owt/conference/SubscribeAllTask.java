@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2018 Intel Corporation
+ * SPDX-License-Identifier: Apache-2.0
+ */
+package owt.conference;
+
+import static owt.base.Const.LOG_TAG;
+
+import android.util.Log;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import owt.base.ActionCallback;
+import owt.base.OwtError;
+
+/**
+ * Subscribes a list of RemoteStreams keeping at most |concurrencyLimit| subscriptions in flight,
+ * a subscription being in flight until it succeeds or fails. Subscriptions start in the order of
+ * the list.
+ */
+final class SubscribeAllTask {
+
+    interface Subscriber {
+        void subscribe(RemoteStream remoteStream, SubscribeOptions options,
+                ActionCallback<Subscription> callback);
+    }
+
+    private final Subscriber subscriber;
+    private final List<RemoteStream> remoteStreams;
+    private final SubscribeOptions options;
+    private final int concurrencyLimit;
+    private final ActionCallback<SubscribeAllResult> callback;
+    private final long startNs = System.nanoTime();
+    // Guards all the fields below.
+    private final Object lock = new Object();
+    private final Subscription[] subscriptions;
+    private final OwtError[] errors;
+    private int next = 0;
+    private int settled = 0;
+
+    SubscribeAllTask(Subscriber subscriber, List<RemoteStream> remoteStreams,
+            SubscribeOptions options, int concurrencyLimit,
+            ActionCallback<SubscribeAllResult> callback) {
+        this.subscriber = subscriber;
+        this.remoteStreams = remoteStreams;
+        this.options = options;
+        this.concurrencyLimit = concurrencyLimit;
+        this.callback = callback;
+        subscriptions = new Subscription[remoteStreams.size()];
+        errors = new OwtError[remoteStreams.size()];
+    }
+
+    void start() {
+        if (remoteStreams.isEmpty()) {
+            finish();
+            return;
+        }
+        for (int i = 0; i < Math.min(concurrencyLimit, remoteStreams.size()); i++) {
+            subscribeNext();
+        }
+    }
+
+    private void subscribeNext() {
+        final int index;
+        synchronized (lock) {
+            if (next == remoteStreams.size()) {
+                return;
+            }
+            index = next++;
+        }
+        subscriber.subscribe(remoteStreams.get(index), options,
+                new ActionCallback<Subscription>() {
+                    @Override
+                    public void onSuccess(Subscription result) {
+                        onSettled(index, result, null);
+                    }
+
+                    @Override
+                    public void onFailure(OwtError error) {
+                        onSettled(index, null, error);
+                    }
+                });
+    }
+
+    private void onSettled(int index, Subscription subscription, OwtError error) {
+        boolean done;
+        synchronized (lock) {
+            subscriptions[index] = subscription;
+            errors[index] = error;
+            done = ++settled == remoteStreams.size();
+        }
+        if (done) {
+            finish();
+        } else {
+            subscribeNext();
+        }
+    }
+
+    private void finish() {
+        LinkedHashMap<String, Subscription> succeeded = new LinkedHashMap<>();
+        LinkedHashMap<String, OwtError> failed = new LinkedHashMap<>();
+        synchronized (lock) {
+            for (int i = 0; i < remoteStreams.size(); i++) {
+                if (errors[i] != null) {
+                    failed.put(remoteStreams.get(i).id(), errors[i]);
+                } else {
+                    succeeded.put(remoteStreams.get(i).id(), subscriptions[i]);
+                }
+            }
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNs);
+        Log.d(LOG_TAG, "Subscribed " + succeeded.size() + "/" + remoteStreams.size()
+                + " streams in " + elapsedMs + " ms, " + concurrencyLimit + " at a time.");
+        if (callback != null) {
+            callback.onSuccess(new SubscribeAllResult(succeeded, failed, elapsedMs));
+        }
+    }
+}
@@ -17,7 +17,7 @@ import org.webrtc.RTCStatsReport;
 import java.util.ArrayList;
 import java.util.List;
 
-import io.socket.client.Ack;
+import owt.conference.ConferenceTransport.Ack;
 
 /**
  * Subscription handles the actions on a RemoteStream subscribed by a ConferenceClient.
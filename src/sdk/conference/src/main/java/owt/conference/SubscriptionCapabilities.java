@@ -43,6 +43,12 @@ public class SubscriptionCapabilities {
                 : new VideoSubscriptionCapabilities(video);
     }
 
+    SubscriptionCapabilities(AudioSubscriptionCapabilities audioSubscriptionCapabilities,
+            VideoSubscriptionCapabilities videoSubscriptionCapabilities) {
+        this.audioSubscriptionCapabilities = audioSubscriptionCapabilities;
+        this.videoSubscriptionCapabilities = videoSubscriptionCapabilities;
+    }
+
     /**
      * Audio capabilities for subscribing a RemoteStream.
      */
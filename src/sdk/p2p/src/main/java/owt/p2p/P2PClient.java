@@ -38,17 +38,23 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 
 import owt.base.ActionCallback;
+import owt.base.ClientStats;
 import owt.base.Const;
 import owt.base.LocalStream;
 import owt.base.OwtError;
 import owt.base.PeerConnectionChannel;
+import owt.base.QosExporter;
+import owt.base.SerialExecutor;
+import owt.base.StatsAggregator;
+import owt.base.StatsSampler;
 import owt.base.Stream;
+import owt.base.WorkerPool;
 import owt.p2p.SignalingChannelInterface.SignalingChannelObserver;
 
 /**
@@ -93,11 +99,17 @@ public final class P2PClient implements PeerConnectionChannel.PeerConnectionChan
     private ServerConnectionStatus serverConnectionStatus;
     private final Object statusLock = new Object();
     // All callbacks need to be triggered on |callbackExecutor|.
-    private ExecutorService callbackExecutor;
+    private final SerialExecutor callbackExecutor;
     // All signaling works should be ran on signalingExecutor.
-    private ExecutorService signalingExecutor;
+    private final SerialExecutor signalingExecutor;
     // key: stream id.
     private final ConcurrentHashMap<String, JSONObject> streamInfos;
+    // Bitrates are measured since the previous collection of the same StatsAggregator, the
+    // QoS export has one of its own so that it does not shorten the intervals of the app's.
+    private final StatsAggregator statsAggregator = new StatsAggregator();
+    private final StatsAggregator qosStatsAggregator = new StatsAggregator();
+    // Guarded by |pcChannelsLock|, null when QoS export is disabled or not connected.
+    private QosExporter qosExporter;
 
     /**
      * Constructor for P2PClient.
@@ -117,8 +129,8 @@ public final class P2PClient implements PeerConnectionChannel.PeerConnectionChan
         allowedRemotePeers = new HashSet<>();
         pcChannels = new ConcurrentHashMap<>();
         serverConnectionStatus = DISCONNECTED;
-        callbackExecutor = Executors.newSingleThreadExecutor();
-        signalingExecutor = Executors.newSingleThreadExecutor();
+        callbackExecutor = WorkerPool.newSerialExecutor();
+        signalingExecutor = WorkerPool.newSerialExecutor();
         streamInfos = new ConcurrentHashMap<>();
     }
 
@@ -211,6 +223,7 @@ public final class P2PClient implements PeerConnectionChannel.PeerConnectionChan
                             RCHECK(e);
                         }
                         changeConnectionStatus(CONNECTED);
+                        startQosExport();
                         triggerCallback(callback, result);
                     }
 
@@ -316,6 +329,43 @@ public final class P2PClient implements PeerConnectionChannel.PeerConnectionChan
         }
     }
 
+    /**
+     * Get the stats of the connections with all the remote P2PClients at once, within
+     * StatsAggregator.DEFAULT_DEADLINE_MS.
+     *
+     * @param callback ActionCallback.onSuccess is invoked with the ClientStats, channels keyed
+     * by remote peer id.
+     */
+    public void getAllStats(ActionCallback<ClientStats> callback) {
+        getAllStats(StatsAggregator.DEFAULT_DEADLINE_MS, callback);
+    }
+
+    /**
+     * Get the stats of the connections with all the remote P2PClients at once. The
+     * PeerConnections are asked in parallel, the ones that have not reported by |deadlineMs|
+     * or have failed to are listed in ClientStats.missing. Bitrates are measured since the
+     * previous call to getAllStats, calls made from several places shorten the intervals of
+     * each other.
+     *
+     * @param deadlineMs time given to the PeerConnections to report, in milliseconds.
+     * @param callback ActionCallback.onSuccess is invoked with the ClientStats, channels keyed
+     * by remote peer id.
+     */
+    public void getAllStats(long deadlineMs, ActionCallback<ClientStats> callback) {
+        RCHECK(deadlineMs > 0);
+        RCHECK(callback);
+        collectAllStats(statsAggregator, deadlineMs, callback);
+    }
+
+    private void collectAllStats(StatsAggregator aggregator, long deadlineMs,
+            ActionCallback<ClientStats> callback) {
+        Map<String, StatsSampler.Source> sources = new LinkedHashMap<>();
+        for (Map.Entry<String, P2PPeerConnectionChannel> entry : pcChannels.entrySet()) {
+            sources.put(entry.getKey(), entry.getValue()::getConnectionStats);
+        }
+        aggregator.collect(sources, deadlineMs, callback);
+    }
+
     /**
      * Send a text message to a remote P2PClient.
      *
@@ -373,6 +423,36 @@ public final class P2PClient implements PeerConnectionChannel.PeerConnectionChan
                 pcChannels.get(key).dispose();
             }
             pcChannels.clear();
+            if (qosExporter != null) {
+                qosExporter.stop();
+                qosExporter = null;
+            }
+        }
+    }
+
+    private void startQosExport() {
+        if (configuration.qosExportDirectory == null) {
+            return;
+        }
+        QosExporter.Source source = new QosExporter.Source() {
+            @Override
+            public void getAllStats(long deadlineMs, ActionCallback<ClientStats> callback) {
+                collectAllStats(qosStatsAggregator, deadlineMs, callback);
+            }
+
+            @Override
+            public Map<String, Long> counters() {
+                Map<String, Long> counters = new LinkedHashMap<>();
+                counters.put("owt_channels", (long) pcChannels.size());
+                counters.put("owt_worker_threads", (long) WorkerPool.threadCount());
+                return counters;
+            }
+        };
+        synchronized (pcChannelsLock) {
+            qosExporter = new QosExporter(configuration.qosExportDirectory, "owt-p2p-" + id,
+                    configuration.qosExportFormat, configuration.qosExportInterval,
+                    QosExporter.DEFAULT_MAX_FILE_BYTES, QosExporter.DEFAULT_MAX_FILES, source);
+            qosExporter.start();
         }
     }
 
@@ -8,10 +8,12 @@ import static owt.base.CheckCondition.RCHECK;
 
 import owt.base.AudioEncodingParameters;
 import owt.base.ClientConfiguration;
+import owt.base.QosExporter;
 import owt.base.VideoEncodingParameters;
 
 import org.webrtc.PeerConnection;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -22,13 +24,22 @@ public final class P2PClientConfiguration extends ClientConfiguration {
 
     final List<VideoEncodingParameters> videoEncodings;
     final List<AudioEncodingParameters> audioEncodings;
+    final int statsCacheTtl;
+    final File qosExportDirectory;
+    final QosExporter.Format qosExportFormat;
+    final int qosExportInterval;
 
     private P2PClientConfiguration(PeerConnection.RTCConfiguration rtcConfiguration,
             List<AudioEncodingParameters> audioEncodings,
-            List<VideoEncodingParameters> videoEncodings) {
+            List<VideoEncodingParameters> videoEncodings, int statsCacheTtl,
+            File qosExportDirectory, QosExporter.Format qosExportFormat, int qosExportInterval) {
         super(rtcConfiguration);
         this.audioEncodings = audioEncodings;
         this.videoEncodings = videoEncodings;
+        this.statsCacheTtl = statsCacheTtl;
+        this.qosExportDirectory = qosExportDirectory;
+        this.qosExportFormat = qosExportFormat;
+        this.qosExportInterval = qosExportInterval;
     }
 
     /**
@@ -47,6 +58,10 @@ public final class P2PClientConfiguration extends ClientConfiguration {
         private final List<VideoEncodingParameters> videoEncodings = new ArrayList<>();
         private final List<AudioEncodingParameters> audioEncodings = new ArrayList<>();
         private PeerConnection.RTCConfiguration rtcConfiguration = null;
+        private int statsCacheTtl = 0;
+        private File qosExportDirectory = null;
+        private QosExporter.Format qosExportFormat = null;
+        private int qosExportInterval = 0;
 
         Builder() {
         }
@@ -92,13 +107,49 @@ public final class P2PClientConfiguration extends ClientConfiguration {
             return this;
         }
 
+        /**
+         * Set up how long the stats of the connection with a remote P2PClient are reused for.
+         * Calls to getStats made while a report is being collected always share it, a TTL also
+         * serves the calls made within |milliseconds| after it from the same report.
+         *
+         * @param milliseconds time a report is reused for, 0 (the default) disables the cache.
+         * @return Builder
+         */
+        public Builder setStatsCacheTtl(int milliseconds) {
+            RCHECK(milliseconds >= 0);
+            this.statsCacheTtl = milliseconds;
+            return this;
+        }
+
+        /**
+         * Set up exporting the QoS of the P2PClient to files while it is connected to the
+         * signaling server: the stats of P2PClient.getAllStats along with the number of
+         * channels and of worker threads. The files are named after the id of the P2PClient.
+         * Disabled by default.
+         *
+         * @param directory directory to write the files into, e.g. Context.getFilesDir().
+         * @param format Format of the files.
+         * @param intervalMs interval between two exports in milliseconds.
+         * @return Builder
+         */
+        public Builder setQosExport(File directory, QosExporter.Format format, int intervalMs) {
+            RCHECK(directory);
+            RCHECK(format);
+            RCHECK(intervalMs > 0);
+            this.qosExportDirectory = directory;
+            this.qosExportFormat = format;
+            this.qosExportInterval = intervalMs;
+            return this;
+        }
+
         /**
          * Build up the P2PClientConfiguration.
          *
          * @return P2PClientConfiguration.
          */
         public P2PClientConfiguration build() {
-            return new P2PClientConfiguration(rtcConfiguration, audioEncodings, videoEncodings);
+            return new P2PClientConfiguration(rtcConfiguration, audioEncodings, videoEncodings,
+                    statsCacheTtl, qosExportDirectory, qosExportFormat, qosExportInterval);
         }
     }
 
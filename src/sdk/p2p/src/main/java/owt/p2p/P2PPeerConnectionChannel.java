@@ -62,6 +62,7 @@ final class P2PPeerConnectionChannel extends PeerConnectionChannel {
     P2PPeerConnectionChannel(String peerId, P2PClientConfiguration configuration,
             PeerConnectionChannelObserver observer) {
         super(peerId, configuration.rtcConfiguration, true, true, observer);
+        setStatsCacheTtl(configuration.statsCacheTtl);
         publishCallbacks = new ConcurrentHashMap<>();
         sendMsgCallbacks = new ConcurrentHashMap<>();
         publishedStreams = new ArrayList<>();